@@ -0,0 +1,94 @@
+package com.kerware.simulateur.benchmark;
+
+import com.kerware.simulateur.AdaptateurSimulateur;
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul d'un foyer par les différents moteurs, pour chaque situation familiale.
+ * Les foyers sont tirés à tour de rôle dans une population pré-générée.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkMoteurs {
+
+    private static final int TAILLE_POPULATION = 4096;
+    private static final CalculateurImpot CALCULATEUR = new CalculateurImpot();
+
+    @Param({ "CELIBATAIRE", "PACSE", "MARIE", "DIVORCE", "VEUF" })
+    private SituationFamiliale situation;
+
+    @Param({ "REALISTE", "HAUTS_REVENUS" })
+    private PopulationFoyers.Profil profil;
+
+    private FoyerFiscal[] foyers;
+    private int suivant;
+
+    private final SimulateurRefactored refactorise = new SimulateurRefactored();
+    private final Simulateur legacy = new Simulateur();
+    private final AdaptateurSimulateur adaptateur = new AdaptateurSimulateur();
+
+    @Setup
+    public void preparer() {
+        foyers = PopulationFoyers.generer(TAILLE_POPULATION, situation, profil, situation.ordinal());
+    }
+
+    private FoyerFiscal foyerSuivant() {
+        FoyerFiscal foyer = foyers[suivant];
+        suivant = (suivant + 1) % TAILLE_POPULATION;
+        return foyer;
+    }
+
+    @Benchmark
+    public ResultatImpot calculateurSansEtat() {
+        return CALCULATEUR.calculer(foyerSuivant());
+    }
+
+    @Benchmark
+    public int simulateurRefactorise() {
+        FoyerFiscal f = foyerSuivant();
+        return refactorise.calculImpot(f.revenuNetDeclarant1(), f.revenuNetDeclarant2(), f.situationFamiliale(),
+                f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+    }
+
+    @Benchmark
+    public int simulateurLegacy() {
+        FoyerFiscal f = foyerSuivant();
+        return legacy.calculImpot(f.revenuNetDeclarant1(), f.revenuNetDeclarant2(), f.situationFamiliale(),
+                f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+    }
+
+    @Benchmark
+    public int adaptateurSetters() {
+        FoyerFiscal f = foyerSuivant();
+        adaptateur.setRevenusNetDeclarant1(f.revenuNetDeclarant1());
+        adaptateur.setRevenusNetDeclarant2(f.revenuNetDeclarant2());
+        adaptateur.setSituationFamiliale(f.situationFamiliale());
+        adaptateur.setNbEnfantsACharge(f.nbEnfantsACharge());
+        adaptateur.setNbEnfantsSituationHandicap(f.nbEnfantsSituationHandicap());
+        adaptateur.setParentIsole(f.parentIsole());
+        adaptateur.calculImpotSurRevenuNet();
+        return adaptateur.getImpotSurRevenuNet();
+    }
+}
@@ -0,0 +1,55 @@
+package com.kerware.simulateur.benchmark;
+
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'un appel du simulateur legacy, sans trace, une même instance calculant à tour de rôle
+ * {@value #TAILLE_POPULATION} célibataires aux revenus réalistes.
+ *
+ * <p>Ce benchmark n'utilise que l'API publique de {@link Simulateur} : pour mesurer l'effet d'une
+ * modification du legacy, il se lance tel quel sur la révision qui la précède puis sur la
+ * suivante.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkSimulateurLegacy {
+
+    private static final int TAILLE_POPULATION = 1024;
+    private static final long GRAINE = 8;
+
+    private final Simulateur legacy = new Simulateur();
+    private FoyerFiscal[] foyers;
+    private int suivant;
+
+    @Setup
+    public void preparer() {
+        foyers = PopulationFoyers.generer(TAILLE_POPULATION, SituationFamiliale.CELIBATAIRE,
+                PopulationFoyers.Profil.REALISTE, GRAINE);
+    }
+
+    @Benchmark
+    public int calculImpot() {
+        FoyerFiscal f = foyers[suivant];
+        suivant = (suivant + 1) % TAILLE_POPULATION;
+        return legacy.calculImpot(f.revenuNetDeclarant1(), f.revenuNetDeclarant2(), f.situationFamiliale(),
+                f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+    }
+}
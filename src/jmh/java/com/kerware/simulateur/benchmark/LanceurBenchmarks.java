@@ -0,0 +1,28 @@
+package com.kerware.simulateur.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Point d'entrée du jar des benchmarks : accepte les options JMH habituelles et active
+ * le profileur {@code gc} (taux d'allocation) si aucun profileur n'est demandé.
+ *
+ * <p>Exemple : {@code java -jar target/benchmarks.jar BenchmarkMoteurs -p situation=MARIE}</p>
+ */
+public final class LanceurBenchmarks {
+
+    private LanceurBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions ligneDeCommande = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(ligneDeCommande);
+        if (ligneDeCommande.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
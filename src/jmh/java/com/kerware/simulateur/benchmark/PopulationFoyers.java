@@ -0,0 +1,88 @@
+package com.kerware.simulateur.benchmark;
+
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.SituationFamiliale;
+
+import java.util.SplittableRandom;
+
+/**
+ * Générateur de foyers pour les benchmarks, selon une distribution de revenus réaliste :
+ * log-normale centrée sur le revenu net médian, ou loi de Pareto au-delà du premier seuil
+ * de la contribution exceptionnelle pour les hauts revenus.
+ */
+public final class PopulationFoyers {
+
+    public enum Profil {
+        // Revenus log-normaux, médiane de 24 000 € par déclarant
+        REALISTE,
+        // Revenus Pareto à partir de 250 000 €, soumis à la CEHR
+        HAUTS_REVENUS
+    }
+
+    private static final double MEDIANE = 24_000;
+    private static final double ECART_TYPE_LOG = 0.7;
+    private static final double SEUIL_CEHR = 250_000;
+    private static final double ALPHA_PARETO = 1.5;
+    private static final double REVENU_MAX = 20_000_000;
+    // Répartition cumulée du nombre d'enfants à charge : 0, 1, 2, 3, 4 et plus
+    private static final double[] REPARTITION_ENFANTS = { 0.55, 0.75, 0.92, 0.98, 1.0 };
+    private static final int MAX_ENFANTS = 7;
+    private static final double PROBA_HANDICAP = 0.02;
+    private static final double PROBA_PARENT_ISOLE = 0.3;
+
+    private PopulationFoyers() {
+    }
+
+    public static FoyerFiscal[] generer(int taille, SituationFamiliale sf, Profil profil, long graine) {
+        SplittableRandom aleatoire = new SplittableRandom(graine);
+        FoyerFiscal[] foyers = new FoyerFiscal[taille];
+        for (int i = 0; i < taille; i++) {
+            int r1 = revenu(aleatoire, profil);
+            int r2 = sf.isMarried() ? revenu(aleatoire, profil) : 0;
+            int enf = enfants(aleatoire);
+            int enfH = 0;
+            for (int e = 0; e < enf; e++) {
+                enfH += aleatoire.nextDouble() < PROBA_HANDICAP ? 1 : 0;
+            }
+            boolean iso = !sf.isMarried() && enf > 0 && aleatoire.nextDouble() < PROBA_PARENT_ISOLE;
+            foyers[i] = new FoyerFiscal(r1, r2, sf, enf, enfH, iso);
+        }
+        return foyers;
+    }
+
+    private static int revenu(SplittableRandom aleatoire, Profil profil) {
+        double revenu;
+        if (profil == Profil.HAUTS_REVENUS) {
+            revenu = SEUIL_CEHR / Math.pow(1 - aleatoire.nextDouble(), 1 / ALPHA_PARETO);
+        } else {
+            revenu = MEDIANE * Math.exp(ECART_TYPE_LOG * gaussienne(aleatoire));
+        }
+        return (int) Math.min(revenu, REVENU_MAX);
+    }
+
+    private static int enfants(SplittableRandom aleatoire) {
+        double tirage = aleatoire.nextDouble();
+        int enf = 0;
+        while (enf < REPARTITION_ENFANTS.length - 1 && tirage >= REPARTITION_ENFANTS[enf]) {
+            enf++;
+        }
+        // 4 enfants et plus : répartition uniforme jusqu'au maximum accepté
+        if (enf == REPARTITION_ENFANTS.length - 1) {
+            enf += aleatoire.nextInt(MAX_ENFANTS - enf + 1);
+        }
+        return enf;
+    }
+
+    // Méthode polaire de Marsaglia
+    private static double gaussienne(SplittableRandom aleatoire) {
+        double u;
+        double v;
+        double s;
+        do {
+            u = 2 * aleatoire.nextDouble() - 1;
+            v = 2 * aleatoire.nextDouble() - 1;
+            s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        return u * Math.sqrt(-2 * Math.log(s) / s);
+    }
+}
@@ -1,9 +1,25 @@
 package com.kerware.simulateur;
 
+/**
+ * Adaptateur de {@link ICalculateurImpot} vers les moteurs de calcul.
+ * Par défaut seul le calcul refactorisé est exécuté ; le mode {@link ModeExecution#LEGACY}
+ * utilise l'ancien simulateur et le mode {@link ModeExecution#COMPARAISON} le compare
+ * au calcul refactorisé sur un échantillon d'appels.
+ *
+ * <p>Sans cache ni comparaison, {@link #calculImpotSurRevenuNet()} ne calcule que l'impôt net ;
+ * le résultat complet n'est calculé qu'à la première consultation d'un autre getter.</p>
+ */
 public class AdaptateurSimulateur implements ICalculateurImpot {
 
-    private SimulateurRefactored simulateur = new SimulateurRefactored();
-    private Simulateur oldSimulateur = new Simulateur();
+    private final ModeExecution mode;
+    private final ComparaisonLegacy comparaison;
+    private Simulateur oldSimulateur;
+    private CacheResultats cache;
+    private ResultatImpot resultat = ResultatImpot.VIDE;
+    // Dernier foyer dont seul l'impôt net est calculé, null si son résultat complet l'est aussi
+    private FoyerFiscal enAttente;
+    private CalculateurImpot calculateurEnAttente;
+    private double impotEnAttente;
 
     private int revenusNetDecl1 = 0;
     private int revenusNetDecl2 = 0;
@@ -12,6 +28,48 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
     private int nbEnfantsSituationHandicap;
     private boolean parentIsole;
 
+    public AdaptateurSimulateur() {
+        this(ModeExecution.REFACTORISE);
+    }
+
+    /**
+     * En mode {@link ModeExecution#COMPARAISON}, les appels sont comparés par la comparaison
+     * partagée {@link ComparaisonLegacy#parDefaut()}.
+     */
+    public AdaptateurSimulateur(ModeExecution me) {
+        this(me, me == ModeExecution.COMPARAISON ? ComparaisonLegacy.parDefaut() : null);
+    }
+
+    /**
+     * Mode {@link ModeExecution#COMPARAISON} avec une comparaison éventuellement partagée.
+     */
+    public AdaptateurSimulateur(ComparaisonLegacy cmp) {
+        this(ModeExecution.COMPARAISON, cmp);
+    }
+
+    private AdaptateurSimulateur(ModeExecution me, ComparaisonLegacy cmp) {
+        this.mode = me;
+        this.comparaison = cmp;
+    }
+
+    public ModeExecution getMode() { return mode; }
+
+    /**
+     * Active le suivi pas à pas du simulateur legacy en mode {@link ModeExecution#LEGACY}
+     * ({@code null} pour le désactiver).
+     */
+    public void setTrace(TraceCalcul tc) {
+        simulateurLegacy().setTrace(tc);
+    }
+
+    /**
+     * Active un cache de résultats, éventuellement partagé entre adaptateurs ({@code null} pour
+     * le désactiver). Ignoré en mode {@link ModeExecution#LEGACY} ; en mode
+     * {@link ModeExecution#COMPARAISON}, seuls les foyers absents du cache sont comparés.
+     */
+    public void setCacheResultats(CacheResultats cr) {
+        this.cache = cr;
+    }
 
     @Override
     public void setRevenusNetDeclarant1(int rn) {
@@ -45,9 +103,67 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
 
     @Override
     public void calculImpotSurRevenuNet() {
-        oldSimulateur.calculImpot(revenusNetDecl1, revenusNetDecl2 ,situationFamiliale, nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole);
+        if (mode == ModeExecution.LEGACY) {
+            resultat = calculLegacy(foyer());
+            return;
+        }
+        CalculateurImpot calculateur = RegistreBaremes.global().calculateur();
+        if (mode == ModeExecution.REFACTORISE && cache == null) {
+            // Rien n'est remplacé si le foyer est invalide : le dernier résultat reste consultable
+            FoyerFiscal foyer = foyer();
+            impotEnAttente = calculateur.calculerImpotNet(foyer);
+            enAttente = foyer;
+            calculateurEnAttente = calculateur;
+            return;
+        }
+        if (cache != null) {
+            ResultatImpot enCache = cache.chercher(calculateur, revenusNetDecl1, revenusNetDecl2,
+                    situationFamiliale, nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole);
+            if (enCache != null) {
+                resultat = enCache;
+                enAttente = null;
+                return;
+            }
+        }
+        resultat = calculateur.calculer(foyer());
+        enAttente = null;
+        if (cache != null) {
+            cache.stocker(calculateur, resultat);
+        }
+        if (mode == ModeExecution.COMPARAISON) {
+            comparaison.soumettre(calculateur, resultat);
+        }
+    }
+
+    private ResultatImpot resultat() {
+        if (enAttente != null) {
+            resultat = calculateurEnAttente.calculer(enAttente);
+            enAttente = null;
+        }
+        return resultat;
+    }
+
+    private FoyerFiscal foyer() {
+        return new FoyerFiscal(revenusNetDecl1, revenusNetDecl2, situationFamiliale,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole);
+    }
+
+    private ResultatImpot calculLegacy(FoyerFiscal foyer) {
+        Simulateur legacy = simulateurLegacy();
+        legacy.calculImpot(foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(), foyer.situationFamiliale(),
+                foyer.nbEnfantsACharge(), foyer.nbEnfantsSituationHandicap(), foyer.parentIsole());
+        return new ResultatImpot(foyer, legacy.getAbattement(), legacy.getRevenuReference(),
+                legacy.getNbPartsDeclarants(), legacy.getNbParts(), legacy.getImpotDeclarants(),
+                legacy.getImpotAvantDecote(), legacy.getDecote(), legacy.getContribExceptionnelle(),
+                legacy.getImpotNet(),
+                RegistreBaremes.global().calculateur().tauxMarginal(legacy.getRevenuReference() / legacy.getNbParts()));
+    }
 
-        simulateur.calculImpot(revenusNetDecl1, revenusNetDecl2 ,situationFamiliale, nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole);
+    private Simulateur simulateurLegacy() {
+        if (oldSimulateur == null) {
+            oldSimulateur = new Simulateur();
+        }
+        return oldSimulateur;
     }
 
     @Override
@@ -61,35 +177,35 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
     }
 
     @Override
-    public double getContribExceptionnelle() {return simulateur.getContribExceptionnelle();}
+    public double getContribExceptionnelle() {return resultat().contribExceptionnelle();}
 
     @Override
     public int getRevenuFiscalReference() {
-        return (int)simulateur.getRevenuReference();
+        return (int)resultat().revenuReference();
     }
 
     @Override
     public int getAbattement() {
-        return (int)simulateur.getAbattement();
+        return (int)resultat().abattement();
     }
 
     @Override
     public double getNbPartsFoyerFiscal() {
-        return simulateur.getNbParts();
+        return resultat().nbParts();
     }
 
     @Override
     public int getImpotAvantDecote() {
-        return (int)simulateur.getImpotAvantDecote();
+        return (int)resultat().impotAvantDecote();
     }
 
     @Override
     public int getDecote() {
-        return (int)simulateur.getDecote();
+        return (int)resultat().decote();
     }
 
     @Override
     public int getImpotSurRevenuNet() {
-        return (int)simulateur.getImpotNet();
+        return (int)(enAttente != null ? impotEnAttente : resultat.impotNet());
     }
 }
@@ -0,0 +1,183 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Paramètres fiscaux d'une année d'imposition : barème progressif, contribution exceptionnelle,
+ * abattement, plafonnement du quotient familial et décote.
+ *
+ * <p>Les barèmes sont décrits par des fichiers {@code .properties} ; ceux livrés avec le simulateur
+ * sont les ressources {@code /baremes/<annee>.properties}.</p>
+ */
+public record Bareme(int annee, List<TrancheImpot> tranchesImpot, List<TrancheCEHR> tranchesCEHRCelibataire,
+                     List<TrancheCEHR> tranchesCEHRCouple, Abattement abattement, double plafondDemiPart,
+                     Decote decote) {
+
+    public record Abattement(int minimum, int maximum, double taux) { }
+
+    public record Decote(double seuilSeul, double seuilCouple, double maxSeul, double maxCouple, double taux) { }
+
+    public Bareme {
+        tranchesImpot = List.copyOf(tranchesImpot);
+        tranchesCEHRCelibataire = List.copyOf(tranchesCEHRCelibataire);
+        tranchesCEHRCouple = List.copyOf(tranchesCEHRCouple);
+        if (tranchesImpot.isEmpty() || tranchesCEHRCelibataire.isEmpty() || tranchesCEHRCouple.isEmpty()) {
+            throw new IllegalArgumentException("Barème " + annee + " : tranches absentes");
+        }
+        if (abattement.minimum() > abattement.maximum()) {
+            throw new IllegalArgumentException("Barème " + annee + " : abattement minimum supérieur au maximum");
+        }
+    }
+
+    /**
+     * Charge le barème livré pour l'année demandée.
+     *
+     * @throws IllegalArgumentException si aucun barème n'est livré pour cette année ou s'il est invalide
+     */
+    public static Bareme charger(int annee) {
+        String ressource = "/baremes/" + annee + ".properties";
+        try (InputStream in = Bareme.class.getResourceAsStream(ressource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Aucun barème pour l'année " + annee);
+            }
+            return lire(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture impossible de " + ressource, e);
+        }
+    }
+
+    /**
+     * Charge un barème depuis un fichier externe, par exemple pour une nouvelle loi de finances.
+     */
+    public static Bareme charger(Path fichier) throws IOException {
+        try (Reader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            return lire(reader);
+        }
+    }
+
+    static Bareme lire(Reader reader) throws IOException {
+        Properties proprietes = new Properties();
+        proprietes.load(reader);
+        return new LectureBareme(proprietes).bareme();
+    }
+
+    /**
+     * Lecture des clés d'un fichier de barème, avec messages d'erreur indiquant la clé fautive.
+     */
+    private static final class LectureBareme {
+
+        private final Properties proprietes;
+        private String annee = "?";
+
+        LectureBareme(Properties props) {
+            this.proprietes = props;
+        }
+
+        Bareme bareme() {
+            annee = valeur("annee");
+            int[] bornesImpot = entiers("impot.bornes");
+            int[] bornesCEHR = entiers("cehr.bornes");
+            List<TrancheImpot> tranchesImpot = new ArrayList<>();
+            double[] tauxImpot = taux("impot.taux", bornesImpot.length);
+            for (int i = 0; i < bornesImpot.length; i++) {
+                tranchesImpot.add(new TrancheImpot(bornesImpot[i], borneSuperieure(bornesImpot, i), tauxImpot[i]));
+            }
+            return new Bareme(entier("annee"), tranchesImpot,
+                    tranchesCEHR(bornesCEHR, "cehr.celibataire.taux"), tranchesCEHR(bornesCEHR, "cehr.couple.taux"),
+                    new Abattement(entier("abattement.min"), entier("abattement.max"), reel("abattement.taux")),
+                    reel("quotient.plafondDemiPart"),
+                    new Decote(reel("decote.seuilSeul"), reel("decote.seuilCouple"), reel("decote.maxSeul"),
+                            reel("decote.maxCouple"), reel("decote.taux")));
+        }
+
+        private List<TrancheCEHR> tranchesCEHR(int[] bornes, String cle) {
+            double[] tauxCEHR = taux(cle, bornes.length);
+            List<TrancheCEHR> tranches = new ArrayList<>();
+            for (int i = 0; i < bornes.length; i++) {
+                tranches.add(new TrancheCEHR(bornes[i], borneSuperieure(bornes, i), tauxCEHR[i]));
+            }
+            return tranches;
+        }
+
+        private static int borneSuperieure(int[] bornes, int i) {
+            return i + 1 < bornes.length ? bornes[i + 1] : Integer.MAX_VALUE;
+        }
+
+        private String valeur(String cle) {
+            String valeur = proprietes.getProperty(cle);
+            if (valeur == null || valeur.isBlank()) {
+                throw erreur(cle, "clé manquante");
+            }
+            return valeur.trim();
+        }
+
+        private int entier(String cle) {
+            try {
+                return Integer.parseInt(valeur(cle));
+            } catch (NumberFormatException e) {
+                throw erreur(cle, "entier attendu");
+            }
+        }
+
+        private double reel(String cle) {
+            try {
+                double valeur = Double.parseDouble(valeur(cle));
+                if (!(valeur >= 0)) {
+                    throw erreur(cle, "valeur négative");
+                }
+                return valeur;
+            } catch (NumberFormatException e) {
+                throw erreur(cle, "nombre attendu");
+            }
+        }
+
+        private int[] entiers(String cle) {
+            String[] champs = valeur(cle).split(",");
+            int[] bornes = new int[champs.length];
+            for (int i = 0; i < champs.length; i++) {
+                try {
+                    bornes[i] = Integer.parseInt(champs[i].trim());
+                } catch (NumberFormatException e) {
+                    throw erreur(cle, "entier attendu en position " + (i + 1));
+                }
+                if (i == 0 ? bornes[i] != 0 : bornes[i] <= bornes[i - 1]) {
+                    throw erreur(cle, "bornes croissantes à partir de 0 attendues");
+                }
+            }
+            return bornes;
+        }
+
+        private double[] taux(String cle, int nombre) {
+            String[] champs = valeur(cle).split(",");
+            if (champs.length != nombre) {
+                throw erreur(cle, nombre + " taux attendus");
+            }
+            double[] taux = new double[nombre];
+            for (int i = 0; i < nombre; i++) {
+                try {
+                    taux[i] = Double.parseDouble(champs[i].trim());
+                } catch (NumberFormatException e) {
+                    throw erreur(cle, "taux attendu en position " + (i + 1));
+                }
+                if (!(taux[i] >= 0 && taux[i] <= 1)) {
+                    throw erreur(cle, "taux hors de [0, 1] en position " + (i + 1));
+                }
+            }
+            return taux;
+        }
+
+        private IllegalArgumentException erreur(String cle, String message) {
+            return new IllegalArgumentException("Barème " + annee + " : " + message + " (" + cle + ")");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.kerware.simulateur;
+
+/**
+ * Colonnes de travail d'un {@link NoyauLot} : un bloc de {@value #TAILLE} foyers au plus, déjà
+ * vérifiés et réduits à leurs revenus, leur situation et leurs parts, puis les résultats du noyau.
+ * Alloué une fois par calcul de lot et réutilisé d'un bloc à l'autre.
+ */
+final class BlocNoyau {
+
+    static final int TAILLE = 1024;
+
+    // --- Entrées ---
+    final int[] revenus1 = new int[TAILLE];
+    final int[] revenus2 = new int[TAILLE];
+    final SituationFamiliale[] situations = new SituationFamiliale[TAILLE];
+    final double[] partsDeclarants = new double[TAILLE];
+    final double[] parts = new double[TAILLE];
+
+    // --- Résultats ---
+    final double[] revenusReference = new double[TAILLE];
+    final double[] decotes = new double[TAILLE];
+    final double[] contribExceptionnelles = new double[TAILLE];
+    final double[] impotsNets = new double[TAILLE];
+    final double[] abattements = new double[TAILLE];
+    final double[] impotsAvantDecote = new double[TAILLE];
+    final boolean[] plafonnements = new boolean[TAILLE];
+}
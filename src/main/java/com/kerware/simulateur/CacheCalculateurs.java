@@ -0,0 +1,206 @@
+package com.kerware.simulateur;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Calculateurs compilés par année d'imposition, créés à la première demande.
+ *
+ * <p>Le cache est borné : au-delà de sa capacité, un calculateur est retiré selon l'algorithme de
+ * l'horloge (CLOCK), approximation du moins récemment utilisé. Chaque entrée porte un bit de
+ * référence, levé quand elle est de nouveau consultée et effacé au passage de l'aiguille ;
+ * l'aiguille retire la première entrée trouvée sans bit. Un accès ne lève le bit que s'il a été
+ * effacé : les accès répétés à une année ne font que lire l'entrée. Les entrées sont un tableau immuable remplacé par échange de référence ; une année
+ * déjà compilée est donc trouvée sans verrou, sans relire ni revalider son barème. Une année
+ * absente est compilée une seule fois : les threads qui la demandent pendant sa compilation
+ * attendent le calculateur en cours de création.</p>
+ */
+public final class CacheCalculateurs {
+
+    public static final int CAPACITE_DEFAUT = 8;
+
+    private static final CacheCalculateurs GLOBAL = new CacheCalculateurs(CAPACITE_DEFAUT);
+
+    private final int capacite;
+    private final IntFunction<Bareme> chargeur;
+    private final AtomicReference<Entree[]> entrees = new AtomicReference<>(new Entree[0]);
+    // Compilations en cours, par année
+    private final Map<Integer, CompletableFuture<Entree>> compilations = new ConcurrentHashMap<>();
+    private final LongAdder nbCompilations = new LongAdder();
+    // Prochaine entrée examinée pour l'éviction, écrite sans synchronisation : une course ne fait
+    // que décaler le choix de l'entrée retirée
+    private int aiguille;
+
+    /**
+     * Cache des barèmes livrés avec le simulateur.
+     */
+    public CacheCalculateurs(int cap) {
+        this(cap, Bareme::charger);
+    }
+
+    /**
+     * @param cap     nombre maximal de calculateurs conservés
+     * @param lecteur fournit le barème d'une année, appelé une fois par compilation
+     */
+    public CacheCalculateurs(int cap, IntFunction<Bareme> lecteur) {
+        if (cap <= 0) {
+            throw new IllegalArgumentException("La capacité du cache doit être positive");
+        }
+        this.capacite = cap;
+        this.chargeur = lecteur;
+    }
+
+    public static CacheCalculateurs global() {
+        return GLOBAL;
+    }
+
+    public int getCapacite() { return capacite; }
+    public int taille() { return entrees.get().length; }
+    public long getNbCompilations() { return nbCompilations.sum(); }
+
+    /**
+     * @throws IllegalArgumentException si aucun barème valide n'existe pour cette année
+     */
+    public CalculateurImpot calculateur(int annee) {
+        Entree entree = chercher(entrees.get(), annee);
+        if (entree == null) {
+            return compiler(annee).calculateur;
+        }
+        if (!entree.reference) {
+            entree.reference = true;
+        }
+        return entree.calculateur;
+    }
+
+    private Entree compiler(int annee) {
+        CompletableFuture<Entree> compilation = new CompletableFuture<>();
+        CompletableFuture<Entree> enCours = compilations.putIfAbsent(annee, compilation);
+        if (enCours != null) {
+            return attendre(enCours);
+        }
+        try {
+            // Une compilation concurrente a pu se terminer avant l'enregistrement de celle-ci
+            Entree entree = chercher(entrees.get(), annee);
+            if (entree == null) {
+                Bareme bareme = chargeur.apply(annee);
+                if (bareme.annee() != annee) {
+                    throw new IllegalArgumentException("Barème " + bareme.annee() + " fourni pour l'année " + annee);
+                }
+                entree = ajouter(new Entree(new CalculateurImpot(bareme)), false);
+            }
+            compilation.complete(entree);
+            return entree;
+        } catch (RuntimeException e) {
+            compilation.completeExceptionally(e);
+            throw e;
+        } finally {
+            compilations.remove(annee, compilation);
+        }
+    }
+
+    private static Entree attendre(CompletableFuture<Entree> compilation) {
+        try {
+            return compilation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Compile et publie le barème de son année, en remplaçant le calculateur déjà en cache.
+     */
+    public CalculateurImpot publier(Bareme bareme) {
+        return ajouter(new Entree(new CalculateurImpot(bareme)), true).calculateur;
+    }
+
+    /**
+     * Calcule le foyer pour chacune des années demandées.
+     *
+     * @return les résultats par année, dans l'ordre des années demandées
+     */
+    public Map<Integer, ResultatImpot> calculer(FoyerFiscal foyer, int... annees) {
+        Map<Integer, ResultatImpot> resultats = new LinkedHashMap<>();
+        for (int annee : annees) {
+            resultats.put(annee, calculateur(annee).calculer(foyer));
+        }
+        return resultats;
+    }
+
+    private Entree ajouter(Entree nouvelle, boolean remplacer) {
+        int annee = nouvelle.annee;
+        while (true) {
+            Entree[] actuelles = entrees.get();
+            Entree existante = chercher(actuelles, annee);
+            if (existante != null && !remplacer) {
+                // Compilée entre-temps par un autre thread
+                return existante;
+            }
+            Entree[] suivantes = remplacer(actuelles, existante, nouvelle);
+            if (entrees.compareAndSet(actuelles, suivantes)) {
+                nbCompilations.increment();
+                return nouvelle;
+            }
+        }
+    }
+
+    private Entree[] remplacer(Entree[] actuelles, Entree existante, Entree nouvelle) {
+        Entree retiree = existante;
+        if (retiree == null && actuelles.length >= capacite) {
+            retiree = victime(actuelles);
+        }
+        Entree[] suivantes = new Entree[retiree == null ? actuelles.length + 1 : actuelles.length];
+        int n = 0;
+        for (Entree entree : actuelles) {
+            if (entree != retiree) {
+                suivantes[n++] = entree;
+            }
+        }
+        suivantes[n] = nouvelle;
+        return suivantes;
+    }
+
+    // Première entrée sans bit de référence à partir de l'aiguille, en effaçant les bits rencontrés ;
+    // au plus deux tours, les bits pouvant être relevés pendant le parcours
+    private Entree victime(Entree[] actuelles) {
+        int i = aiguille % actuelles.length;
+        for (int n = 0; n < 2 * actuelles.length && actuelles[i].reference; n++) {
+            actuelles[i].reference = false;
+            i = (i + 1) % actuelles.length;
+        }
+        // Les entrées suivantes glissent d'un rang : l'aiguille désigne alors la suivante de la retirée
+        aiguille = i;
+        return actuelles[i];
+    }
+
+    private static Entree chercher(Entree[] tableau, int annee) {
+        for (Entree entree : tableau) {
+            if (entree.annee == annee) {
+                return entree;
+            }
+        }
+        return null;
+    }
+
+    private static final class Entree {
+
+        private final int annee;
+        private final CalculateurImpot calculateur;
+        // Bit de référence de l'horloge, consulté depuis le dernier passage de l'aiguille : écrit sans
+        // synchronisation, un accès perdu ne fait que rendre l'entrée plus tôt évictable
+        private boolean reference;
+
+        Entree(CalculateurImpot calc) {
+            this.annee = calc.getAnnee();
+            this.calculateur = calc;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.kerware.simulateur;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Cache borné de résultats, pour les foyers recalculés à l'identique (curseurs, nouvelles tentatives).
+ *
+ * <p>Un foyer est identifié par une clé de deux {@code long} : les deux revenus d'une part ; l'année
+ * du barème, la situation familiale, les enfants et le parent isolé d'autre part. Un résultat n'est
+ * rendu que s'il a été calculé par le même {@link CalculateurImpot} : publier un nouveau barème
+ * invalide donc de fait les résultats précédents.</p>
+ *
+ * <p>Le cache est découpé en segments protégés chacun par un {@link StampedLock}. Chaque clé
+ * est rangée dans un ensemble de {@value #VOIES} emplacements de son segment ; quand l'ensemble
+ * est plein, la {@link Eviction politique d'éviction} choisit l'entrée remplacée. Une lecture
+ * réussie est optimiste : elle ne prend aucun verrou et n'alloue rien.</p>
+ */
+public final class CacheResultats {
+
+    /**
+     * Choix de l'entrée remplacée dans un ensemble plein.
+     */
+    public enum Eviction {
+        // Seconde chance : les entrées lues depuis le dernier passage sont épargnées
+        CLOCK,
+        // Premier entré, premier sorti
+        FIFO
+    }
+
+    public static final int VOIES = 8;
+    public static final int NB_SEGMENTS = 16;
+
+    private static final int DECALAGE_ANNEE = 16;
+    private static final int DECALAGE_SITUATION = 8;
+    private static final int DECALAGE_ENFANTS = 4;
+    private static final int DECALAGE_32 = 32;
+    private static final long MASQUE_32 = 0xFFFF_FFFFL;
+    private static final long MELANGE_1 = 0xFF51_AFD7_ED55_8CCDL;
+    private static final long MELANGE_2 = 0xC4CE_B9FE_1A85_EC53L;
+    private static final int DECALAGE_MELANGE = 33;
+
+    private final Eviction eviction;
+    private final Segment[] segments;
+    private final int masqueEnsembles;
+
+    private final LongAdder nbSucces = new LongAdder();
+    private final LongAdder nbEchecs = new LongAdder();
+    private final LongAdder nbEvictions = new LongAdder();
+
+    /**
+     * @param capacite nombre d'entrées souhaité, arrondi à la puissance de deux supérieure
+     *                 (au moins {@value #NB_SEGMENTS} × {@value #VOIES})
+     */
+    public CacheResultats(int capacite, Eviction politique) {
+        if (capacite <= 0) {
+            throw new IllegalArgumentException("La capacité du cache doit être positive");
+        }
+        int parSegment = Math.max(1, (capacite + NB_SEGMENTS * VOIES - 1) / (NB_SEGMENTS * VOIES));
+        int ensembles = Integer.highestOneBit(parSegment);
+        if (ensembles < parSegment) {
+            ensembles <<= 1;
+        }
+        this.eviction = politique;
+        this.masqueEnsembles = ensembles - 1;
+        this.segments = new Segment[NB_SEGMENTS];
+        for (int i = 0; i < NB_SEGMENTS; i++) {
+            segments[i] = new Segment(ensembles);
+        }
+    }
+
+    public Eviction getEviction() { return eviction; }
+    public int getCapacite() { return NB_SEGMENTS * (masqueEnsembles + 1) * VOIES; }
+    public long getNbSucces() { return nbSucces.sum(); }
+    public long getNbEchecs() { return nbEchecs.sum(); }
+    public long getNbEvictions() { return nbEvictions.sum(); }
+
+    /**
+     * Résultat en cache du foyer pour ce calculateur, ou {@code null}.
+     *
+     * @throws IllegalArgumentException si le foyer est invalide : il ne peut pas être en cache
+     */
+    public ResultatImpot chercher(CalculateurImpot calculateur, int r1, int r2, SituationFamiliale sf,
+                                  int enf, int enfH, boolean iso) {
+        CalculateurImpot.verifierParametres(r1, r2, sf, enf, enfH, iso);
+        long cle1 = cleRevenus(r1, r2);
+        long cle2 = cleFoyer(calculateur.getAnnee(), sf, enf, enfH, iso);
+        long h = melange(cle1, cle2);
+        ResultatImpot resultat = segment(h).chercher(ensemble(h), cle1, cle2, calculateur);
+        if (resultat == null) {
+            nbEchecs.increment();
+        } else {
+            nbSucces.increment();
+        }
+        return resultat;
+    }
+
+    /**
+     * Range un résultat calculé par ce calculateur.
+     */
+    public void stocker(CalculateurImpot calculateur, ResultatImpot resultat) {
+        FoyerFiscal foyer = resultat.foyer();
+        long cle1 = cleRevenus(foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2());
+        long cle2 = cleFoyer(calculateur.getAnnee(), foyer.situationFamiliale(), foyer.nbEnfantsACharge(),
+                foyer.nbEnfantsSituationHandicap(), foyer.parentIsole());
+        long h = melange(cle1, cle2);
+        if (segment(h).stocker(ensemble(h), cle1, cle2, calculateur, resultat, eviction)) {
+            nbEvictions.increment();
+        }
+    }
+
+    /**
+     * Résultat en cache du foyer, sinon calculé puis rangé.
+     */
+    public ResultatImpot calculer(CalculateurImpot calculateur, FoyerFiscal foyer) {
+        ResultatImpot resultat = chercher(calculateur, foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(),
+                foyer.situationFamiliale(), foyer.nbEnfantsACharge(), foyer.nbEnfantsSituationHandicap(),
+                foyer.parentIsole());
+        if (resultat == null) {
+            resultat = calculateur.calculer(foyer);
+            stocker(calculateur, resultat);
+        }
+        return resultat;
+    }
+
+    // --- Clés ---
+
+    private static long cleRevenus(int r1, int r2) {
+        return ((long) r1 << DECALAGE_32) | (r2 & MASQUE_32);
+    }
+
+    // Enfants et enfants handicapés tiennent sur 3 bits, bornés par la vérification du foyer
+    private static long cleFoyer(int annee, SituationFamiliale sf, int enf, int enfH, boolean iso) {
+        return ((long) annee << DECALAGE_ANNEE) | ((long) sf.ordinal() << DECALAGE_SITUATION)
+                | ((long) enf << DECALAGE_ENFANTS) | ((long) enfH << 1) | (iso ? 1 : 0);
+    }
+
+    private static long melange(long cle1, long cle2) {
+        long h = cle1 * MELANGE_1 ^ cle2;
+        h = (h ^ (h >>> DECALAGE_MELANGE)) * MELANGE_2;
+        return h ^ (h >>> DECALAGE_MELANGE);
+    }
+
+    private Segment segment(long h) {
+        return segments[(int) (h >>> (Long.SIZE - Integer.numberOfTrailingZeros(NB_SEGMENTS)))];
+    }
+
+    private int ensemble(long h) {
+        return (int) h & masqueEnsembles;
+    }
+
+    /**
+     * Segment du cache : {@code ensembles} × {@value #VOIES} emplacements en tableaux parallèles.
+     * Un emplacement est libre tant que son calculateur est {@code null}.
+     */
+    private static final class Segment {
+
+        private final StampedLock verrou = new StampedLock();
+        private final long[] cles1;
+        private final long[] cles2;
+        private final CalculateurImpot[] calculateurs;
+        private final ResultatImpot[] resultats;
+        // Bit de seconde chance (CLOCK), écrit sans verrou lors des lectures
+        private final boolean[] references;
+        // Prochain emplacement examiné par l'éviction, par ensemble
+        private final byte[] aiguilles;
+
+        Segment(int ensembles) {
+            int taille = ensembles * VOIES;
+            cles1 = new long[taille];
+            cles2 = new long[taille];
+            calculateurs = new CalculateurImpot[taille];
+            resultats = new ResultatImpot[taille];
+            references = new boolean[taille];
+            aiguilles = new byte[ensembles];
+        }
+
+        ResultatImpot chercher(int ensemble, long cle1, long cle2, CalculateurImpot calculateur) {
+            long marque = verrou.tryOptimisticRead();
+            int i = indice(ensemble, cle1, cle2, calculateur);
+            ResultatImpot resultat = i < 0 ? null : resultats[i];
+            if (!verrou.validate(marque)) {
+                marque = verrou.readLock();
+                try {
+                    i = indice(ensemble, cle1, cle2, calculateur);
+                    resultat = i < 0 ? null : resultats[i];
+                } finally {
+                    verrou.unlockRead(marque);
+                }
+            }
+            if (i >= 0) {
+                references[i] = true;
+            }
+            return resultat;
+        }
+
+        /**
+         * @return vrai si une entrée a été évincée pour faire de la place
+         */
+        boolean stocker(int ensemble, long cle1, long cle2, CalculateurImpot calculateur, ResultatImpot resultat,
+                        Eviction eviction) {
+            long marque = verrou.writeLock();
+            try {
+                int debut = ensemble * VOIES;
+                int place = -1;
+                for (int i = debut; i < debut + VOIES; i++) {
+                    if (calculateurs[i] == null || cles1[i] == cle1 && cles2[i] == cle2) {
+                        place = i;
+                        break;
+                    }
+                }
+                boolean evincee = place < 0;
+                if (evincee) {
+                    place = debut + victime(ensemble, eviction);
+                }
+                cles1[place] = cle1;
+                cles2[place] = cle2;
+                calculateurs[place] = calculateur;
+                resultats[place] = resultat;
+                references[place] = false;
+                return evincee;
+            } finally {
+                verrou.unlockWrite(marque);
+            }
+        }
+
+        private int indice(int ensemble, long cle1, long cle2, CalculateurImpot calculateur) {
+            int debut = ensemble * VOIES;
+            for (int i = debut; i < debut + VOIES; i++) {
+                if (cles1[i] == cle1 && cles2[i] == cle2 && calculateurs[i] == calculateur) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Voie à remplacer dans un ensemble plein ; l'aiguille avance d'un cran au-delà
+        private int victime(int ensemble, Eviction eviction) {
+            int debut = ensemble * VOIES;
+            int voie = aiguilles[ensemble];
+            if (eviction == Eviction.CLOCK) {
+                while (references[debut + voie]) {
+                    references[debut + voie] = false;
+                    voie = (voie + 1) % VOIES;
+                }
+            }
+            aiguilles[ensemble] = (byte) ((voie + 1) % VOIES);
+            return voie;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.kerware.simulateur;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Réévaluation d'un foyer après une modification (revenu, enfants, situation, parent isolé),
+ * à partir du résultat précédent.
+ *
+ * <p>Chaque étape n'est recalculée que si l'une de ses entrées a changé : l'abattement et le
+ * revenu fiscal de référence quand les revenus changent, les parts quand la famille change,
+ * la contribution exceptionnelle quand le revenu fiscal de référence dépasse son premier seuil,
+ * le barème, le plafonnement et la décote quand le revenu ou les parts changent. Les valeurs
+ * reprises sont celles que le calcul complet aurait produites avec les mêmes entrées : le
+ * résultat est identique à {@link CalculateurImpot#calculer(FoyerFiscal)}, à condition que le
+ * résultat précédent ait été calculé avec le même barème.</p>
+ */
+public final class CalculIncremental {
+
+    /**
+     * Étapes du calcul susceptibles d'être recalculées.
+     */
+    public enum Etape { ABATTEMENT, PARTS, CEHR, IMPOT }
+
+    /**
+     * Champs numériques d'un {@link ResultatImpot}.
+     */
+    public enum Champ {
+        ABATTEMENT(ResultatImpot::abattement),
+        REVENU_REFERENCE(ResultatImpot::revenuReference),
+        NB_PARTS_DECLARANTS(ResultatImpot::nbPartsDeclarants),
+        NB_PARTS(ResultatImpot::nbParts),
+        IMPOT_DECLARANTS(ResultatImpot::impotDeclarants),
+        IMPOT_AVANT_DECOTE(ResultatImpot::impotAvantDecote),
+        DECOTE(ResultatImpot::decote),
+        CONTRIB_EXCEPTIONNELLE(ResultatImpot::contribExceptionnelle),
+        IMPOT_NET(ResultatImpot::impotNet),
+        TAUX_MARGINAL(ResultatImpot::tauxMarginal);
+
+        private final ToDoubleFunction<ResultatImpot> lecture;
+
+        Champ(ToDoubleFunction<ResultatImpot> lect) {
+            this.lecture = lect;
+        }
+
+        public double valeur(ResultatImpot resultat) {
+            return lecture.applyAsDouble(resultat);
+        }
+    }
+
+    /**
+     * Valeurs d'un champ avant et après la modification.
+     */
+    public record Ecart(double avant, double apres) {
+        public double difference() { return apres - avant; }
+    }
+
+    /**
+     * Nouveau résultat, écarts des seuls champs modifiés et étapes effectivement recalculées.
+     */
+    public record Reevaluation(ResultatImpot resultat, Map<Champ, Ecart> ecarts, Set<Etape> etapesRecalculees) { }
+
+    /**
+     * Modification d'un foyer : écarts de revenus et d'enfants, nouvelle situation ou nouveau
+     * statut de parent isolé. Les modifications se combinent avec {@link #et(Variation)}.
+     */
+    public static final class Variation {
+
+        public static final Variation AUCUNE = new Variation(0, 0, null, 0, 0, null);
+
+        private final int deltaRevenu1;
+        private final int deltaRevenu2;
+        private final SituationFamiliale situation;
+        private final int deltaEnfants;
+        private final int deltaEnfantsHandicap;
+        private final Boolean parentIsole;
+
+        private Variation(int d1, int d2, SituationFamiliale sf, int dEnf, int dEnfH, Boolean iso) {
+            this.deltaRevenu1 = d1;
+            this.deltaRevenu2 = d2;
+            this.situation = sf;
+            this.deltaEnfants = dEnf;
+            this.deltaEnfantsHandicap = dEnfH;
+            this.parentIsole = iso;
+        }
+
+        public static Variation revenus(int delta1, int delta2) {
+            return new Variation(delta1, delta2, null, 0, 0, null);
+        }
+
+        public static Variation enfants(int delta, int deltaHandicap) {
+            return new Variation(0, 0, null, delta, deltaHandicap, null);
+        }
+
+        public static Variation situation(SituationFamiliale sf) {
+            return new Variation(0, 0, sf, 0, 0, null);
+        }
+
+        public static Variation parentIsole(boolean iso) {
+            return new Variation(0, 0, null, 0, 0, iso);
+        }
+
+        /**
+         * Cette modification suivie de {@code suivante} ; les nouvelles valeurs de {@code suivante} l'emportent.
+         */
+        public Variation et(Variation suivante) {
+            return new Variation(deltaRevenu1 + suivante.deltaRevenu1, deltaRevenu2 + suivante.deltaRevenu2,
+                    suivante.situation != null ? suivante.situation : situation,
+                    deltaEnfants + suivante.deltaEnfants, deltaEnfantsHandicap + suivante.deltaEnfantsHandicap,
+                    suivante.parentIsole != null ? suivante.parentIsole : parentIsole);
+        }
+
+        public FoyerFiscal appliquer(FoyerFiscal foyer) {
+            return new FoyerFiscal(foyer.revenuNetDeclarant1() + deltaRevenu1,
+                    foyer.revenuNetDeclarant2() + deltaRevenu2,
+                    situation != null ? situation : foyer.situationFamiliale(),
+                    foyer.nbEnfantsACharge() + deltaEnfants,
+                    foyer.nbEnfantsSituationHandicap() + deltaEnfantsHandicap,
+                    parentIsole != null ? parentIsole : foyer.parentIsole());
+        }
+    }
+
+    private CalculIncremental() {
+    }
+
+    public static Reevaluation reevaluer(ResultatImpot precedent, Variation variation) {
+        return reevaluer(RegistreBaremes.global().calculateur(), precedent, variation.appliquer(precedent.foyer()));
+    }
+
+    public static Reevaluation reevaluer(CalculateurImpot calculateur, ResultatImpot precedent, Variation variation) {
+        return reevaluer(calculateur, precedent, variation.appliquer(precedent.foyer()));
+    }
+
+    /**
+     * Résultat du foyer {@code nouveau}, en reprenant du résultat {@code precedent} les étapes
+     * dont les entrées sont inchangées.
+     *
+     * @throws IllegalArgumentException si le nouveau foyer est invalide ou si le résultat précédent
+     *                                  ne provient d'aucun calcul
+     */
+    public static Reevaluation reevaluer(CalculateurImpot calculateur, ResultatImpot precedent, FoyerFiscal nouveau) {
+        FoyerFiscal avant = precedent.foyer();
+        if (avant.situationFamiliale() == null) {
+            throw new IllegalArgumentException("Résultat précédent sans foyer calculé");
+        }
+        int r1 = nouveau.revenuNetDeclarant1();
+        int r2 = nouveau.revenuNetDeclarant2();
+        SituationFamiliale sf = nouveau.situationFamiliale();
+        CalculateurImpot.verifierParametres(r1, r2, sf, nouveau.nbEnfantsACharge(),
+                nouveau.nbEnfantsSituationHandicap(), nouveau.parentIsole());
+        Set<Etape> etapes = EnumSet.noneOf(Etape.class);
+
+        // Abattement et revenu fiscal de référence
+        double abt = precedent.abattement();
+        double rFRef = precedent.revenuReference();
+        if (r1 != avant.revenuNetDeclarant1() || r2 != avant.revenuNetDeclarant2()
+                || sf.isMarried() != avant.situationFamiliale().isMarried()) {
+            abt = calculateur.calculAbattement(r1, r2, sf);
+            rFRef = calculateur.calculRevenuFiscal(r1, r2, abt);
+            etapes.add(Etape.ABATTEMENT);
+        }
+
+        // Parts
+        double nbPtsDecl = precedent.nbPartsDeclarants();
+        double nbPts = precedent.nbParts();
+        if (sf != avant.situationFamiliale() || nouveau.nbEnfantsACharge() != avant.nbEnfantsACharge()
+                || nouveau.nbEnfantsSituationHandicap() != avant.nbEnfantsSituationHandicap()
+                || nouveau.parentIsole() != avant.parentIsole()) {
+            nbPtsDecl = calculateur.calculPartsDeclarants(sf);
+            nbPts = calculateur.calculPartsFiscales(sf, nouveau.nbEnfantsACharge(),
+                    nouveau.nbEnfantsSituationHandicap(), nouveau.parentIsole());
+            etapes.add(Etape.PARTS);
+        }
+
+        double contribExceptionnelle = contribution(calculateur, precedent, rFRef, sf, etapes);
+
+        // Barème, plafonnement du quotient familial et décote
+        double mImpDecl = precedent.impotDeclarants();
+        double mImpAvantDecote = precedent.impotAvantDecote();
+        double decote = precedent.decote();
+        double tauxMarginal = precedent.tauxMarginal();
+        boolean memeRevenu = rFRef == precedent.revenuReference();
+        if (!memeRevenu || nbPtsDecl != precedent.nbPartsDeclarants() || nbPts != precedent.nbParts()) {
+            if (!memeRevenu || nbPtsDecl != precedent.nbPartsDeclarants()) {
+                mImpDecl = calculateur.calculImpotDeclarants(rFRef, nbPtsDecl);
+            }
+            double mImp = calculateur.calculImpotFoyer(rFRef, nbPtsDecl, nbPts, mImpDecl);
+            mImpAvantDecote = calculateur.appliquerPlafondQF(mImpDecl, mImp, nbPtsDecl, nbPts);
+            decote = calculateur.calculDecote(mImpAvantDecote, nbPtsDecl);
+            tauxMarginal = calculateur.tauxMarginal(rFRef / nbPts);
+            etapes.add(Etape.IMPOT);
+        }
+        double impotNet = calculateur.calculImpotNet(mImpAvantDecote, decote, contribExceptionnelle);
+
+        ResultatImpot resultat = new ResultatImpot(nouveau, abt, rFRef, nbPtsDecl, nbPts, mImpDecl,
+                mImpAvantDecote, decote, contribExceptionnelle, impotNet, tauxMarginal);
+        return new Reevaluation(resultat, ecarts(precedent, resultat), Collections.unmodifiableSet(etapes));
+    }
+
+    // Nulle sous le premier seuil taxé, reprise si le revenu et les tranches sont inchangés
+    private static double contribution(CalculateurImpot calculateur, ResultatImpot precedent, double rFRef,
+                                       SituationFamiliale sf, Set<Etape> etapes) {
+        TranchesCompilees tranches = calculateur.baremeCEHR(sf);
+        if (rFRef <= tranches.seuilImposition()) {
+            return 0;
+        }
+        if (rFRef == precedent.revenuReference()
+                && tranches == calculateur.baremeCEHR(precedent.foyer().situationFamiliale())) {
+            return precedent.contribExceptionnelle();
+        }
+        etapes.add(Etape.CEHR);
+        return calculateur.calculContributionExceptionnelle(rFRef, sf);
+    }
+
+    /**
+     * Écarts des champs qui diffèrent entre deux résultats.
+     */
+    public static Map<Champ, Ecart> ecarts(ResultatImpot avant, ResultatImpot apres) {
+        Map<Champ, Ecart> ecarts = new EnumMap<>(Champ.class);
+        for (Champ champ : Champ.values()) {
+            double a = champ.valeur(avant);
+            double b = champ.valeur(apres);
+            if (Double.compare(a, b) != 0) {
+                ecarts.put(champ, new Ecart(a, b));
+            }
+        }
+        return Collections.unmodifiableMap(ecarts);
+    }
+}
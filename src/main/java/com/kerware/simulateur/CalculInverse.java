@@ -0,0 +1,135 @@
+package com.kerware.simulateur;
+
+/**
+ * Calcul inverse : revenu net du premier déclarant donnant un impôt ou un revenu disponible voulu,
+ * les autres caractéristiques du foyer restant fixes.
+ *
+ * <p>Tous les arrondis du calcul sont croissants : l'impôt net est une fonction croissante
+ * (au sens large) du revenu net. La recherche est donc une dichotomie sur le revenu : une
+ * soixantaine d'évaluations exactes de l'impôt au plus, sans aucune allocation.</p>
+ */
+public final class CalculInverse {
+
+    /**
+     * Plus petit revenu net atteignant la cible, impôt correspondant, et dernier revenu net
+     * donnant ce même impôt.
+     */
+    public record Solution(int revenuNet, int impot, int revenuNetMax) { }
+
+    // Le revenu disponible peut baisser d'un euro quand l'impôt saute de deux (décote, arrondis) :
+    // l'écart constaté avec le premier revenu atteignant la cible ne dépasse pas 5 euros
+    private static final int RECUL_MAX = 16;
+
+    private CalculInverse() {
+    }
+
+    public static Solution revenuPourImpot(FoyerFiscal modele, int impotCible) {
+        return revenuPourImpot(RegistreBaremes.global().calculateur(), modele, impotCible);
+    }
+
+    /**
+     * Plus petit revenu net dont l'impôt atteint au moins {@code impotCible}. L'impôt de la solution
+     * est exactement la cible si elle est atteignable, sinon l'impôt immédiatement supérieur.
+     *
+     * @throws IllegalArgumentException si la cible est négative ou inatteignable, ou si le foyer est invalide
+     */
+    public static Solution revenuPourImpot(CalculateurImpot calculateur, FoyerFiscal modele, int impotCible) {
+        Fonction f = new Fonction(calculateur, modele);
+        if (impotCible < 0 || f.impot(f.revenuMax) < impotCible) {
+            throw new IllegalArgumentException("Impôt cible inatteignable : " + impotCible);
+        }
+        int revenu = premierRevenuImpotAuMoins(f, impotCible);
+        return solution(f, revenu);
+    }
+
+    public static Solution revenuPourRevenuDisponible(FoyerFiscal modele, long disponibleCible) {
+        return revenuPourRevenuDisponible(RegistreBaremes.global().calculateur(), modele, disponibleCible);
+    }
+
+    /**
+     * Plus petit revenu net dont le revenu disponible du foyer (revenus nets moins impôt net)
+     * atteint au moins {@code disponibleCible}.
+     *
+     * @throws IllegalArgumentException si la cible est inatteignable ou si le foyer est invalide
+     */
+    public static Solution revenuPourRevenuDisponible(CalculateurImpot calculateur, FoyerFiscal modele,
+                                                      long disponibleCible) {
+        Fonction f = new Fonction(calculateur, modele);
+        if (f.disponible(f.revenuMax) < disponibleCible) {
+            throw new IllegalArgumentException("Revenu disponible cible inatteignable : " + disponibleCible);
+        }
+        int bas = -1;
+        int haut = f.revenuMax;
+        while ((long) haut - bas > 1) {
+            int milieu = (int) (((long) bas + haut) / 2);
+            if (f.disponible(milieu) >= disponibleCible) {
+                haut = milieu;
+            } else {
+                bas = milieu;
+            }
+        }
+        // Le revenu disponible n'est croissant qu'à un euro près : vérification des revenus précédents
+        int revenu = haut;
+        for (int r = haut - 1; r >= 0 && r >= haut - RECUL_MAX; r--) {
+            if (f.disponible(r) >= disponibleCible) {
+                revenu = r;
+            }
+        }
+        return solution(f, revenu);
+    }
+
+    private static int premierRevenuImpotAuMoins(Fonction f, long impotCible) {
+        int bas = -1;
+        int haut = f.revenuMax;
+        while ((long) haut - bas > 1) {
+            int milieu = (int) (((long) bas + haut) / 2);
+            if (f.impot(milieu) >= impotCible) {
+                haut = milieu;
+            } else {
+                bas = milieu;
+            }
+        }
+        return haut;
+    }
+
+    private static Solution solution(Fonction f, int revenu) {
+        int impot = f.impot(revenu);
+        int suivant = impot == f.impot(f.revenuMax) ? f.revenuMax : premierRevenuImpotAuMoins(f, impot + 1L) - 1;
+        return new Solution(revenu, impot, suivant);
+    }
+
+    /**
+     * Impôt net en fonction du seul revenu du premier déclarant.
+     */
+    private static final class Fonction {
+
+        private final CalculateurImpot calculateur;
+        private final int r2;
+        private final SituationFamiliale sf;
+        private final double nbPtsDecl;
+        private final double nbPts;
+        // Plus grand revenu sans dépassement de capacité de la somme des revenus
+        private final int revenuMax;
+
+        Fonction(CalculateurImpot calc, FoyerFiscal modele) {
+            CalculateurImpot.verifierParametres(0, modele.revenuNetDeclarant2(), modele.situationFamiliale(),
+                    modele.nbEnfantsACharge(), modele.nbEnfantsSituationHandicap(), modele.parentIsole());
+            this.calculateur = calc;
+            this.r2 = modele.revenuNetDeclarant2();
+            this.sf = modele.situationFamiliale();
+            this.nbPtsDecl = calc.calculPartsDeclarants(sf);
+            this.nbPts = calc.calculPartsFiscales(sf, modele.nbEnfantsACharge(),
+                    modele.nbEnfantsSituationHandicap(), modele.parentIsole());
+            this.revenuMax = Integer.MAX_VALUE - r2;
+        }
+
+        int impot(int r1) {
+            double rFRef = calculateur.calculRevenuFiscal(r1, r2, calculateur.calculAbattement(r1, r2, sf));
+            return (int) calculateur.calculImpotNet(rFRef, sf, nbPtsDecl, nbPts);
+        }
+
+        long disponible(int r1) {
+            return (long) r1 + r2 - impot(r1);
+        }
+    }
+}
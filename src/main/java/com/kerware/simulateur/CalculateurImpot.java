@@ -0,0 +1,299 @@
+package com.kerware.simulateur;
+
+
+/**
+ * Calcul de l'impôt sur le revenu sans état, pour le {@link Bareme} d'une année.
+ * Le barème est compilé une fois à la construction ; chaque calcul ne dépend ensuite que du
+ * foyer fourni : une seule instance peut être partagée entre tous les threads, sans verrou.
+ */
+public final class CalculateurImpot {
+
+    // Barème par défaut, livré avec le simulateur
+    public static final int ANNEE_PAR_DEFAUT = 2024;
+
+    // --- Constantes indépendantes du barème ---
+    private static final double VALEUR_DEMI_PART = 0.5;
+    private static final double MAX_ENFANT = 7;
+
+    // --- Barème compilé ---
+
+    private final Bareme bareme;
+
+    // Tranches compilées, avec l'impôt cumulé à chaque borne
+    private final TranchesCompilees tranchesImpot;
+    private final TranchesCompilees cehrCelibataire;
+    private final TranchesCompilees cehrCouple;
+
+    // Abattement
+    private final int abattementMin;
+    private final int abattementMax;
+    private final double tauxAbattement;
+
+    // Plafonnement des effets du quotient familial
+    private final double plafDemiPart;
+
+    // Décote
+    private final double seuilDecoteSeul;
+    private final double seuilDecoteCouple;
+    private final double decoteMaxSeul;
+    private final double decoteMaxCouple;
+    private final double tauxDecote;
+
+    /**
+     * Calculateur du barème livré pour {@link #ANNEE_PAR_DEFAUT}.
+     */
+    public CalculateurImpot() {
+        this(Bareme.charger(ANNEE_PAR_DEFAUT));
+    }
+
+    /**
+     * @throws IllegalArgumentException si les tranches du barème ne sont pas contiguës
+     */
+    public CalculateurImpot(Bareme bar) {
+        this.bareme = bar;
+        this.tranchesImpot = TranchesCompilees.compiler(bar.tranchesImpot());
+        this.cehrCelibataire = TranchesCompilees.compiler(bar.tranchesCEHRCelibataire());
+        this.cehrCouple = TranchesCompilees.compiler(bar.tranchesCEHRCouple());
+        this.abattementMin = bar.abattement().minimum();
+        this.abattementMax = bar.abattement().maximum();
+        this.tauxAbattement = bar.abattement().taux();
+        this.plafDemiPart = bar.plafondDemiPart();
+        this.seuilDecoteSeul = bar.decote().seuilSeul();
+        this.seuilDecoteCouple = bar.decote().seuilCouple();
+        this.decoteMaxSeul = bar.decote().maxSeul();
+        this.decoteMaxCouple = bar.decote().maxCouple();
+        this.tauxDecote = bar.decote().taux();
+    }
+
+    public Bareme getBareme() { return bareme; }
+    public int getAnnee() { return bareme.annee(); }
+
+    // --- Méthode principale ---
+    public ResultatImpot calculer(FoyerFiscal foyer) {
+        int r1 = foyer.revenuNetDeclarant1();
+        int r2 = foyer.revenuNetDeclarant2();
+        SituationFamiliale sf = foyer.situationFamiliale();
+        int enf = foyer.nbEnfantsACharge();
+        int enfH = foyer.nbEnfantsSituationHandicap();
+        boolean iso = foyer.parentIsole();
+
+        verifierParametres(r1, r2, sf, enf, enfH, iso);
+
+        double abt = calculAbattement(r1, r2, sf);
+        double nbPtsDecl = calculPartsDeclarants(sf);
+        double nbPts = calculPartsFiscales(sf, enf, enfH, iso);
+        double rFRef = calculRevenuFiscal(r1, r2, abt);
+        double contribExceptionnelle = calculContributionExceptionnelle(rFRef, sf);
+
+        double mImpDecl = calculImpotDeclarants(rFRef, nbPtsDecl);
+        double mImp = calculImpotFoyer(rFRef, nbPtsDecl, nbPts, mImpDecl);
+
+        double mImpAvantDecote = appliquerPlafondQF(mImpDecl, mImp, nbPtsDecl, nbPts);
+        double decote = calculDecote(mImpAvantDecote, nbPtsDecl);
+        double impotNet = calculImpotNet(mImpAvantDecote, decote, contribExceptionnelle);
+
+        return new ResultatImpot(foyer, abt, rFRef, nbPtsDecl, nbPts, mImpDecl,
+                mImpAvantDecote, decote, contribExceptionnelle, impotNet, tauxMarginal(rFRef / nbPts));
+    }
+
+    /**
+     * Impôt net seul, identique à celui de {@link #calculer(FoyerFiscal)} : ni taux marginal ni
+     * résultat détaillé ne sont construits.
+     *
+     * @throws IllegalArgumentException si le foyer est invalide
+     */
+    public double calculerImpotNet(FoyerFiscal foyer) {
+        int r1 = foyer.revenuNetDeclarant1();
+        int r2 = foyer.revenuNetDeclarant2();
+        SituationFamiliale sf = foyer.situationFamiliale();
+        int enf = foyer.nbEnfantsACharge();
+        int enfH = foyer.nbEnfantsSituationHandicap();
+        boolean iso = foyer.parentIsole();
+
+        verifierParametres(r1, r2, sf, enf, enfH, iso);
+
+        double abt = calculAbattement(r1, r2, sf);
+        double rFRef = calculRevenuFiscal(r1, r2, abt);
+        return calculImpotNet(rFRef, sf, calculPartsDeclarants(sf), calculPartsFiscales(sf, enf, enfH, iso));
+    }
+
+    /**
+     * Impôt net calculé tout de suite avec chaque étape conservée ; taux marginal, résultat complet
+     * et montants par tranche calculés à la première consultation.
+     *
+     * @throws IllegalArgumentException si le foyer est invalide
+     */
+    public DetailImpot detailler(FoyerFiscal foyer) {
+        return new DetailImpot(this, foyer);
+    }
+
+    /**
+     * Impôt net d'un foyer déjà réduit à son revenu fiscal de référence et à ses parts :
+     * mêmes étapes que {@link #calculer(FoyerFiscal)}, sans résultat détaillé.
+     */
+    double calculImpotNet(double rFRef, SituationFamiliale sf, double nbPtsDecl, double nbPts) {
+        double contribExceptionnelle = calculContributionExceptionnelle(rFRef, sf);
+        double mImpDecl = calculImpotDeclarants(rFRef, nbPtsDecl);
+        double mImp = calculImpotFoyer(rFRef, nbPtsDecl, nbPts, mImpDecl);
+        double mImpAvantDecote = appliquerPlafondQF(mImpDecl, mImp, nbPtsDecl, nbPts);
+        double decote = calculDecote(mImpAvantDecote, nbPtsDecl);
+        return calculImpotNet(mImpAvantDecote, decote, contribExceptionnelle);
+    }
+
+    // --- Étapes du calcul ---
+    // Seules implémentations des règles : le calcul par lot, le détail, la courbe et le calcul
+    // incrémental les appellent plutôt que de les recopier.
+
+    static void verifierParametres(int r1, int r2, SituationFamiliale sf, int enf, int enfH, boolean iso) {
+        if (r1 < 0 || r2 < 0) throw new IllegalArgumentException("Revenu net négatif");
+        if (sf == null) throw new IllegalArgumentException("Situation familiale absente");
+        if (enf < 0 || enfH < 0) throw new IllegalArgumentException("Nombre d'enfants invalide");
+        if (enfH > enf) throw new IllegalArgumentException("Plus d'enfants handicapés que d'enfants");
+        if (enf > MAX_ENFANT) throw new IllegalArgumentException("Nombre d'enfants > 7 non supporté");
+        if (iso && sf.isMarried())
+            throw new IllegalArgumentException("Parent isolé ne peut être marié/pacsé");
+        if (sf.isSingle() && r2 > 0) throw new IllegalArgumentException("Déclarant seul avec 2e revenu");
+    }
+
+    // EXG_IMPOT_02 : abattement de 10 % borné, par déclarant
+    double calculAbattement(int r1, int r2, SituationFamiliale sf) {
+        long abt1 = Math.max(abattementMin, Math.min(abattementMax, Math.round(r1 * tauxAbattement)));
+        long abt2 = sf.isMarried()
+                ? Math.max(abattementMin, Math.min(abattementMax, Math.round(r2 * tauxAbattement))) : 0;
+        return abt1 + abt2;
+    }
+
+    double calculRevenuFiscal(int r1, int r2, double abt) {
+        double rFRef = r1 + r2 - abt;
+        return rFRef < 0 ? 0 : rFRef;
+    }
+
+    // EXG_IMPOT_03 : parts des déclarants puis du foyer
+    double calculPartsDeclarants(SituationFamiliale sf) {
+        return sf.isMarried() ? 2 : 1;
+    }
+
+    double calculPartsFiscales(SituationFamiliale sf, int enf, int enfH, boolean iso) {
+        return calculPartsDeclarants(sf)
+                + ( enf <= 2 ? enf * VALEUR_DEMI_PART : 1 + (enf - 2) )
+                + ( iso && enf > 0 ? VALEUR_DEMI_PART : 0 )
+                + ( sf.isVeuf() && enf > 0 ? 1 : 0 )
+                + enfH * VALEUR_DEMI_PART;
+    }
+
+    double calculContributionExceptionnelle(double rFRef, SituationFamiliale sf) {
+        // EXG_IMPOT_07 : sélection des tranches selon statut
+        return calculContributionExceptionnelle(rFRef, sf, baremeCEHR(sf).indiceTranche(rFRef));
+    }
+
+    // Même contribution, la tranche k du revenu fiscal étant déjà connue. La somme compilée est
+    // identique au bit près à la somme compensée (DoubleStream.sum) du simulateur d'origine pour
+    // tout revenu fiscal entier : les cumuls CEHR sont des entiers exacts et seule la part de la
+    // tranche k est inexacte, or la compensation d'une seule addition inexacte redonne la même
+    // valeur arrondie. Vérifié pour chaque revenu entier de 0 à Integer.MAX_VALUE.
+    double calculContributionExceptionnelle(double rFRef, SituationFamiliale sf, int k) {
+        return Math.round(baremeCEHR(sf).somme(rFRef, k));
+    }
+
+    // EXG_IMPOT_04 : barème progressif, pour un revenu d'une part dans la tranche k
+    double calculImpotParTranche(double revenu, int k) {
+        return tranchesImpot.somme(revenu, k);
+    }
+
+    // Impôt des déclarants seuls, sans les parts des enfants
+    double calculImpotDeclarants(double rFRef, double nbPtsDecl) {
+        return calculImpotDeclarants(rFRef, nbPtsDecl, tranchesImpot.indiceTranche(rFRef / nbPtsDecl));
+    }
+
+    double calculImpotDeclarants(double rFRef, double nbPtsDecl, int k) {
+        return Math.round(calculImpotParTranche(rFRef / nbPtsDecl, k) * nbPtsDecl);
+    }
+
+    // Impôt avec toutes les parts du foyer ; sans part au-delà de celles des déclarants, c'est le leur
+    double calculImpotFoyer(double rFRef, double nbPtsDecl, double nbPts, double mImpDecl) {
+        return nbPts == nbPtsDecl ? mImpDecl
+                : calculImpotFoyer(rFRef, nbPtsDecl, nbPts, mImpDecl, tranchesImpot.indiceTranche(rFRef / nbPts));
+    }
+
+    // Même impôt, la tranche k du revenu d'une part étant déjà connue
+    double calculImpotFoyer(double rFRef, double nbPtsDecl, double nbPts, double mImpDecl, int k) {
+        return nbPts == nbPtsDecl ? mImpDecl : Math.round(calculImpotParTranche(rFRef / nbPts, k) * nbPts);
+    }
+
+    /**
+     * Taux marginal d'imposition : taux de la tranche du barème progressif
+     * dans laquelle tombe le revenu d'une part.
+     */
+    public double tauxMarginal(double revenuParPart) {
+        return tranchesImpot.tauxMarginal(revenuParPart);
+    }
+
+    // --- Barème compilé, pour les parcours par tranche ---
+
+    public TranchesCompilees baremeProgressif() {
+        return tranchesImpot;
+    }
+
+    // Tranches de contribution exceptionnelle des déclarants seuls ou des couples
+    public TranchesCompilees baremeCEHR(SituationFamiliale sf) {
+        return sf.isSingle() ? cehrCelibataire : cehrCouple;
+    }
+
+    double tauxAbattement() {
+        return tauxAbattement;
+    }
+
+    double tauxDecote() {
+        return tauxDecote;
+    }
+
+    // -1 si l'abattement du revenu est le minimum, 1 s'il est plafonné, 0 s'il est proportionnel
+    int regimeAbattement(int revenu) {
+        long abt = Math.round(revenu * tauxAbattement);
+        if (abt <= abattementMin) {
+            return -1;
+        }
+        return abt >= abattementMax ? 1 : 0;
+    }
+
+    // EXG_IMPOT_05 : plafonnement des effets du quotient familial
+    double appliquerPlafondQF(double mImpDecl, double mImp, double nbPtsDecl, double nbPts) {
+        return plafondAtteint(mImpDecl, mImp, nbPtsDecl, nbPts) ? mImpDecl - plafond(nbPtsDecl, nbPts) : mImp;
+    }
+
+    boolean plafondAtteint(double mImpDecl, double mImp, double nbPtsDecl, double nbPts) {
+        double baisse = mImpDecl - mImp;
+        return baisse > plafond(nbPtsDecl, nbPts);
+    }
+
+    // Même critère avant arrondi des deux impôts, tranches k des revenus d'une part connues : la baisse
+    // croît alors avec le revenu, sans les allers-retours que les arrondis provoquent près du plafond
+    boolean plafondAtteintHorsArrondis(double rFRef, double nbPtsDecl, double nbPts, int kDecl, int k) {
+        double baisse = calculImpotParTranche(rFRef / nbPtsDecl, kDecl) * nbPtsDecl
+                - calculImpotParTranche(rFRef / nbPts, k) * nbPts;
+        return baisse > plafond(nbPtsDecl, nbPts);
+    }
+
+    private double plafond(double nbPtsDecl, double nbPts) {
+        double ecartPts = nbPts - nbPtsDecl;
+        return (ecartPts / VALEUR_DEMI_PART) * plafDemiPart;
+    }
+
+    // EXG_IMPOT_06 : décote
+    double calculDecote(double mImp, double nbPtsDecl) {
+        double decote;
+        if (nbPtsDecl == 1 && mImp < seuilDecoteSeul) {
+            decote = decoteMaxSeul - (mImp * tauxDecote);
+        } else if (nbPtsDecl == 2 && mImp < seuilDecoteCouple) {
+            decote = decoteMaxCouple - (mImp * tauxDecote);
+        } else {
+            decote = 0;
+        }
+        return Math.round(Math.min(decote, mImp));
+    }
+
+    // Impôt net : impôt après plafonnement, moins la décote, plus la contribution exceptionnelle
+    double calculImpotNet(double mImpAvantDecote, double decote, double contrib) {
+        return Math.round(mImpAvantDecote - decote + contrib);
+    }
+}
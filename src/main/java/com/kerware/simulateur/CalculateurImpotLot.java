@@ -0,0 +1,214 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Calcul de l'impôt pour des lots de foyers stockés en colonnes.
+ * Applique exactement les étapes de {@link CalculateurImpot}, sans aucune allocation par foyer.
+ * Les foyers sont calculés par blocs de colonnes, par le noyau scalaire ou, avec {@link #parBlocs()},
+ * par le noyau vectoriel s'il est disponible.
+ * Sans état : une instance peut être partagée entre threads travaillant sur des plages disjointes.
+ */
+public final class CalculateurImpotLot {
+
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+
+    // Noyau vectoriel s'il est disponible, chargé une fois
+    static final NoyauLot NOYAU = NoyauLot.charger();
+    private static final NoyauLot NOYAU_SCALAIRE = new NoyauLotScalaire();
+    // Bloc de travail de chaque thread, réutilisé d'un calcul à l'autre
+    private static final ThreadLocal<BlocNoyau> BLOCS = ThreadLocal.withInitial(BlocNoyau::new);
+
+    private final Supplier<CalculateurImpot> source;
+    private final NoyauLot noyau;
+
+    /**
+     * Calcule chaque lot avec le barème en vigueur dans {@link RegistreBaremes#global()}
+     * au début du calcul.
+     */
+    public CalculateurImpotLot() {
+        this(RegistreBaremes.global()::calculateur);
+    }
+
+    public CalculateurImpotLot(CalculateurImpot calc) {
+        this(() -> calc);
+    }
+
+    private CalculateurImpotLot(Supplier<CalculateurImpot> src) {
+        this(src, NOYAU_SCALAIRE);
+    }
+
+    private CalculateurImpotLot(Supplier<CalculateurImpot> src, NoyauLot noy) {
+        this.source = src;
+        this.noyau = noy;
+    }
+
+    /**
+     * Calculateur de lot par blocs, confiés au noyau vectoriel si la JVM le permet (classes compilées
+     * avec le profil Maven {@code vector}, option {@code --add-modules jdk.incubator.vector}),
+     * au noyau scalaire sinon. Résultats identiques à ceux du noyau scalaire.
+     */
+    public static CalculateurImpotLot parBlocs() {
+        return new CalculateurImpotLot(RegistreBaremes.global()::calculateur, NOYAU);
+    }
+
+    public static CalculateurImpotLot parBlocs(CalculateurImpot calc) {
+        return new CalculateurImpotLot(() -> calc, NOYAU);
+    }
+
+    // Vrai si les blocs sont calculés par le noyau vectoriel
+    public boolean isVectoriel() {
+        return noyau.isVectoriel();
+    }
+
+    /**
+     * Calculateur de lot figé sur le barème en vigueur, pour qu'un calcul découpé en plusieurs
+     * plages utilise un seul barème.
+     */
+    CalculateurImpotLot instantane() {
+        CalculateurImpot calc = source.get();
+        return new CalculateurImpotLot(() -> calc, noyau);
+    }
+
+    public void calculer(LotFoyers foyers, LotResultats resultats) {
+        calculer(foyers, resultats, 0, foyers.taille());
+    }
+
+    /**
+     * Calcule les foyers d'indices {@code [debut, fin[} et écrit leurs résultats aux mêmes indices.
+     *
+     * @throws IllegalArgumentException si {@code resultats} ne couvre pas la plage
+     *                                  ou si un foyer de la plage est invalide
+     * @throws IndexOutOfBoundsException si la plage sort du lot de foyers
+     */
+    public void calculer(LotFoyers foyers, LotResultats resultats, int debut, int fin) {
+        if (debut < 0 || fin > foyers.taille() || debut > fin) {
+            throw new IndexOutOfBoundsException("Plage [" + debut + ", " + fin + "[ hors du lot de foyers");
+        }
+        if (resultats.taille() < fin) {
+            throw new IllegalArgumentException("Lot de résultats trop court : " + resultats.taille()
+                    + " pour la plage [" + debut + ", " + fin + "[");
+        }
+        CalculateurImpot calculateur = source.get();
+        BlocNoyau bloc = BLOCS.get();
+        for (int d = debut; d < fin; d += BlocNoyau.TAILLE) {
+            int n = Math.min(BlocNoyau.TAILLE, fin - d);
+            preparerBloc(calculateur, foyers, bloc, d, n);
+            noyau.calculer(calculateur, bloc, n);
+            for (int j = 0; j < n; j++) {
+                int i = d + j;
+                resultats.getImpotsNets()[i] = (int) bloc.impotsNets[j];
+                resultats.getRevenusReference()[i] = (int) bloc.revenusReference[j];
+                resultats.getNbParts()[i] = bloc.parts[j];
+                resultats.getDecotes()[i] = (int) bloc.decotes[j];
+                resultats.getContribExceptionnelles()[i] = (int) bloc.contribExceptionnelles[j];
+                resultats.getAbattements()[i] = (int) bloc.abattements[j];
+                resultats.getImpotsAvantDecote()[i] = (int) bloc.impotsAvantDecote[j];
+                resultats.getPlafonnements()[i] = bloc.plafonnements[j];
+            }
+        }
+    }
+
+    /**
+     * Calcule tous les foyers restants de la source et agrège leurs résultats, lot par lot, avec
+     * un seul barème. {@code foyers} et {@code resultats} sont des tampons réutilisés : aucun
+     * résultat par foyer n'est conservé au-delà d'un lot.
+     *
+     * @throws IllegalArgumentException si {@code resultats} est plus court que {@code foyers}
+     *                                  ou si un foyer est invalide
+     */
+    public StatistiquesLot calculerAvecStatistiques(SourceFoyers entree, LotFoyers foyers, LotResultats resultats)
+            throws IOException {
+        if (resultats.taille() < foyers.taille()) {
+            throw new IllegalArgumentException("Lot de résultats trop court : " + resultats.taille()
+                    + " pour " + foyers.taille() + " foyers");
+        }
+        CalculateurImpotLot calcul = instantane();
+        StatistiquesLot statistiques = new StatistiquesLot();
+        int n;
+        while ((n = entree.lire(foyers)) > 0) {
+            calcul.calculer(foyers, resultats, 0, n);
+            statistiques.ajouter(foyers, resultats, 0, n);
+        }
+        return statistiques;
+    }
+
+    public void calculer(PopulationHorsTas population) {
+        calculer(population, 0, population.taille());
+    }
+
+    /**
+     * Calcule sur place les foyers d'indices {@code [debut, fin[} de la population, par blocs,
+     * avec le noyau de ce calculateur.
+     *
+     * @throws IllegalArgumentException si un foyer de la plage est invalide
+     * @throws IndexOutOfBoundsException si la plage sort de la population
+     */
+    public void calculer(PopulationHorsTas population, long debut, long fin) {
+        if (debut < 0 || fin > population.taille() || debut > fin) {
+            throw new IndexOutOfBoundsException("Plage [" + debut + ", " + fin + "[ hors de la population");
+        }
+        CalculateurImpot calculateur = source.get();
+        BlocNoyau bloc = BLOCS.get();
+        for (long d = debut; d < fin; d += BlocNoyau.TAILLE) {
+            int n = (int) Math.min(BlocNoyau.TAILLE, fin - d);
+            preparerBloc(calculateur, population, bloc, d, n);
+            noyau.calculer(calculateur, bloc, n);
+            population.ecrireResultats(d, bloc, n);
+        }
+    }
+
+    // Vérifie les foyers [debut, debut + n[ et les réduit à leurs revenus, situation et parts
+    static void preparerBloc(CalculateurImpot calculateur, LotFoyers foyers, BlocNoyau bloc, int debut, int n) {
+        for (int j = 0; j < n; j++) {
+            int i = debut + j;
+            int r1 = foyers.getRevenusNetDeclarant1()[i];
+            int r2 = foyers.getRevenusNetDeclarant2()[i];
+            SituationFamiliale sf = situation(foyers.getSituationsFamiliales()[i], i);
+            int enf = foyers.getNbEnfantsACharge()[i];
+            int enfH = foyers.getNbEnfantsSituationHandicap()[i];
+            boolean iso = foyers.getParentsIsoles()[i];
+            verifierFoyer(r1, r2, sf, enf, enfH, iso, i);
+
+            bloc.revenus1[j] = r1;
+            bloc.revenus2[j] = r2;
+            bloc.situations[j] = sf;
+            bloc.partsDeclarants[j] = calculateur.calculPartsDeclarants(sf);
+            bloc.parts[j] = calculateur.calculPartsFiscales(sf, enf, enfH, iso);
+        }
+    }
+
+    static void preparerBloc(CalculateurImpot calculateur, PopulationHorsTas population, BlocNoyau bloc,
+                             long debut, int n) {
+        for (int j = 0; j < n; j++) {
+            long i = debut + j;
+            SituationFamiliale sf = situation((byte) population.ordinalSituation(i), i);
+            int enf = population.nbEnfantsACharge(i);
+            int enfH = population.nbEnfantsSituationHandicap(i);
+            boolean iso = population.parentIsole(i);
+            bloc.revenus1[j] = population.revenuNetDeclarant1(i);
+            bloc.revenus2[j] = population.revenuNetDeclarant2(i);
+            verifierFoyer(bloc.revenus1[j], bloc.revenus2[j], sf, enf, enfH, iso, i);
+            bloc.situations[j] = sf;
+            bloc.partsDeclarants[j] = calculateur.calculPartsDeclarants(sf);
+            bloc.parts[j] = calculateur.calculPartsFiscales(sf, enf, enfH, iso);
+        }
+    }
+
+    private static SituationFamiliale situation(byte ordinal, long indice) {
+        if (ordinal < 0 || ordinal >= SITUATIONS.length) {
+            throw new IllegalArgumentException("Foyer " + indice + " : situation familiale inconnue " + ordinal);
+        }
+        return SITUATIONS[ordinal];
+    }
+
+    private static void verifierFoyer(int r1, int r2, SituationFamiliale sf, int enf, int enfH, boolean iso,
+                                      long indice) {
+        try {
+            CalculateurImpot.verifierParametres(r1, r2, sf, enf, enfH, iso);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Foyer " + indice + " : " + e.getMessage(), e);
+        }
+    }
+}
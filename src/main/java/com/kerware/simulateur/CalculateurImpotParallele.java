@@ -0,0 +1,132 @@
+package com.kerware.simulateur;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calcul parallèle d'un lot de foyers : le lot est découpé en blocs traités par un {@link ForkJoinPool}.
+ * Chaque foyer est calculé par {@link CalculateurImpotLot}, le résultat ne dépend donc pas
+ * du nombre de threads ni de la taille des blocs.
+ */
+public final class CalculateurImpotParallele implements AutoCloseable {
+
+    public static final int TAILLE_BLOC_DEFAUT = 4096;
+
+    private final CalculateurImpotLot calculateurLot;
+    private final ForkJoinPool pool;
+    private final int tailleBloc;
+    private final boolean poolPropre;
+
+    /**
+     * Utilise le pool commun et la taille de bloc par défaut.
+     */
+    public CalculateurImpotParallele() {
+        this(ForkJoinPool.commonPool(), TAILLE_BLOC_DEFAUT);
+    }
+
+    /**
+     * Crée un pool dédié de {@code parallelisme} threads, arrêté par {@link #close()}.
+     */
+    public CalculateurImpotParallele(int parallelisme, int taille) {
+        this(new CalculateurImpotLot(), new ForkJoinPool(parallelisme), taille, true);
+    }
+
+    /**
+     * Utilise un pool fourni par l'appelant, qui en garde la responsabilité.
+     */
+    public CalculateurImpotParallele(ForkJoinPool fjp, int taille) {
+        this(new CalculateurImpotLot(), fjp, taille, false);
+    }
+
+    CalculateurImpotParallele(CalculateurImpotLot calc, ForkJoinPool fjp, int taille, boolean proprietaire) {
+        if (taille <= 0) {
+            throw new IllegalArgumentException("La taille de bloc doit être positive");
+        }
+        this.calculateurLot = calc;
+        this.pool = fjp;
+        this.tailleBloc = taille;
+        this.poolPropre = proprietaire;
+    }
+
+    public int getTailleBloc() { return tailleBloc; }
+    public int getParallelisme() { return pool.getParallelism(); }
+
+    public void calculer(LotFoyers foyers, LotResultats resultats) {
+        calculer(foyers, resultats, 0, foyers.taille());
+    }
+
+    /**
+     * Calcule les foyers d'indices {@code [debut, fin[} en parallèle et attend la fin du calcul.
+     *
+     * @throws IllegalArgumentException si un foyer de la plage est invalide
+     */
+    public void calculer(LotFoyers foyers, LotResultats resultats, int debut, int fin) {
+        // Tous les blocs utilisent le barème en vigueur au début du calcul
+        pool.invoke(new CalculBloc(calculateurLot.instantane(), foyers, resultats, debut, fin, null));
+    }
+
+    public StatistiquesLot calculerAvecStatistiques(LotFoyers foyers, LotResultats resultats) {
+        return calculerAvecStatistiques(foyers, resultats, 0, foyers.taille());
+    }
+
+    /**
+     * Calcule les foyers d'indices {@code [debut, fin[} en parallèle et agrège leurs résultats au fil
+     * du calcul : chaque thread alimente ses propres statistiques, fusionnées à la fin.
+     *
+     * @throws IllegalArgumentException si un foyer de la plage est invalide
+     */
+    public StatistiquesLot calculerAvecStatistiques(LotFoyers foyers, LotResultats resultats, int debut, int fin) {
+        Map<Thread, StatistiquesLot> parThread = new ConcurrentHashMap<>();
+        pool.invoke(new CalculBloc(calculateurLot.instantane(), foyers, resultats, debut, fin, parThread));
+        StatistiquesLot statistiques = new StatistiquesLot();
+        parThread.values().forEach(statistiques::fusionner);
+        return statistiques;
+    }
+
+    @Override
+    public void close() {
+        if (poolPropre) {
+            pool.shutdown();
+        }
+    }
+
+    private final class CalculBloc extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CalculateurImpotLot calcul;
+        private final LotFoyers foyers;
+        private final LotResultats resultats;
+        private final int debut;
+        private final int fin;
+        // Statistiques de chaque thread, null si le calcul n'est pas agrégé
+        private final Map<Thread, StatistiquesLot> statistiques;
+
+        CalculBloc(CalculateurImpotLot calc, LotFoyers lot, LotResultats sortie, int de, int a,
+                   Map<Thread, StatistiquesLot> stats) {
+            this.calcul = calc;
+            this.foyers = lot;
+            this.resultats = sortie;
+            this.debut = de;
+            this.fin = a;
+            this.statistiques = stats;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - debut <= tailleBloc) {
+                calcul.calculer(foyers, resultats, debut, fin);
+                if (statistiques != null) {
+                    statistiques.computeIfAbsent(Thread.currentThread(), t -> new StatistiquesLot())
+                            .ajouter(foyers, resultats, debut, fin);
+                }
+                return;
+            }
+            int milieu = (debut + fin) >>> 1;
+            invokeAll(new CalculBloc(calcul, foyers, resultats, debut, milieu, statistiques),
+                    new CalculBloc(calcul, foyers, resultats, milieu, fin, statistiques));
+        }
+    }
+}
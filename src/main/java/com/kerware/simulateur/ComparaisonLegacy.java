@@ -0,0 +1,137 @@
+package com.kerware.simulateur;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Comparaison en mode {@link ModeExecution#COMPARAISON} : sur une fraction des appels, le simulateur
+ * legacy recalcule le foyer hors du thread appelant et chaque écart (impôt, décote, revenu fiscal
+ * de référence, parts, contribution exceptionnelle) est compté puis signalé à l'observateur.
+ * Une même instance peut être partagée par tous les adaptateurs.
+ *
+ * <p>Le simulateur legacy ne connaît que le barème {@value #ANNEE_LEGACY} : les résultats
+ * calculés avec un autre barème ne sont pas comparés.</p>
+ */
+public final class ComparaisonLegacy {
+
+    // Barème codé en dur dans Simulateur
+    static final int ANNEE_LEGACY = 2024;
+
+    private static final double TAUX_DEFAUT = 0.01;
+    private static final int CAPACITE_FILE_DEFAUT = 10_000;
+
+    private final double tauxEchantillonnage;
+    private final Executor executeur;
+    private final ObservateurDivergence observateur;
+
+    private final LongAdder nbComparaisons = new LongAdder();
+    private final LongAdder nbDivergences = new LongAdder();
+    private final LongAdder nbIgnorees = new LongAdder();
+    private final LongAdder nbHorsBareme = new LongAdder();
+
+    // Créée au premier appel de parDefaut(), avec son unique thread
+    private static final class ParDefaut {
+        private static final ComparaisonLegacy INSTANCE =
+                new ComparaisonLegacy(TAUX_DEFAUT, executeurBorne(), (foyer, champ, legacy, refactorise) -> { });
+    }
+
+    /**
+     * Comparaison partagée par tous les adaptateurs qui n'en reçoivent pas : 1 % des appels sur un
+     * seul thread démon, sans observateur. Au-delà de {@value #CAPACITE_FILE_DEFAUT} comparaisons
+     * en attente, les suivantes sont ignorées.
+     */
+    public static ComparaisonLegacy parDefaut() {
+        return ParDefaut.INSTANCE;
+    }
+
+    /**
+     * @param taux fraction des appels comparés, entre 0 et 1
+     * @param exec exécuteur des calculs legacy
+     * @param obs  observateur des divergences, appelé depuis l'exécuteur
+     */
+    public ComparaisonLegacy(double taux, Executor exec, ObservateurDivergence obs) {
+        if (!(taux >= 0 && taux <= 1)) {
+            throw new IllegalArgumentException("Taux d'échantillonnage hors de [0, 1] : " + taux);
+        }
+        this.tauxEchantillonnage = taux;
+        this.executeur = exec;
+        this.observateur = obs;
+    }
+
+    public long getNbComparaisons() { return nbComparaisons.sum(); }
+    public long getNbDivergences() { return nbDivergences.sum(); }
+    // Comparaisons refusées par un exécuteur saturé
+    public long getNbIgnorees() { return nbIgnorees.sum(); }
+    // Résultats non comparés car calculés avec un autre barème que celui du legacy
+    public long getNbHorsBareme() { return nbHorsBareme.sum(); }
+
+    private static Executor executeurBorne() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(CAPACITE_FILE_DEFAUT),
+                r -> {
+                    Thread thread = new Thread(r, "comparaison-legacy");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Soumet, selon l'échantillonnage, la comparaison du résultat refactorisé avec le calcul legacy.
+     *
+     * @param calc calculateur ayant produit le résultat
+     */
+    void soumettre(CalculateurImpot calc, ResultatImpot refactorise) {
+        if (calc.getAnnee() != ANNEE_LEGACY) {
+            nbHorsBareme.increment();
+            return;
+        }
+        if (tauxEchantillonnage < 1 && ThreadLocalRandom.current().nextDouble() >= tauxEchantillonnage) {
+            return;
+        }
+        try {
+            executeur.execute(() -> comparer(refactorise));
+        } catch (RejectedExecutionException e) {
+            nbIgnorees.increment();
+        }
+    }
+
+    private void comparer(ResultatImpot refactorise) {
+        FoyerFiscal foyer = refactorise.foyer();
+        Simulateur legacy = new Simulateur();
+        nbComparaisons.increment();
+        try {
+            legacy.calculImpot(foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(),
+                    foyer.situationFamiliale(), foyer.nbEnfantsACharge(),
+                    foyer.nbEnfantsSituationHandicap(), foyer.parentIsole());
+        } catch (IllegalArgumentException e) {
+            signaler(foyer, "exception", Double.NaN, refactorise.impotNet());
+            return;
+        }
+        int ecarts = comparer(foyer, "impotNet", legacy.getImpotNet(), refactorise.impotNet())
+                + comparer(foyer, "decote", legacy.getDecote(), refactorise.decote())
+                + comparer(foyer, "revenuReference", legacy.getRevenuReference(), refactorise.revenuReference())
+                + comparer(foyer, "nbParts", legacy.getNbParts(), refactorise.nbParts())
+                + comparer(foyer, "contribExceptionnelle", legacy.getContribExceptionnelle(),
+                        refactorise.contribExceptionnelle());
+        if (ecarts > 0) {
+            nbDivergences.increment();
+        }
+    }
+
+    private int comparer(FoyerFiscal foyer, String champ, double legacy, double refactorise) {
+        if (legacy == refactorise) {
+            return 0;
+        }
+        observateur.divergence(foyer, champ, legacy, refactorise);
+        return 1;
+    }
+
+    private void signaler(FoyerFiscal foyer, String champ, double legacy, double refactorise) {
+        nbDivergences.increment();
+        observateur.divergence(foyer, champ, legacy, refactorise);
+    }
+}
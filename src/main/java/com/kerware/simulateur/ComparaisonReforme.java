@@ -0,0 +1,253 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coût d'une réforme : chaque foyer d'une population est calculé avec le barème de référence et
+ * avec le barème réformé au cours d'un seul parcours, et seuls des agrégats sont conservés
+ * (recettes, gagnants et perdants, par situation familiale et par décile de revenu fiscal de
+ * référence). Aucun résultat par foyer n'est matérialisé.
+ *
+ * <p>Les foyers sont lus une fois, vérifiés et réduits à leurs revenus, situation et parts une
+ * fois par bloc : ces étapes ne dépendent pas du barème. Le noyau de {@link CalculateurImpotLot}
+ * est ensuite appliqué au même bloc avec chacun des deux barèmes. Les impôts sont exactement ceux
+ * de {@link CalculateurImpot#calculer(FoyerFiscal)}.</p>
+ *
+ * <p>Les déciles sont ceux du revenu fiscal de référence calculé avec le barème de référence.
+ * Ils sont obtenus à partir d'un histogramme par classes de {@value #LARGEUR_CLASSE} € : une
+ * classe à cheval sur deux déciles est répartie entre eux au prorata de ses foyers.</p>
+ */
+public final class ComparaisonReforme {
+
+    // Histogramme du revenu fiscal de référence, dernière classe ouverte
+    static final int LARGEUR_CLASSE = 1_000;
+    static final int NB_CLASSES = 1_000;
+    private static final int NB_DECILES = 10;
+
+    private final CalculateurImpot reference;
+    private final CalculateurImpot reforme;
+
+    /**
+     * Agrégats d'un ensemble de foyers. Un foyer est gagnant si la réforme baisse son impôt,
+     * perdant si elle l'augmente.
+     */
+    public record Agregat(long nbFoyers, long impotReference, long impotReforme, long nbGagnants,
+                          long nbPerdants) {
+        // Coût de la réforme : négatif si elle réduit les recettes
+        public long ecart() { return impotReforme - impotReference; }
+    }
+
+    /**
+     * Agrégats d'un décile de revenu fiscal de référence, de rang 1 à 10. Les effectifs peuvent
+     * être fractionnaires quand une classe de l'histogramme est partagée avec le décile voisin.
+     */
+    public record Decile(int rang, int revenuMin, int revenuMax, double nbFoyers, double impotReference,
+                         double impotReforme, double nbGagnants, double nbPerdants) {
+        public double ecart() { return impotReforme - impotReference; }
+    }
+
+    /**
+     * Bilan d'une comparaison ; les déciles sont absents pour une population vide.
+     */
+    public record Bilan(Agregat total, Map<SituationFamiliale, Agregat> parSituation, List<Decile> deciles) { }
+
+    /**
+     * Compare le barème en vigueur dans {@link RegistreBaremes#global()} au barème réformé.
+     *
+     * @throws IllegalArgumentException si le barème réformé est invalide
+     */
+    public ComparaisonReforme(Bareme bareme) {
+        this(RegistreBaremes.global().calculateur(), new CalculateurImpot(bareme));
+    }
+
+    public ComparaisonReforme(CalculateurImpot calcReference, CalculateurImpot calcReforme) {
+        this.reference = calcReference;
+        this.reforme = calcReforme;
+    }
+
+    public CalculateurImpot getReference() { return reference; }
+    public CalculateurImpot getReforme() { return reforme; }
+
+    // --- Sources de foyers ---
+
+    public Bilan comparer(LotFoyers foyers) {
+        return comparer(foyers, 0, foyers.taille());
+    }
+
+    /**
+     * @throws IllegalArgumentException si un foyer de la plage {@code [debut, fin[} est invalide
+     */
+    public Bilan comparer(LotFoyers foyers, int debut, int fin) {
+        Cumuls cumuls = new Cumuls();
+        BlocNoyau bloc = new BlocNoyau();
+        for (int d = debut; d < fin; d += BlocNoyau.TAILLE) {
+            int n = Math.min(BlocNoyau.TAILLE, fin - d);
+            CalculateurImpotLot.preparerBloc(reference, foyers, bloc, d, n);
+            cumuls.ajouter(bloc, n);
+        }
+        return cumuls.bilan();
+    }
+
+    /**
+     * Compare tous les foyers restants de la source, lus par lots dans {@code tampon}.
+     */
+    public Bilan comparer(SourceFoyers source, LotFoyers tampon) throws IOException {
+        Cumuls cumuls = new Cumuls();
+        BlocNoyau bloc = new BlocNoyau();
+        int lus;
+        while ((lus = source.lire(tampon)) > 0) {
+            for (int d = 0; d < lus; d += BlocNoyau.TAILLE) {
+                int n = Math.min(BlocNoyau.TAILLE, lus - d);
+                CalculateurImpotLot.preparerBloc(reference, tampon, bloc, d, n);
+                cumuls.ajouter(bloc, n);
+            }
+        }
+        return cumuls.bilan();
+    }
+
+    public Bilan comparer(PopulationHorsTas population) {
+        Cumuls cumuls = new Cumuls();
+        BlocNoyau bloc = new BlocNoyau();
+        for (long d = 0; d < population.taille(); d += BlocNoyau.TAILLE) {
+            int n = (int) Math.min(BlocNoyau.TAILLE, population.taille() - d);
+            CalculateurImpotLot.preparerBloc(reference, population, bloc, d, n);
+            cumuls.ajouter(bloc, n);
+        }
+        return cumuls.bilan();
+    }
+
+    // --- Agrégation ---
+
+    /**
+     * Compteurs d'un ensemble de foyers.
+     */
+    private static final class Cumul {
+
+        private long nbFoyers;
+        private long impotReference;
+        private long impotReforme;
+        private long nbGagnants;
+        private long nbPerdants;
+
+        void ajouter(long avant, long apres) {
+            nbFoyers++;
+            impotReference += avant;
+            impotReforme += apres;
+            if (apres < avant) {
+                nbGagnants++;
+            } else if (apres > avant) {
+                nbPerdants++;
+            }
+        }
+
+        void ajouter(Cumul autre) {
+            nbFoyers += autre.nbFoyers;
+            impotReference += autre.impotReference;
+            impotReforme += autre.impotReforme;
+            nbGagnants += autre.nbGagnants;
+            nbPerdants += autre.nbPerdants;
+        }
+
+        Agregat agregat() {
+            return new Agregat(nbFoyers, impotReference, impotReforme, nbGagnants, nbPerdants);
+        }
+    }
+
+    /**
+     * Compteurs par situation familiale et par classe de revenu, alimentés bloc par bloc.
+     */
+    private final class Cumuls {
+
+        private final Cumul[] parSituation = new Cumul[SituationFamiliale.values().length];
+        private final Cumul[] parClasse = new Cumul[NB_CLASSES];
+        private final int[] revenusMin = new int[NB_CLASSES];
+        private final int[] revenusMax = new int[NB_CLASSES];
+
+        // Résultats de référence du bloc, avant le passage du barème réformé
+        private final double[] impotsReference = new double[BlocNoyau.TAILLE];
+        private final double[] revenusReference = new double[BlocNoyau.TAILLE];
+
+        Cumuls() {
+            for (int i = 0; i < parSituation.length; i++) {
+                parSituation[i] = new Cumul();
+            }
+            for (int i = 0; i < NB_CLASSES; i++) {
+                parClasse[i] = new Cumul();
+            }
+            Arrays.fill(revenusMin, Integer.MAX_VALUE);
+        }
+
+        // Calcule le bloc préparé avec les deux barèmes puis le cumule
+        void ajouter(BlocNoyau bloc, int n) {
+            NoyauLot noyau = CalculateurImpotLot.NOYAU;
+            noyau.calculer(reference, bloc, n);
+            System.arraycopy(bloc.impotsNets, 0, impotsReference, 0, n);
+            System.arraycopy(bloc.revenusReference, 0, revenusReference, 0, n);
+            noyau.calculer(reforme, bloc, n);
+            for (int j = 0; j < n; j++) {
+                long avant = (long) impotsReference[j];
+                long apres = (long) bloc.impotsNets[j];
+                int revenu = (int) revenusReference[j];
+                int classe = Math.min(revenu / LARGEUR_CLASSE, NB_CLASSES - 1);
+                parSituation[bloc.situations[j].ordinal()].ajouter(avant, apres);
+                parClasse[classe].ajouter(avant, apres);
+                revenusMin[classe] = Math.min(revenusMin[classe], revenu);
+                revenusMax[classe] = Math.max(revenusMax[classe], revenu);
+            }
+        }
+
+        Bilan bilan() {
+            Cumul total = new Cumul();
+            Map<SituationFamiliale, Agregat> situations = new EnumMap<>(SituationFamiliale.class);
+            for (SituationFamiliale sf : SituationFamiliale.values()) {
+                total.ajouter(parSituation[sf.ordinal()]);
+                situations.put(sf, parSituation[sf.ordinal()].agregat());
+            }
+            return new Bilan(total.agregat(), Collections.unmodifiableMap(situations), deciles(total.nbFoyers));
+        }
+
+        // Chaque classe contribue à un décile au prorata de ses foyers compris dans ce décile
+        private List<Decile> deciles(long nbFoyers) {
+            if (nbFoyers == 0) {
+                return List.of();
+            }
+            List<Decile> deciles = new ArrayList<>();
+            for (int d = 0; d < NB_DECILES; d++) {
+                double bas = (double) nbFoyers * d / NB_DECILES;
+                double haut = (double) nbFoyers * (d + 1) / NB_DECILES;
+                double foyers = 0;
+                double impotRef = 0;
+                double impotRefo = 0;
+                double gagnants = 0;
+                double perdants = 0;
+                int min = Integer.MAX_VALUE;
+                int max = 0;
+                long debutClasse = 0;
+                for (int c = 0; c < NB_CLASSES && debutClasse < haut; c++) {
+                    Cumul classe = parClasse[c];
+                    long finClasse = debutClasse + classe.nbFoyers;
+                    double commun = Math.min(haut, finClasse) - Math.max(bas, debutClasse);
+                    if (commun > 0) {
+                        double part = commun / classe.nbFoyers;
+                        foyers += commun;
+                        impotRef += part * classe.impotReference;
+                        impotRefo += part * classe.impotReforme;
+                        gagnants += part * classe.nbGagnants;
+                        perdants += part * classe.nbPerdants;
+                        min = Math.min(min, revenusMin[c]);
+                        max = Math.max(max, revenusMax[c]);
+                    }
+                    debutClasse = finClasse;
+                }
+                deciles.add(new Decile(d + 1, min, max, foyers, impotRef, impotRefo, gagnants, perdants));
+            }
+            return Collections.unmodifiableList(deciles);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Conversion d'un fichier CSV de foyers au format de {@code datasImposition.csv}
+ * vers le format binaire {@link FormatBinaire}.
+ *
+ * <p>Usage : {@code ConvertisseurCsvBinaire <foyers.csv> <foyers.bin>}</p>
+ */
+public final class ConvertisseurCsvBinaire {
+
+    private static final int TAILLE_LOT = 8192;
+
+    private ConvertisseurCsvBinaire() {
+    }
+
+    /**
+     * @return le nombre de foyers convertis
+     * @throws IllegalArgumentException si une ligne du CSV est mal formée
+     */
+    public static long convertir(Path csv, Path binaire) throws IOException {
+        try (InputStream in = Files.newInputStream(csv);
+             LecteurCsvFoyers lecteur = new LecteurCsvFoyers(in);
+             FileChannel canal = FileChannel.open(binaire, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            LotFoyers lot = new LotFoyers(TAILLE_LOT);
+            ByteBuffer tampon = ByteBuffer.allocateDirect(TAILLE_LOT * FormatBinaire.TAILLE_FOYER)
+                    .order(FormatBinaire.ORDRE);
+            canal.position(FormatBinaire.TAILLE_EN_TETE);
+
+            long total = 0;
+            int lus;
+            while ((lus = lecteur.lire(lot)) > 0) {
+                tampon.clear();
+                for (int i = 0; i < lus; i++) {
+                    tampon.putInt(lot.getRevenusNetDeclarant1()[i])
+                            .putInt(lot.getRevenusNetDeclarant2()[i])
+                            .put(lot.getSituationsFamiliales()[i])
+                            .put(lot.getNbEnfantsACharge()[i])
+                            .put(lot.getNbEnfantsSituationHandicap()[i])
+                            .put(lot.getParentsIsoles()[i] ? (byte) 1 : (byte) 0);
+                }
+                tampon.flip();
+                while (tampon.hasRemaining()) {
+                    canal.write(tampon);
+                }
+                total += lus;
+            }
+            FormatBinaire.ecrireEnTete(canal, FormatBinaire.MAGIQUE_FOYERS, total);
+            return total;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage : ConvertisseurCsvBinaire <foyers.csv> <foyers.bin>");
+            System.exit(1);
+        }
+        convertir(Path.of(args[0]), Path.of(args[1]));
+    }
+}
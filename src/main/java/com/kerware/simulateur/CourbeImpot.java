@@ -0,0 +1,314 @@
+package com.kerware.simulateur;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Courbe de l'impôt net d'un foyer en fonction du revenu net du premier déclarant,
+ * les autres caractéristiques du foyer restant fixes.
+ *
+ * <p>Les bornes de la courbe sont cherchées d'abord, indépendamment du pas : revenus où le revenu
+ * fiscal franchit une borne de tranche du barème, par déclarant ou par part, ou de la contribution
+ * exceptionnelle, où l'abattement atteint son minimum ou son maximum, puis, entre ces revenus,
+ * où la décote et le plafonnement du quotient familial commencent ou cessent.</p>
+ *
+ * <p>Entre deux bornes, les tranches et les régimes du calcul sont fixes et l'impôt suit
+ * l'expression affine de son segment, de pente le taux marginal. Le premier point d'un segment
+ * est évalué en entier par les étapes de {@link CalculateurImpot} ; les suivants reprennent les
+ * tranches du segment sans les rechercher. L'expression de chaque tranche est réévaluée plutôt
+ * que cumulée d'un point au suivant : elle ne coûte pas plus qu'un pas du taux marginal et reste,
+ * arrondis compris, identique au bit près à l'impôt de {@link CalculateurImpot#calculer}.</p>
+ *
+ * <p>Les ruptures sont les bornes où le taux marginal de l'impôt net change.</p>
+ */
+public final class CourbeImpot {
+
+    /**
+     * Origine d'une rupture de la courbe.
+     */
+    public enum Cause {
+        DEBUT,
+        ABATTEMENT,
+        TRANCHE,
+        PLAFOND_QF,
+        DECOTE,
+        CEHR
+    }
+
+    /**
+     * Le taux marginal de l'impôt net vaut {@code tauxMarginal} à partir de {@code revenu}.
+     */
+    public record Rupture(int revenu, Cause cause, double tauxMarginal) { }
+
+    private final FoyerFiscal modele;
+    private final int debut;
+    private final int pas;
+    private final int[] impots;
+    private final List<Rupture> ruptures;
+
+    private CourbeImpot(FoyerFiscal foyer, int de, int increment, int[] valeurs, List<Rupture> liste) {
+        this.modele = foyer;
+        this.debut = de;
+        this.pas = increment;
+        this.impots = valeurs;
+        this.ruptures = Collections.unmodifiableList(liste);
+    }
+
+    /**
+     * Courbe avec le barème en vigueur.
+     */
+    public static CourbeImpot calculer(FoyerFiscal modele, int debut, int fin, int pas) {
+        return calculer(RegistreBaremes.global().calculateur(), modele, debut, fin, pas);
+    }
+
+    /**
+     * @param modele foyer dont seul le revenu du premier déclarant varie
+     * @param debut  premier revenu de la courbe
+     * @param fin    dernier revenu, inclus s'il est atteint avec le pas
+     * @param pas    écart entre deux points
+     * @throws IllegalArgumentException si l'intervalle ou le foyer est invalide
+     */
+    public static CourbeImpot calculer(CalculateurImpot calculateur, FoyerFiscal modele, int debut, int fin, int pas) {
+        if (debut < 0 || fin < debut || pas <= 0) {
+            throw new IllegalArgumentException("Intervalle de revenus invalide : [" + debut + ", " + fin + "] par " + pas);
+        }
+        CalculateurImpot.verifierParametres(debut, modele.revenuNetDeclarant2(), modele.situationFamiliale(),
+                modele.nbEnfantsACharge(), modele.nbEnfantsSituationHandicap(), modele.parentIsole());
+
+        int nombre = (int) (((long) fin - debut) / pas + 1);
+        Point point = new Point(calculateur, modele);
+        List<Borne> bornes = point.bornes(debut, fin);
+
+        List<Rupture> ruptures = new ArrayList<>();
+        point.evaluer(debut);
+        ruptures.add(new Rupture(debut, Cause.DEBUT, point.tauxMarginal()));
+        for (Borne borne : bornes) {
+            point.evaluer(borne.revenu());
+            double taux = point.tauxMarginal();
+            if (taux != ruptures.get(ruptures.size() - 1).tauxMarginal()) {
+                ruptures.add(new Rupture(borne.revenu(), borne.cause(), taux));
+            }
+        }
+
+        // Évaluation complète au premier point de chaque segment, puis prolongement du segment
+        int[] impots = new int[nombre];
+        int suivante = 0;
+        for (int i = 0; i < nombre; i++) {
+            int revenu = debut + i * pas;
+            if (i > 0 && (suivante == bornes.size() || bornes.get(suivante).revenu() > revenu)) {
+                impots[i] = point.prolonger(revenu);
+            } else {
+                while (suivante < bornes.size() && bornes.get(suivante).revenu() <= revenu) {
+                    suivante++;
+                }
+                impots[i] = point.evaluer(revenu);
+            }
+        }
+        return new CourbeImpot(modele, debut, pas, impots, ruptures);
+    }
+
+    // Premier revenu de ]bas, haut] vérifiant un critère croissant avec le revenu, -1 s'il n'y en a pas
+    private static int premierRevenu(int bas, int haut, IntPredicate critere) {
+        if (critere.test(bas) || !critere.test(haut)) {
+            return -1;
+        }
+        int faux = bas;
+        int vrai = haut;
+        while (vrai - faux > 1) {
+            int milieu = (int) (((long) faux + vrai) >>> 1);
+            if (critere.test(milieu)) {
+                vrai = milieu;
+            } else {
+                faux = milieu;
+            }
+        }
+        return vrai;
+    }
+
+    public FoyerFiscal getModele() { return modele; }
+    public int getNbPoints() { return impots.length; }
+    public int getPas() { return pas; }
+    public List<Rupture> getRuptures() { return ruptures; }
+
+    public int revenu(int i) {
+        return debut + i * pas;
+    }
+
+    public int impot(int i) {
+        return impots[i];
+    }
+
+    /**
+     * Taux marginal de l'impôt net au revenu donné, d'après les ruptures.
+     */
+    public double tauxMarginal(int revenu) {
+        double taux = ruptures.get(0).tauxMarginal();
+        for (Rupture rupture : ruptures) {
+            if (rupture.revenu() > revenu) {
+                break;
+            }
+            taux = rupture.tauxMarginal();
+        }
+        return taux;
+    }
+
+    /**
+     * Revenu à partir duquel une composante du calcul change.
+     */
+    private record Borne(int revenu, Cause cause) { }
+
+    private static final Comparator<Borne> ORDRE_BORNES =
+            Comparator.comparingInt(Borne::revenu).thenComparing(Borne::cause);
+
+    /**
+     * Évaluation d'un point de la courbe, avec les tranches atteintes et le régime du calcul.
+     */
+    private static final class Point {
+
+        private static final int DECOTE_AUCUNE = 0;
+        private static final int DECOTE_PARTIELLE = 1;
+        private static final int DECOTE_TOTALE = 2;
+        private static final int REVENU_FISCAL_NUL = -2;
+
+        private final CalculateurImpot calculateur;
+        private final TranchesCompilees progressif;
+        private final TranchesCompilees cehr;
+        private final int r2;
+        private final SituationFamiliale sf;
+        private final double nbPtsDecl;
+        private final double nbPts;
+
+        private int regimeAbattement;
+        private int trancheDeclarants;
+        private int tranche;
+        private int trancheCEHR;
+        private boolean plafonne;
+        private int regimeDecote;
+
+        Point(CalculateurImpot calc, FoyerFiscal modele) {
+            this.calculateur = calc;
+            this.sf = modele.situationFamiliale();
+            this.r2 = modele.revenuNetDeclarant2();
+            this.progressif = calc.baremeProgressif();
+            this.cehr = calc.baremeCEHR(sf);
+            this.nbPtsDecl = calc.calculPartsDeclarants(sf);
+            this.nbPts = calc.calculPartsFiscales(sf, modele.nbEnfantsACharge(),
+                    modele.nbEnfantsSituationHandicap(), modele.parentIsole());
+        }
+
+        // Bornes de ]debut, fin], triées par revenu
+        List<Borne> bornes(int debut, int fin) {
+            List<Borne> bornes = new ArrayList<>();
+            // Le revenu fiscal, l'abattement et donc chaque tranche atteinte croissent avec le revenu
+            ajouter(bornes, Cause.ABATTEMENT, premierRevenu(debut, fin, r -> revenuFiscal(r) > 0));
+            ajouter(bornes, Cause.ABATTEMENT, premierRevenu(debut, fin, r -> calculateur.regimeAbattement(r) >= 0));
+            ajouter(bornes, Cause.ABATTEMENT, premierRevenu(debut, fin, r -> calculateur.regimeAbattement(r) > 0));
+            for (int k = 0; k < progressif.getNbTranches(); k++) {
+                int borne = progressif.borneInferieure(k);
+                ajouter(bornes, Cause.TRANCHE, premierRevenu(debut, fin, r -> revenuFiscal(r) / nbPtsDecl > borne));
+                if (nbPts != nbPtsDecl) {
+                    ajouter(bornes, Cause.TRANCHE, premierRevenu(debut, fin, r -> revenuFiscal(r) / nbPts > borne));
+                }
+            }
+            for (int k = 0; k < cehr.getNbTranches(); k++) {
+                int borne = cehr.borneInferieure(k);
+                ajouter(bornes, Cause.CEHR, premierRevenu(debut, fin, r -> revenuFiscal(r) > borne));
+            }
+            bornes.sort(ORDRE_BORNES);
+
+            // Sur chaque segment entre ces bornes, l'impôt avant décote croît avec le revenu : la décote
+            // et le plafonnement y changent de régime dans un seul sens
+            List<Borne> regimes = new ArrayList<>();
+            int bas = debut;
+            for (int n = 0; n <= bornes.size(); n++) {
+                int haut = n < bornes.size() ? bornes.get(n).revenu() - 1 : fin;
+                if (haut > bas) {
+                    chercherRegimes(bas, haut, Cause.PLAFOND_QF, regimes);
+                    chercherRegimes(bas, haut, Cause.DECOTE, regimes);
+                }
+                bas = Math.max(bas, haut + 1);
+            }
+            bornes.addAll(regimes);
+            bornes.sort(ORDRE_BORNES);
+            return bornes;
+        }
+
+        private static void ajouter(List<Borne> bornes, Cause cause, int revenu) {
+            if (revenu >= 0) {
+                bornes.add(new Borne(revenu, cause));
+            }
+        }
+
+        // Changements de régime de la décote ou du plafonnement dans ]bas, haut]
+        private void chercherRegimes(int bas, int haut, Cause cause, List<Borne> sortie) {
+            int cible = regime(haut, cause);
+            int depuis = bas;
+            int valeur = regime(depuis, cause);
+            while (valeur != cible) {
+                int courante = valeur;
+                depuis = premierRevenu(depuis, haut, r -> regime(r, cause) != courante);
+                sortie.add(new Borne(depuis, cause));
+                valeur = regime(depuis, cause);
+            }
+        }
+
+        private int regime(int r1, Cause cause) {
+            evaluer(r1);
+            return cause == Cause.PLAFOND_QF ? (plafonne ? 1 : 0) : regimeDecote;
+        }
+
+        private double revenuFiscal(int r1) {
+            return calculateur.calculRevenuFiscal(r1, r2, calculateur.calculAbattement(r1, r2, sf));
+        }
+
+        // Calcul complet du point : tranches et régime de l'abattement recherchés
+        int evaluer(int r1) {
+            double rFRef = revenuFiscal(r1);
+            trancheDeclarants = progressif.indiceTranche(rFRef / nbPtsDecl);
+            tranche = progressif.indiceTranche(rFRef / nbPts);
+            trancheCEHR = cehr.indiceTranche(rFRef);
+            regimeAbattement = rFRef == 0 ? REVENU_FISCAL_NUL : calculateur.regimeAbattement(r1);
+            return impot(rFRef);
+        }
+
+        // Point du même segment que le dernier point évalué : ses tranches sont reprises
+        int prolonger(int r1) {
+            return impot(revenuFiscal(r1));
+        }
+
+        private int impot(double rFRef) {
+            double contrib = calculateur.calculContributionExceptionnelle(rFRef, sf, trancheCEHR);
+            double mImpDecl = calculateur.calculImpotDeclarants(rFRef, nbPtsDecl, trancheDeclarants);
+            double mImp = calculateur.calculImpotFoyer(rFRef, nbPtsDecl, nbPts, mImpDecl, tranche);
+            plafonne = calculateur.plafondAtteintHorsArrondis(rFRef, nbPtsDecl, nbPts, trancheDeclarants, tranche);
+            double mImpAvantDecote = calculateur.appliquerPlafondQF(mImpDecl, mImp, nbPtsDecl, nbPts);
+            double decote = calculateur.calculDecote(mImpAvantDecote, nbPtsDecl);
+
+            // Un impôt avant décote nul est assimilé à une décote totale : l'impôt reste nul
+            if (decote == mImpAvantDecote) {
+                regimeDecote = DECOTE_TOTALE;
+            } else {
+                regimeDecote = decote > 0 ? DECOTE_PARTIELLE : DECOTE_AUCUNE;
+            }
+            return (int) calculateur.calculImpotNet(mImpAvantDecote, decote, contrib);
+        }
+
+        // Dérivée de l'impôt net par rapport au revenu du premier déclarant, hors arrondis
+        double tauxMarginal() {
+            if (regimeAbattement == REVENU_FISCAL_NUL) {
+                return 0;
+            }
+            double revenuFiscalParEuro = regimeAbattement == 0 ? 1 - calculateur.tauxAbattement() : 1;
+            double impot = progressif.taux(plafonne ? trancheDeclarants : tranche);
+            if (regimeDecote == DECOTE_PARTIELLE) {
+                impot *= 1 + calculateur.tauxDecote();
+            } else if (regimeDecote == DECOTE_TOTALE) {
+                impot = 0;
+            }
+            return revenuFiscalParEuro * (impot + cehr.taux(trancheCEHR));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.kerware.simulateur;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Résultat d'un foyer dont les étapes du calcul de l'impôt net sont faites d'emblée et conservées :
+ * abattement, revenu fiscal de référence, parts, impôt des déclarants et du foyer, plafonnement,
+ * décote et contribution exceptionnelle. Seuls le taux marginal, le {@link ResultatImpot} et le
+ * montant de chaque tranche du barème et de la contribution exceptionnelle ne sont calculés qu'à
+ * leur première consultation, puis conservés.
+ *
+ * <p>Sans verrou : deux threads consultant le même détail peuvent calculer la même étape, avec
+ * le même résultat. Les valeurs conservées sont immuables.</p>
+ */
+public final class DetailImpot {
+
+    /**
+     * Part de revenu comprise dans une tranche et montant qu'elle produit, avant arrondi.
+     */
+    public record MontantTranche(int borneInferieure, int borneSuperieure, double taux, double base,
+                                 double montant) { }
+
+    private final CalculateurImpot calculateur;
+    private final FoyerFiscal foyer;
+
+    // --- Étapes du calcul ---
+    private final double abattement;
+    private final double revenuReference;
+    private final double nbPartsDeclarants;
+    private final double nbParts;
+    private final double impotDeclarants;
+    private final double impotAvantPlafonnement;
+    private final double impotAvantDecote;
+    private final double decote;
+    private final double contribExceptionnelle;
+    private final double impotNet;
+
+    // --- Calculés à la première consultation ---
+    private ResultatImpot resultat;
+    private List<MontantTranche> tranchesImpot;
+    private List<MontantTranche> tranchesCEHR;
+
+    /**
+     * Applique au foyer les étapes de {@link CalculateurImpot#calculer(FoyerFiscal)}, sauf le taux marginal.
+     *
+     * @throws IllegalArgumentException si le foyer est invalide
+     */
+    DetailImpot(CalculateurImpot calc, FoyerFiscal ff) {
+        int r1 = ff.revenuNetDeclarant1();
+        int r2 = ff.revenuNetDeclarant2();
+        SituationFamiliale sf = ff.situationFamiliale();
+        int enf = ff.nbEnfantsACharge();
+        int enfH = ff.nbEnfantsSituationHandicap();
+        boolean iso = ff.parentIsole();
+
+        CalculateurImpot.verifierParametres(r1, r2, sf, enf, enfH, iso);
+
+        this.calculateur = calc;
+        this.foyer = ff;
+        this.abattement = calc.calculAbattement(r1, r2, sf);
+        this.nbPartsDeclarants = calc.calculPartsDeclarants(sf);
+        this.nbParts = calc.calculPartsFiscales(sf, enf, enfH, iso);
+        this.revenuReference = calc.calculRevenuFiscal(r1, r2, abattement);
+        this.contribExceptionnelle = calc.calculContributionExceptionnelle(revenuReference, sf);
+
+        this.impotDeclarants = calc.calculImpotDeclarants(revenuReference, nbPartsDeclarants);
+        this.impotAvantPlafonnement = calc.calculImpotFoyer(revenuReference, nbPartsDeclarants, nbParts,
+                impotDeclarants);
+
+        this.impotAvantDecote = calc.appliquerPlafondQF(impotDeclarants, impotAvantPlafonnement,
+                nbPartsDeclarants, nbParts);
+        this.decote = calc.calculDecote(impotAvantDecote, nbPartsDeclarants);
+        this.impotNet = calc.calculImpotNet(impotAvantDecote, decote, contribExceptionnelle);
+    }
+
+    public FoyerFiscal foyer() { return foyer; }
+    public double impotNet() { return impotNet; }
+
+    /**
+     * Résultat complet, identique à {@link CalculateurImpot#calculer(FoyerFiscal)}.
+     */
+    public ResultatImpot resultat() {
+        ResultatImpot r = resultat;
+        if (r == null) {
+            r = new ResultatImpot(foyer, abattement, revenuReference, nbPartsDeclarants, nbParts, impotDeclarants,
+                    impotAvantDecote, decote, contribExceptionnelle, impotNet,
+                    calculateur.tauxMarginal(revenuReference / nbParts));
+            resultat = r;
+        }
+        return r;
+    }
+
+    // --- Barème progressif ---
+
+    /**
+     * Tranches du barème progressif appliquées au revenu d'une part, multipliées par le nombre
+     * de parts du foyer ; leur somme est, à l'euro près, l'impôt avant plafonnement du quotient familial.
+     */
+    public List<MontantTranche> tranchesImpot() {
+        List<MontantTranche> tranches = tranchesImpot;
+        if (tranches == null) {
+            tranches = montants(calculateur.baremeProgressif(), revenuReference / nbParts, nbParts);
+            tranchesImpot = tranches;
+        }
+        return tranches;
+    }
+
+    // EXG_IMPOT_05 : impôt calculé avec toutes les parts du foyer, avant plafonnement
+    public double impotAvantPlafonnement() {
+        return impotAvantPlafonnement;
+    }
+
+    /**
+     * Baisse d'impôt due aux parts au-delà de celles des déclarants, après plafonnement.
+     */
+    public double gainQuotientFamilial() {
+        return impotDeclarants - impotAvantDecote;
+    }
+
+    public boolean isPlafonne() {
+        return calculateur.plafondAtteint(impotDeclarants, impotAvantPlafonnement, nbPartsDeclarants, nbParts);
+    }
+
+    /**
+     * Part de la baisse due au quotient familial reprise par le plafonnement, nulle s'il ne s'applique pas.
+     */
+    public double reprisePlafonnement() {
+        return impotAvantDecote - impotAvantPlafonnement;
+    }
+
+    // --- Décote et contribution exceptionnelle ---
+
+    public double decote() {
+        return decote;
+    }
+
+    public double contribExceptionnelle() {
+        return contribExceptionnelle;
+    }
+
+    /**
+     * Tranches de la contribution exceptionnelle appliquées au revenu fiscal de référence ;
+     * leur somme est, à l'euro près, la contribution.
+     */
+    public List<MontantTranche> tranchesCEHR() {
+        List<MontantTranche> tranches = tranchesCEHR;
+        if (tranches == null) {
+            tranches = montants(calculateur.baremeCEHR(foyer.situationFamiliale()), revenuReference, 1);
+            tranchesCEHR = tranches;
+        }
+        return tranches;
+    }
+
+    private static List<MontantTranche> montants(TranchesCompilees bareme, double revenu, double multiplicateur) {
+        List<MontantTranche> montants = new ArrayList<>(bareme.getNbTranches());
+        for (int k = 0; k < bareme.getNbTranches(); k++) {
+            double base = Math.max(0, Math.min(revenu, bareme.borneSuperieure(k)) - bareme.borneInferieure(k));
+            montants.add(new MontantTranche(bareme.borneInferieure(k), bareme.borneSuperieure(k), bareme.taux(k),
+                    base, base * bareme.taux(k) * multiplicateur));
+        }
+        return List.copyOf(montants);
+    }
+}
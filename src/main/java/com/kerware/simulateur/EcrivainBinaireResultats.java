@@ -0,0 +1,97 @@
+package com.kerware.simulateur;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.kerware.simulateur.FormatBinaire.ENREGISTREMENTS_PAR_FENETRE;
+import static com.kerware.simulateur.FormatBinaire.POS_CONTRIB_EXCEPTIONNELLE;
+import static com.kerware.simulateur.FormatBinaire.POS_DECOTE;
+import static com.kerware.simulateur.FormatBinaire.POS_DEMI_PARTS;
+import static com.kerware.simulateur.FormatBinaire.POS_IMPOT;
+import static com.kerware.simulateur.FormatBinaire.POS_REVENU_REFERENCE;
+import static com.kerware.simulateur.FormatBinaire.TAILLE_EN_TETE;
+import static com.kerware.simulateur.FormatBinaire.TAILLE_RESULTAT;
+
+/**
+ * Écriture d'un fichier binaire de résultats ({@link FormatBinaire}) projeté en mémoire.
+ * Le nombre de résultats est fixé à la création : le fichier est dimensionné une fois
+ * puis rempli par fenêtres successives.
+ */
+public final class EcrivainBinaireResultats implements Closeable {
+
+    private final FileChannel canal;
+    private final long nombre;
+    private long suivant = 0;
+
+    private MappedByteBuffer fenetre;
+    private long debutFenetre = 0;
+    private long finFenetre = 0;
+
+    public EcrivainBinaireResultats(Path fichier, long nb) throws IOException {
+        this.canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.nombre = nb;
+        FormatBinaire.ecrireEnTete(canal, FormatBinaire.MAGIQUE_RESULTATS, nb);
+    }
+
+    /**
+     * Ajoute les résultats d'indices {@code [0, nb[} du lot.
+     *
+     * @throws IllegalStateException si plus de résultats que prévu sont écrits
+     */
+    public void ecrire(LotResultats resultats, int nb) throws IOException {
+        if (suivant + nb > nombre) {
+            throw new IllegalStateException("Plus de " + nombre + " résultats écrits");
+        }
+        int[] impots = resultats.getImpotsNets();
+        int[] rfr = resultats.getRevenusReference();
+        double[] parts = resultats.getNbParts();
+        int[] decotes = resultats.getDecotes();
+        int[] cehr = resultats.getContribExceptionnelles();
+        for (int i = 0; i < nb; i++) {
+            if (suivant >= finFenetre) {
+                projeter(suivant);
+            }
+            int pos = (int) (suivant - debutFenetre) * TAILLE_RESULTAT;
+            fenetre.putInt(pos + POS_IMPOT, impots[i]);
+            fenetre.putInt(pos + POS_REVENU_REFERENCE, rfr[i]);
+            fenetre.putInt(pos + POS_DEMI_PARTS, (int) Math.round(parts[i] * 2));
+            fenetre.putInt(pos + POS_DECOTE, decotes[i]);
+            fenetre.putInt(pos + POS_CONTRIB_EXCEPTIONNELLE, cehr[i]);
+            suivant++;
+        }
+    }
+
+    /**
+     * @throws IllegalStateException si moins de résultats que prévu ont été écrits
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (fenetre != null) {
+                fenetre.force();
+            }
+            if (suivant != nombre) {
+                throw new IllegalStateException(suivant + " résultats écrits sur " + nombre + " prévus");
+            }
+        } finally {
+            canal.close();
+        }
+    }
+
+    private void projeter(long premier) throws IOException {
+        if (fenetre != null) {
+            fenetre.force();
+        }
+        long taille = Math.min(ENREGISTREMENTS_PAR_FENETRE, nombre - premier);
+        fenetre = canal.map(FileChannel.MapMode.READ_WRITE, TAILLE_EN_TETE + premier * TAILLE_RESULTAT,
+                taille * TAILLE_RESULTAT);
+        fenetre.order(FormatBinaire.ORDRE);
+        debutFenetre = premier;
+        finFenetre = premier + taille;
+    }
+}
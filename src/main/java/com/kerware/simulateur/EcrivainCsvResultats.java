@@ -0,0 +1,110 @@
+package com.kerware.simulateur;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écriture tamponnée des résultats d'un lot au format CSV
+ * {@code impot,revenuFiscalReference,nbParts,decote,contribExceptionnelle}.
+ * Les nombres sont encodés directement en octets, sans {@code String} intermédiaire.
+ */
+public final class EcrivainCsvResultats implements Closeable, Flushable {
+
+    public static final String EN_TETE = "impot,revenuFiscalReference,nbParts,decote,contribExceptionnelle";
+
+    private static final int TAILLE_TAMPON = 65_536;
+    // Une ligne de résultats tient toujours dans cette taille (5 champs numériques)
+    private static final int TAILLE_LIGNE_MAX = 128;
+    private static final int BASE = 10;
+
+    private final OutputStream sortie;
+    private final byte[] tampon = new byte[TAILLE_TAMPON];
+    private final byte[] chiffres = new byte[BASE + 1];
+    private int position = 0;
+
+    public EcrivainCsvResultats(OutputStream out) {
+        this.sortie = out;
+    }
+
+    public void ecrireEnTete() throws IOException {
+        byte[] enTete = EN_TETE.getBytes(StandardCharsets.US_ASCII);
+        reserver(enTete.length + 1);
+        System.arraycopy(enTete, 0, tampon, position, enTete.length);
+        position += enTete.length;
+        tampon[position++] = '\n';
+    }
+
+    /**
+     * Écrit une ligne par foyer d'indice {@code [0, nombre[}.
+     */
+    public void ecrire(LotResultats resultats, int nombre) throws IOException {
+        int[] impots = resultats.getImpotsNets();
+        int[] rfr = resultats.getRevenusReference();
+        double[] parts = resultats.getNbParts();
+        int[] decotes = resultats.getDecotes();
+        int[] cehr = resultats.getContribExceptionnelles();
+        for (int i = 0; i < nombre; i++) {
+            reserver(TAILLE_LIGNE_MAX);
+            entier(impots[i]);
+            tampon[position++] = ',';
+            entier(rfr[i]);
+            tampon[position++] = ',';
+            parts(parts[i]);
+            tampon[position++] = ',';
+            entier(decotes[i]);
+            tampon[position++] = ',';
+            entier(cehr[i]);
+            tampon[position++] = '\n';
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        sortie.write(tampon, 0, position);
+        position = 0;
+        sortie.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            sortie.close();
+        }
+    }
+
+    private void reserver(int taille) throws IOException {
+        if (position + taille > tampon.length) {
+            sortie.write(tampon, 0, position);
+            position = 0;
+        }
+    }
+
+    private void entier(int valeur) {
+        long reste = valeur;
+        if (reste < 0) {
+            tampon[position++] = '-';
+            reste = -reste;
+        }
+        int n = 0;
+        do {
+            chiffres[n++] = (byte) ('0' + reste % BASE);
+            reste /= BASE;
+        } while (reste > 0);
+        while (n > 0) {
+            tampon[position++] = chiffres[--n];
+        }
+    }
+
+    // Les parts sont toujours des multiples d'une demi-part
+    private void parts(double nbParts) {
+        long demiParts = Math.round(nbParts * 2);
+        entier((int) (demiParts / 2));
+        tampon[position++] = '.';
+        tampon[position++] = demiParts % 2 == 0 ? (byte) '0' : (byte) '5';
+    }
+}
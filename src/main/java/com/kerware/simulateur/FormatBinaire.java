@@ -0,0 +1,92 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Format binaire à enregistrements de taille fixe des fichiers de foyers et de résultats.
+ *
+ * <p>Chaque fichier commence par un en-tête de {@value #TAILLE_EN_TETE} octets :
+ * nombre magique (int), version (int) puis nombre d'enregistrements (long).
+ * Tous les entiers sont en petit-boutiste.</p>
+ *
+ * <p>Foyer ({@value #TAILLE_FOYER} octets) : revenu net déclarant 1 (int), revenu net déclarant 2 (int),
+ * ordinal de la situation familiale, enfants à charge, enfants handicapés et parent isolé (0 ou 1),
+ * un octet chacun.</p>
+ *
+ * <p>Résultat ({@value #TAILLE_RESULTAT} octets) : impôt net, revenu fiscal de référence,
+ * nombre de demi-parts, décote et contribution exceptionnelle, un int chacun.</p>
+ */
+public final class FormatBinaire {
+
+    public static final ByteOrder ORDRE = ByteOrder.LITTLE_ENDIAN;
+    public static final int VERSION = 1;
+    public static final int TAILLE_EN_TETE = 16;
+
+    // "FOYR" et "RIMP"
+    public static final int MAGIQUE_FOYERS = 0x52594F46;
+    public static final int MAGIQUE_RESULTATS = 0x504D4952;
+
+    // --- Enregistrement foyer ---
+    public static final int TAILLE_FOYER = 12;
+    public static final int POS_REVENU_1 = 0;
+    public static final int POS_REVENU_2 = 4;
+    public static final int POS_SITUATION = 8;
+    public static final int POS_ENFANTS = 9;
+    public static final int POS_ENFANTS_HANDICAP = 10;
+    public static final int POS_PARENT_ISOLE = 11;
+
+    // --- Enregistrement résultat ---
+    public static final int TAILLE_RESULTAT = 20;
+    public static final int POS_IMPOT = 0;
+    public static final int POS_REVENU_REFERENCE = 4;
+    public static final int POS_DEMI_PARTS = 8;
+    public static final int POS_DECOTE = 12;
+    public static final int POS_CONTRIB_EXCEPTIONNELLE = 16;
+
+    // Taille des fenêtres projetées en mémoire, en nombre d'enregistrements
+    static final int ENREGISTREMENTS_PAR_FENETRE = 4_194_304;
+
+    private static final int POS_VERSION = 4;
+    private static final int POS_NOMBRE = 8;
+
+    private FormatBinaire() {
+    }
+
+    static void ecrireEnTete(FileChannel canal, int magique, long nombre) throws IOException {
+        ByteBuffer enTete = ByteBuffer.allocate(TAILLE_EN_TETE).order(ORDRE);
+        enTete.putInt(magique).putInt(VERSION).putLong(nombre).flip();
+        long position = 0;
+        while (enTete.hasRemaining()) {
+            position += canal.write(enTete, position);
+        }
+    }
+
+    /**
+     * @return le nombre d'enregistrements annoncé par l'en-tête
+     * @throws IllegalArgumentException si l'en-tête ne correspond pas au type de fichier attendu
+     */
+    static long lireEnTete(FileChannel canal, int magique, int tailleEnregistrement) throws IOException {
+        ByteBuffer enTete = ByteBuffer.allocate(TAILLE_EN_TETE).order(ORDRE);
+        long position = 0;
+        while (enTete.hasRemaining()) {
+            int lus = canal.read(enTete, position);
+            if (lus < 0) {
+                throw new IllegalArgumentException("Fichier binaire tronqué : en-tête incomplet");
+            }
+            position += lus;
+        }
+        if (enTete.getInt(0) != magique || enTete.getInt(POS_VERSION) != VERSION) {
+            throw new IllegalArgumentException("Fichier binaire non reconnu");
+        }
+        long nombre = enTete.getLong(POS_NOMBRE);
+        // Comparé au nombre d'enregistrements contenus, sans multiplication qui puisse déborder
+        long contenus = Math.max(0, canal.size() - TAILLE_EN_TETE) / tailleEnregistrement;
+        if (nombre < 0 || nombre > contenus) {
+            throw new IllegalArgumentException("Fichier binaire tronqué : " + nombre + " enregistrements annoncés");
+        }
+        return nombre;
+    }
+}
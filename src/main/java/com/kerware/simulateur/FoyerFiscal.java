@@ -0,0 +1,8 @@
+package com.kerware.simulateur;
+
+/**
+ * Données d'entrée immuables d'un foyer fiscal : les six paramètres du calcul de l'impôt.
+ */
+public record FoyerFiscal(int revenuNetDeclarant1, int revenuNetDeclarant2,
+                          SituationFamiliale situationFamiliale, int nbEnfantsACharge,
+                          int nbEnfantsSituationHandicap, boolean parentIsole) {}
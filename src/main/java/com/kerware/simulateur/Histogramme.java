@@ -0,0 +1,87 @@
+package com.kerware.simulateur;
+
+/**
+ * Histogramme à classes de largeur fixe sur {@code [minimum, maximum[}, alimenté valeur par
+ * valeur en mémoire constante. Les valeurs hors de l'intervalle sont comptées dans la première
+ * ou la dernière classe.
+ *
+ * <p>Deux histogrammes de mêmes classes se fusionnent par simple addition des effectifs : chaque
+ * thread d'un calcul parallèle alimente le sien, fusionné à la fin. Les quantiles sont interpolés
+ * linéairement dans leur classe, à une largeur de classe près.</p>
+ */
+public final class Histogramme {
+
+    private final double minimum;
+    private final double maximum;
+    private final double largeur;
+    private final long[] effectifs;
+    private long nbValeurs;
+
+    /**
+     * @throws IllegalArgumentException si l'intervalle est vide ou s'il n'y a aucune classe
+     */
+    public Histogramme(double min, double max, int nbClasses) {
+        if (!(min < max) || nbClasses <= 0) {
+            throw new IllegalArgumentException("Histogramme invalide : [" + min + ", " + max + "[ en "
+                    + nbClasses + " classes");
+        }
+        this.minimum = min;
+        this.maximum = max;
+        this.largeur = (max - min) / nbClasses;
+        this.effectifs = new long[nbClasses];
+    }
+
+    public double getMinimum() { return minimum; }
+    public double getMaximum() { return maximum; }
+    public int getNbClasses() { return effectifs.length; }
+    public long getNbValeurs() { return nbValeurs; }
+
+    public long effectif(int classe) {
+        return effectifs[classe];
+    }
+
+    public void ajouter(double valeur) {
+        int classe = (int) ((valeur - minimum) / largeur);
+        effectifs[Math.max(0, Math.min(effectifs.length - 1, classe))]++;
+        nbValeurs++;
+    }
+
+    /**
+     * Ajoute les effectifs d'un histogramme de mêmes classes.
+     *
+     * @throws IllegalArgumentException si les classes diffèrent
+     */
+    public void fusionner(Histogramme autre) {
+        if (autre.minimum != minimum || autre.maximum != maximum || autre.effectifs.length != effectifs.length) {
+            throw new IllegalArgumentException("Histogrammes de classes différentes");
+        }
+        for (int i = 0; i < effectifs.length; i++) {
+            effectifs[i] += autre.effectifs[i];
+        }
+        nbValeurs += autre.nbValeurs;
+    }
+
+    /**
+     * Valeur sous laquelle se trouve la proportion {@code q} des valeurs, NaN si l'histogramme est vide.
+     *
+     * @throws IllegalArgumentException si {@code q} est hors de [0, 1]
+     */
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("Quantile hors de [0, 1] : " + q);
+        }
+        if (nbValeurs == 0) {
+            return Double.NaN;
+        }
+        double rang = q * nbValeurs;
+        long cumul = 0;
+        for (int i = 0; i < effectifs.length; i++) {
+            long effectif = effectifs[i];
+            if (effectif > 0 && cumul + effectif >= rang) {
+                return minimum + (i + (rang - cumul) / effectif) * largeur;
+            }
+            cumul += effectif;
+        }
+        return maximum;
+    }
+}
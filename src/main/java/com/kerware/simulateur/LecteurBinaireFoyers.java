@@ -0,0 +1,92 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.kerware.simulateur.FormatBinaire.ENREGISTREMENTS_PAR_FENETRE;
+import static com.kerware.simulateur.FormatBinaire.POS_ENFANTS;
+import static com.kerware.simulateur.FormatBinaire.POS_ENFANTS_HANDICAP;
+import static com.kerware.simulateur.FormatBinaire.POS_PARENT_ISOLE;
+import static com.kerware.simulateur.FormatBinaire.POS_REVENU_1;
+import static com.kerware.simulateur.FormatBinaire.POS_REVENU_2;
+import static com.kerware.simulateur.FormatBinaire.POS_SITUATION;
+import static com.kerware.simulateur.FormatBinaire.TAILLE_EN_TETE;
+import static com.kerware.simulateur.FormatBinaire.TAILLE_FOYER;
+
+/**
+ * Lecture d'un fichier binaire de foyers ({@link FormatBinaire}) projeté en mémoire.
+ * Les enregistrements sont décodés directement depuis la projection, par fenêtres successives,
+ * sans copie intermédiaire ni objet alloué par foyer.
+ */
+public final class LecteurBinaireFoyers implements SourceFoyers {
+
+    private final FileChannel canal;
+    private final long nombre;
+    private long suivant = 0;
+
+    private MappedByteBuffer fenetre;
+    private long debutFenetre = 0;
+    private long finFenetre = 0;
+
+    /**
+     * @throws IllegalArgumentException si le fichier n'est pas un fichier de foyers valide
+     */
+    public LecteurBinaireFoyers(Path fichier) throws IOException {
+        this.canal = FileChannel.open(fichier, StandardOpenOption.READ);
+        try {
+            this.nombre = FormatBinaire.lireEnTete(canal, FormatBinaire.MAGIQUE_FOYERS, TAILLE_FOYER);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Nombre total de foyers du fichier.
+     */
+    public long getNombre() { return nombre; }
+
+    @Override
+    public int lire(LotFoyers lot) throws IOException {
+        int[] rn1 = lot.getRevenusNetDeclarant1();
+        int[] rn2 = lot.getRevenusNetDeclarant2();
+        byte[] sitFam = lot.getSituationsFamiliales();
+        byte[] nbe = lot.getNbEnfantsACharge();
+        byte[] nbesh = lot.getNbEnfantsSituationHandicap();
+        boolean[] pi = lot.getParentsIsoles();
+
+        int n = 0;
+        while (n < lot.taille() && suivant < nombre) {
+            if (suivant >= finFenetre) {
+                projeter(suivant);
+            }
+            int pos = (int) (suivant - debutFenetre) * TAILLE_FOYER;
+            rn1[n] = fenetre.getInt(pos + POS_REVENU_1);
+            rn2[n] = fenetre.getInt(pos + POS_REVENU_2);
+            sitFam[n] = fenetre.get(pos + POS_SITUATION);
+            nbe[n] = fenetre.get(pos + POS_ENFANTS);
+            nbesh[n] = fenetre.get(pos + POS_ENFANTS_HANDICAP);
+            pi[n] = fenetre.get(pos + POS_PARENT_ISOLE) != 0;
+            n++;
+            suivant++;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private void projeter(long premier) throws IOException {
+        long taille = Math.min(ENREGISTREMENTS_PAR_FENETRE, nombre - premier);
+        fenetre = canal.map(FileChannel.MapMode.READ_ONLY, TAILLE_EN_TETE + premier * TAILLE_FOYER,
+                taille * TAILLE_FOYER);
+        fenetre.order(FormatBinaire.ORDRE);
+        debutFenetre = premier;
+        finFenetre = premier + taille;
+    }
+}
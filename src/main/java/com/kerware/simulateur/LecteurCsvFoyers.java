@@ -0,0 +1,259 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lecture en flux d'un fichier CSV de foyers au format de {@code datasImposition.csv} :
+ * {@code revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole}.
+ * Les champs sont décodés directement depuis les octets lus, sans {@code String} intermédiaire ;
+ * les colonnes supplémentaires sont ignorées. Une première ligne dont les six premiers champs portent
+ * ces noms de colonnes est un en-tête et est sautée ; toute autre ligne est décodée comme un foyer.
+ */
+public final class LecteurCsvFoyers implements SourceFoyers {
+
+    private static final int TAILLE_TAMPON = 65_536;
+    private static final int COL_REVENU_1 = 0;
+    private static final int COL_REVENU_2 = 1;
+    private static final int COL_SITUATION = 2;
+    private static final int COL_ENFANTS = 3;
+    private static final int COL_ENFANTS_HANDICAP = 4;
+    private static final int COL_PARENT_ISOLE = 5;
+    private static final int NB_COLONNES = 6;
+    private static final int MAX_CHIFFRES = 10;
+    private static final int BASE = 10;
+    private static final byte[][] NOMS_SITUATIONS = nomsSituations();
+    private static final byte[] VRAI = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FAUX = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] NOMS_COLONNES = octets(
+            "revenutNet1", "revenuNet2", "sitFam", "nbEnfants", "nbEnfantsHandicap", "isole");
+
+    private final InputStream entree;
+    private final byte[] tampon = new byte[TAILLE_TAMPON];
+    private int position = 0;
+    private int limite = 0;
+    private boolean finFlux = false;
+    private long numeroLigne = 0;
+
+    // Ligne courante : indices des champs dans le tampon
+    private final int[] debutsChamps = new int[NB_COLONNES];
+    private final int[] finsChamps = new int[NB_COLONNES];
+
+    public LecteurCsvFoyers(InputStream in) {
+        this.entree = in;
+    }
+
+    /**
+     * Numéro (à partir de 1) de la dernière ligne lue.
+     */
+    public long getNumeroLigne() { return numeroLigne; }
+
+    /**
+     * @throws IllegalArgumentException si une ligne est mal formée
+     */
+    @Override
+    public int lire(LotFoyers lot) throws IOException {
+        int n = 0;
+        while (n < lot.taille() && ligneSuivante()) {
+            if (!estEnTete()) {
+                decoderLigne(lot, n);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        entree.close();
+    }
+
+    // Délimite les champs de la ligne suivante non vide ; false à la fin du flux
+    private boolean ligneSuivante() throws IOException {
+        while (true) {
+            int fin = chercherFinLigne();
+            if (fin < 0) {
+                return false;
+            }
+            numeroLigne++;
+            int finUtile = fin > position && tampon[fin - 1] == '\r' ? fin - 1 : fin;
+            int debut = position;
+            position = fin + 1;
+            if (finUtile > debut) {
+                delimiterChamps(debut, finUtile);
+                return true;
+            }
+        }
+    }
+
+    // Indice du '\n' terminant la ligne courante, en rechargeant le tampon si besoin
+    private int chercherFinLigne() throws IOException {
+        int recherche = position;
+        while (true) {
+            for (int i = recherche; i < limite; i++) {
+                if (tampon[i] == '\n') {
+                    return i;
+                }
+            }
+            if (finFlux) {
+                if (position < limite) {
+                    // dernière ligne sans fin de ligne
+                    if (limite == tampon.length) {
+                        compacter();
+                    }
+                    tampon[limite] = '\n';
+                    return limite++;
+                }
+                return -1;
+            }
+            recherche = limite - position;
+            compacter();
+            remplir();
+        }
+    }
+
+    private void compacter() {
+        int reste = limite - position;
+        if (position == 0 && reste == tampon.length) {
+            throw new IllegalArgumentException("Ligne " + (numeroLigne + 1) + " trop longue");
+        }
+        System.arraycopy(tampon, position, tampon, 0, reste);
+        position = 0;
+        limite = reste;
+    }
+
+    private void remplir() throws IOException {
+        int lus = entree.read(tampon, limite, tampon.length - limite);
+        if (lus < 0) {
+            finFlux = true;
+        } else {
+            limite += lus;
+        }
+    }
+
+    private void delimiterChamps(int debut, int fin) {
+        int champ = 0;
+        debutsChamps[0] = debut;
+        for (int i = debut; i < fin && champ < NB_COLONNES; i++) {
+            if (tampon[i] == ',') {
+                finsChamps[champ++] = i;
+                if (champ < NB_COLONNES) {
+                    debutsChamps[champ] = i + 1;
+                }
+            }
+        }
+        if (champ < NB_COLONNES) {
+            finsChamps[champ++] = fin;
+        }
+        if (champ < NB_COLONNES) {
+            throw erreur("colonnes manquantes");
+        }
+    }
+
+    private boolean estEnTete() {
+        if (numeroLigne != 1) {
+            return false;
+        }
+        for (int champ = 0; champ < NB_COLONNES; champ++) {
+            if (!egal(champ, NOMS_COLONNES[champ])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void decoderLigne(LotFoyers lot, int i) {
+        lot.getRevenusNetDeclarant1()[i] = entier(COL_REVENU_1);
+        lot.getRevenusNetDeclarant2()[i] = entier(COL_REVENU_2);
+        lot.getSituationsFamiliales()[i] = situation(COL_SITUATION);
+        lot.getNbEnfantsACharge()[i] = octet(COL_ENFANTS);
+        lot.getNbEnfantsSituationHandicap()[i] = octet(COL_ENFANTS_HANDICAP);
+        lot.getParentsIsoles()[i] = booleen(COL_PARENT_ISOLE);
+    }
+
+    private int entier(int champ) {
+        int debut = debutsChamps[champ];
+        int fin = finsChamps[champ];
+        boolean negatif = debut < fin && tampon[debut] == '-';
+        if (negatif) {
+            debut++;
+        }
+        if (debut == fin || fin - debut > MAX_CHIFFRES) {
+            throw erreur("entier attendu en colonne " + (champ + 1));
+        }
+        long valeur = 0;
+        for (int i = debut; i < fin; i++) {
+            int chiffre = tampon[i] - '0';
+            if (chiffre < 0 || chiffre > BASE - 1) {
+                throw erreur("entier attendu en colonne " + (champ + 1));
+            }
+            valeur = valeur * BASE + chiffre;
+        }
+        if (valeur > Integer.MAX_VALUE) {
+            throw erreur("entier trop grand en colonne " + (champ + 1));
+        }
+        return negatif ? (int) -valeur : (int) valeur;
+    }
+
+    private byte octet(int champ) {
+        int valeur = entier(champ);
+        if (valeur < Byte.MIN_VALUE || valeur > Byte.MAX_VALUE) {
+            throw erreur("valeur hors limites en colonne " + (champ + 1));
+        }
+        return (byte) valeur;
+    }
+
+    private byte situation(int champ) {
+        for (int s = 0; s < NOMS_SITUATIONS.length; s++) {
+            if (egal(champ, NOMS_SITUATIONS[s])) {
+                return (byte) s;
+            }
+        }
+        throw erreur("situation familiale inconnue en colonne " + (champ + 1));
+    }
+
+    private boolean booleen(int champ) {
+        if (egal(champ, VRAI)) {
+            return true;
+        }
+        if (egal(champ, FAUX)) {
+            return false;
+        }
+        throw erreur("booléen attendu en colonne " + (champ + 1));
+    }
+
+    private boolean egal(int champ, byte[] attendu) {
+        int debut = debutsChamps[champ];
+        if (finsChamps[champ] - debut != attendu.length) {
+            return false;
+        }
+        for (int i = 0; i < attendu.length; i++) {
+            if (tampon[debut + i] != attendu[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IllegalArgumentException erreur(String message) {
+        return new IllegalArgumentException("Ligne " + numeroLigne + " : " + message);
+    }
+
+    private static byte[][] octets(String... noms) {
+        byte[][] octets = new byte[noms.length][];
+        for (int i = 0; i < noms.length; i++) {
+            octets[i] = noms[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        return octets;
+    }
+
+    private static byte[][] nomsSituations() {
+        SituationFamiliale[] situations = SituationFamiliale.values();
+        String[] noms = new String[situations.length];
+        for (int i = 0; i < situations.length; i++) {
+            noms[i] = situations[i].name();
+        }
+        return octets(noms);
+    }
+}
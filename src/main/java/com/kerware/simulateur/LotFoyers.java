@@ -0,0 +1,54 @@
+package com.kerware.simulateur;
+
+/**
+ * Lot de foyers fiscaux stocké en colonnes de types primitifs.
+ * Les tableaux sont exposés sans copie pour éviter toute allocation pendant le calcul.
+ */
+public final class LotFoyers {
+
+    private final int[] revenusNetDeclarant1;
+    private final int[] revenusNetDeclarant2;
+    private final byte[] situationsFamiliales;
+    private final byte[] nbEnfantsACharge;
+    private final byte[] nbEnfantsSituationHandicap;
+    private final boolean[] parentsIsoles;
+
+    public LotFoyers(int capacite) {
+        this(new int[capacite], new int[capacite], new byte[capacite],
+                new byte[capacite], new byte[capacite], new boolean[capacite]);
+    }
+
+    /**
+     * @param sitFam ordinal de la {@link SituationFamiliale} de chaque foyer
+     */
+    public LotFoyers(int[] rn1, int[] rn2, byte[] sitFam, byte[] nbe, byte[] nbesh, boolean[] pi) {
+        int n = rn1.length;
+        if (rn2.length != n || sitFam.length != n || nbe.length != n || nbesh.length != n || pi.length != n) {
+            throw new IllegalArgumentException("Les colonnes du lot n'ont pas la même taille");
+        }
+        this.revenusNetDeclarant1 = rn1;
+        this.revenusNetDeclarant2 = rn2;
+        this.situationsFamiliales = sitFam;
+        this.nbEnfantsACharge = nbe;
+        this.nbEnfantsSituationHandicap = nbesh;
+        this.parentsIsoles = pi;
+    }
+
+    public int taille() { return revenusNetDeclarant1.length; }
+
+    public void definir(int i, int rn1, int rn2, SituationFamiliale sf, int nbe, int nbesh, boolean pi) {
+        revenusNetDeclarant1[i] = rn1;
+        revenusNetDeclarant2[i] = rn2;
+        situationsFamiliales[i] = (byte) sf.ordinal();
+        nbEnfantsACharge[i] = (byte) nbe;
+        nbEnfantsSituationHandicap[i] = (byte) nbesh;
+        parentsIsoles[i] = pi;
+    }
+
+    public int[] getRevenusNetDeclarant1() { return revenusNetDeclarant1; }
+    public int[] getRevenusNetDeclarant2() { return revenusNetDeclarant2; }
+    public byte[] getSituationsFamiliales() { return situationsFamiliales; }
+    public byte[] getNbEnfantsACharge() { return nbEnfantsACharge; }
+    public byte[] getNbEnfantsSituationHandicap() { return nbEnfantsSituationHandicap; }
+    public boolean[] getParentsIsoles() { return parentsIsoles; }
+}
@@ -0,0 +1,40 @@
+package com.kerware.simulateur;
+
+/**
+ * Résultats d'un lot de foyers, en colonnes de types primitifs alignées sur {@link LotFoyers}.
+ * Les tableaux sont alloués une fois et réutilisés d'un lot à l'autre.
+ */
+public final class LotResultats {
+
+    private final int[] impotsNets;
+    private final int[] revenusReference;
+    private final double[] nbParts;
+    private final int[] decotes;
+    private final int[] contribExceptionnelles;
+    private final int[] abattements;
+    private final int[] impotsAvantDecote;
+    // Plafonnement du quotient familial appliqué
+    private final boolean[] plafonnements;
+
+    public LotResultats(int capacite) {
+        this.impotsNets = new int[capacite];
+        this.revenusReference = new int[capacite];
+        this.nbParts = new double[capacite];
+        this.decotes = new int[capacite];
+        this.contribExceptionnelles = new int[capacite];
+        this.abattements = new int[capacite];
+        this.impotsAvantDecote = new int[capacite];
+        this.plafonnements = new boolean[capacite];
+    }
+
+    public int taille() { return impotsNets.length; }
+
+    public int[] getImpotsNets() { return impotsNets; }
+    public int[] getRevenusReference() { return revenusReference; }
+    public double[] getNbParts() { return nbParts; }
+    public int[] getDecotes() { return decotes; }
+    public int[] getContribExceptionnelles() { return contribExceptionnelles; }
+    public int[] getAbattements() { return abattements; }
+    public int[] getImpotsAvantDecote() { return impotsAvantDecote; }
+    public boolean[] getPlafonnements() { return plafonnements; }
+}
@@ -0,0 +1,13 @@
+package com.kerware.simulateur;
+
+/**
+ * Moteur utilisé par {@link AdaptateurSimulateur} pour calculer l'impôt.
+ */
+public enum ModeExecution {
+    // Calcul refactorisé uniquement
+    REFACTORISE,
+    // Calcul legacy uniquement
+    LEGACY,
+    // Calcul refactorisé, comparé au legacy sur un échantillon d'appels
+    COMPARAISON
+}
@@ -0,0 +1,35 @@
+package com.kerware.simulateur;
+
+/**
+ * Noyau de calcul d'un bloc de foyers : abattement, revenu fiscal de référence, barème progressif,
+ * plafonnement du quotient familial, décote et contribution exceptionnelle. Les parts, qui
+ * dépendent de branchements sur la famille, sont calculées avant le noyau.
+ *
+ * <p>Le noyau vectoriel, compilé à part avec le profil Maven {@code vector}, n'est chargé que
+ * si sa classe et le module {@code jdk.incubator.vector} sont présents ; sinon le noyau
+ * scalaire prend le relais. Les deux donnent exactement les résultats de {@link CalculateurImpot}.</p>
+ */
+interface NoyauLot {
+
+    String CLASSE_VECTORIELLE = "com.kerware.simulateur.NoyauLotVectoriel";
+
+    /**
+     * Calcule les {@code n} premiers foyers du bloc avec le barème du calculateur.
+     */
+    void calculer(CalculateurImpot calculateur, BlocNoyau bloc, int n);
+
+    default boolean isVectoriel() {
+        return false;
+    }
+
+    /**
+     * Noyau vectoriel s'il est disponible dans cette JVM, noyau scalaire sinon.
+     */
+    static NoyauLot charger() {
+        try {
+            return (NoyauLot) Class.forName(CLASSE_VECTORIELLE).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new NoyauLotScalaire();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.kerware.simulateur;
+
+/**
+ * Noyau de repli : les étapes de {@link CalculateurImpot}, foyer par foyer.
+ */
+final class NoyauLotScalaire implements NoyauLot {
+
+    @Override
+    public void calculer(CalculateurImpot calculateur, BlocNoyau bloc, int n) {
+        calculer(calculateur, bloc, 0, n);
+    }
+
+    /**
+     * Calcule les foyers d'indices {@code [debut, fin[} du bloc ; sert aussi à la fin de bloc
+     * du noyau vectoriel, plus courte qu'un vecteur.
+     */
+    static void calculer(CalculateurImpot calculateur, BlocNoyau bloc, int debut, int fin) {
+        for (int i = debut; i < fin; i++) {
+            int r1 = bloc.revenus1[i];
+            int r2 = bloc.revenus2[i];
+            SituationFamiliale sf = bloc.situations[i];
+            double nbPtsDecl = bloc.partsDeclarants[i];
+            double nbPts = bloc.parts[i];
+
+            double abt = calculateur.calculAbattement(r1, r2, sf);
+            double rFRef = calculateur.calculRevenuFiscal(r1, r2, abt);
+            double contrib = calculateur.calculContributionExceptionnelle(rFRef, sf);
+
+            double mImpDecl = calculateur.calculImpotDeclarants(rFRef, nbPtsDecl);
+            double mImp = calculateur.calculImpotFoyer(rFRef, nbPtsDecl, nbPts, mImpDecl);
+
+            double mImpAvantDecote = calculateur.appliquerPlafondQF(mImpDecl, mImp, nbPtsDecl, nbPts);
+            double decote = calculateur.calculDecote(mImpAvantDecote, nbPtsDecl);
+
+            bloc.revenusReference[i] = rFRef;
+            bloc.decotes[i] = decote;
+            bloc.contribExceptionnelles[i] = contrib;
+            bloc.impotsNets[i] = calculateur.calculImpotNet(mImpAvantDecote, decote, contrib);
+            bloc.abattements[i] = abt;
+            bloc.impotsAvantDecote[i] = mImpAvantDecote;
+            bloc.plafonnements[i] = calculateur.plafondAtteint(mImpDecl, mImp, nbPtsDecl, nbPts);
+        }
+    }
+}
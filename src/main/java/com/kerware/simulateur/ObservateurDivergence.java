@@ -0,0 +1,10 @@
+package com.kerware.simulateur;
+
+/**
+ * Reçoit chaque champ pour lequel le calcul legacy diffère du calcul refactorisé.
+ */
+@FunctionalInterface
+public interface ObservateurDivergence {
+
+    void divergence(FoyerFiscal foyer, String champ, double valeurLegacy, double valeurRefactorisee);
+}
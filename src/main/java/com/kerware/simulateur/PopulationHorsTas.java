@@ -0,0 +1,376 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Population de foyers et de leurs résultats stockée hors du tas, en colonnes, pour les
+ * microsimulations de plusieurs dizaines de millions de foyers.
+ *
+ * <p>Les foyers sont rangés par tronçons de {@value #FOYERS_PAR_TRONCON} foyers, le dernier réduit
+ * au reste de la capacité, chacun dans une zone mémoire directe allouée au premier ajout qui
+ * l'atteint. Dans un tronçon, chaque colonne
+ * (revenus, situation, enfants, parent isolé, puis impôt net, revenu fiscal de référence, parts,
+ * décote, contribution exceptionnelle, abattement, impôt avant décote et plafonnement du quotient
+ * familial) est contiguë : ce sont toutes les colonnes de {@link LotResultats}, ce qui permet
+ * d'alimenter des {@link StatistiquesLot} depuis une population. Sur le tas ne restent que les tableaux des
+ * tronçons et des positions de leurs colonnes : la mémoire du tas ne dépend pas de la taille de la population.</p>
+ *
+ * <p>{@link CalculateurImpotLot#calculer(PopulationHorsTas)} lit les foyers et écrit les résultats
+ * sur place. Les lots {@link LotFoyers} et {@link LotResultats} servent de tampons réutilisés pour
+ * ajouter depuis une {@link SourceFoyers} ou parcourir la population par morceaux.</p>
+ *
+ * <p>La capacité est fixée à la construction. Une instance n'est pas protégée contre les accès
+ * concurrents : les ajouts ne doivent pas être simultanés ni concurrents d'un calcul.</p>
+ */
+public final class PopulationHorsTas {
+
+    private static final int DECALAGE_TRONCON = 20;
+    static final int FOYERS_PAR_TRONCON = 1 << DECALAGE_TRONCON;
+    private static final int MASQUE_TRONCON = FOYERS_PAR_TRONCON - 1;
+
+    // "POPU"
+    static final int MAGIQUE = 0x55504F50;
+
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+
+    // --- Colonnes d'un tronçon : largeur en octets et position ---
+    private static final int[] LARGEURS = { Integer.BYTES, Integer.BYTES, 1, 1, 1, 1,
+        Integer.BYTES, Integer.BYTES, Double.BYTES, Integer.BYTES, Integer.BYTES, Integer.BYTES, Integer.BYTES, 1 };
+    private static final int COL_REVENU_1 = 0;
+    private static final int COL_REVENU_2 = 1;
+    private static final int COL_SITUATION = 2;
+    private static final int COL_ENFANTS = 3;
+    private static final int COL_ENFANTS_HANDICAP = 4;
+    private static final int COL_PARENT_ISOLE = 5;
+    private static final int COL_IMPOT = 6;
+    private static final int COL_REVENU_REFERENCE = 7;
+    private static final int COL_PARTS = 8;
+    private static final int COL_DECOTE = 9;
+    private static final int COL_CONTRIB_EXCEPTIONNELLE = 10;
+    private static final int COL_ABATTEMENT = 11;
+    private static final int COL_IMPOT_AVANT_DECOTE = 12;
+    private static final int COL_PLAFONNEMENT = 13;
+
+    static final int OCTETS_PAR_FOYER;
+    // Positions des colonnes d'un tronçon complet
+    private static final int[] POSITIONS_TRONCON_COMPLET;
+
+    static {
+        int octets = 0;
+        for (int largeur : LARGEURS) {
+            octets += largeur;
+        }
+        OCTETS_PAR_FOYER = octets;
+        POSITIONS_TRONCON_COMPLET = positions(FOYERS_PAR_TRONCON);
+    }
+
+    private final long capacite;
+    private final ByteBuffer[] troncons;
+    // Positions des colonnes de chaque tronçon : elles dépendent du nombre de foyers qu'il peut contenir
+    private final int[][] positions;
+    private long taille = 0;
+
+    /**
+     * @throws IllegalArgumentException si la capacité est négative ou demande plus de
+     *                                  {@link Integer#MAX_VALUE} tronçons
+     */
+    public PopulationHorsTas(long cap) {
+        if (cap < 0) {
+            throw new IllegalArgumentException("Capacité négative : " + cap);
+        }
+        long nbTroncons = (cap >>> DECALAGE_TRONCON) + ((cap & MASQUE_TRONCON) == 0 ? 0 : 1);
+        if (nbTroncons > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacité trop grande : " + cap);
+        }
+        this.capacite = cap;
+        this.troncons = new ByteBuffer[(int) nbTroncons];
+        this.positions = new int[(int) nbTroncons][];
+        for (int t = 0; t < positions.length; t++) {
+            int nb = foyersDuTroncon(t);
+            positions[t] = nb == FOYERS_PAR_TRONCON ? POSITIONS_TRONCON_COMPLET : positions(nb);
+        }
+    }
+
+    // Position de chaque colonne dans un tronçon de nb foyers : les colonnes précédentes le remplissent
+    private static int[] positions(int nb) {
+        int[] debuts = new int[LARGEURS.length];
+        int octets = 0;
+        for (int c = 0; c < LARGEURS.length; c++) {
+            debuts[c] = octets * nb;
+            octets += LARGEURS[c];
+        }
+        return debuts;
+    }
+
+    // Nombre de foyers que le tronçon t peut contenir : le dernier n'a que le reste de la capacité
+    private int foyersDuTroncon(int t) {
+        return (int) Math.min(FOYERS_PAR_TRONCON, capacite - ((long) t << DECALAGE_TRONCON));
+    }
+
+    private ByteBuffer allouer(int t) {
+        ByteBuffer troncon = ByteBuffer.allocateDirect(OCTETS_PAR_FOYER * foyersDuTroncon(t))
+                .order(FormatBinaire.ORDRE);
+        troncons[t] = troncon;
+        return troncon;
+    }
+
+    public long taille() { return taille; }
+    public long getCapacite() { return capacite; }
+
+    // Mémoire directe allouée, en octets
+    public long getOctetsHorsTas() {
+        long octets = 0;
+        for (ByteBuffer troncon : troncons) {
+            octets += troncon == null ? 0 : troncon.capacity();
+        }
+        return octets;
+    }
+
+    // --- Ajout ---
+
+    /**
+     * Ajoute un foyer ; ses résultats valent zéro jusqu'au calcul. Seul ce que les colonnes ne
+     * peuvent pas conserver est refusé à l'ajout, le reste du foyer n'est vérifié qu'au calcul.
+     *
+     * @throws IllegalArgumentException si la situation est absente ou un nombre d'enfants hors de [0, 127]
+     * @throws IllegalStateException    si la population est pleine
+     */
+    public void ajouter(int rn1, int rn2, SituationFamiliale sf, int nbe, int nbesh, boolean pi) {
+        if (sf == null) {
+            throw new IllegalArgumentException("Situation familiale absente");
+        }
+        if (nbe < 0 || nbe > Byte.MAX_VALUE || nbesh < 0 || nbesh > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Nombre d'enfants hors de [0, " + Byte.MAX_VALUE + "] : "
+                    + nbe + ", " + nbesh + " en situation de handicap");
+        }
+        if (taille == capacite) {
+            throw new IllegalStateException("Population pleine : " + capacite + " foyers");
+        }
+        long i = taille;
+        int t = (int) (i >>> DECALAGE_TRONCON);
+        ByteBuffer troncon = troncons[t];
+        if (troncon == null) {
+            troncon = allouer(t);
+        }
+        int[] pos = positions[t];
+        int j = (int) i & MASQUE_TRONCON;
+        troncon.putInt(pos[COL_REVENU_1] + j * Integer.BYTES, rn1);
+        troncon.putInt(pos[COL_REVENU_2] + j * Integer.BYTES, rn2);
+        troncon.put(pos[COL_SITUATION] + j, (byte) sf.ordinal());
+        troncon.put(pos[COL_ENFANTS] + j, (byte) nbe);
+        troncon.put(pos[COL_ENFANTS_HANDICAP] + j, (byte) nbesh);
+        troncon.put(pos[COL_PARENT_ISOLE] + j, (byte) (pi ? 1 : 0));
+        // Résultats nuls : un tronçon est rempli de zéros à son allocation et ses foyers ne sont jamais retirés
+        taille++;
+    }
+
+    /**
+     * Ajoute les foyers d'indices {@code [0, nb[} du lot.
+     *
+     * @throws IllegalStateException si la population ne peut pas les contenir tous
+     */
+    public void ajouter(LotFoyers lot, int nb) {
+        if (taille + nb > capacite) {
+            throw new IllegalStateException("Population pleine : " + capacite + " foyers");
+        }
+        for (int i = 0; i < nb; i++) {
+            byte sf = lot.getSituationsFamiliales()[i];
+            if (sf < 0 || sf >= SITUATIONS.length) {
+                throw new IllegalArgumentException("Foyer " + i + " : situation familiale inconnue " + sf);
+            }
+            ajouter(lot.getRevenusNetDeclarant1()[i], lot.getRevenusNetDeclarant2()[i], SITUATIONS[sf],
+                    lot.getNbEnfantsACharge()[i], lot.getNbEnfantsSituationHandicap()[i], lot.getParentsIsoles()[i]);
+        }
+    }
+
+    /**
+     * Ajoute tous les foyers restants de la source, lus par lots dans {@code tampon}.
+     *
+     * @return le nombre de foyers ajoutés
+     */
+    public long ajouter(SourceFoyers source, LotFoyers tampon) throws IOException {
+        long ajoutes = 0;
+        int n;
+        while ((n = source.lire(tampon)) > 0) {
+            ajouter(tampon, n);
+            ajoutes += n;
+        }
+        return ajoutes;
+    }
+
+    // --- Lecture par morceaux ---
+
+    /**
+     * Copie dans le lot les foyers à partir de l'indice {@code debut}.
+     *
+     * @return le nombre de foyers copiés, nul à la fin de la population
+     */
+    public int lireFoyers(long debut, LotFoyers lot) {
+        int n = (int) Math.min(lot.taille(), taille - verifierIndice(debut));
+        for (int k = 0; k < n; k++) {
+            long i = debut + k;
+            lot.definir(k, revenuNetDeclarant1(i), revenuNetDeclarant2(i), situationFamiliale(i),
+                    nbEnfantsACharge(i), nbEnfantsSituationHandicap(i), parentIsole(i));
+        }
+        return n;
+    }
+
+    /**
+     * Copie dans le lot les résultats à partir de l'indice {@code debut}.
+     *
+     * @return le nombre de résultats copiés, nul à la fin de la population
+     */
+    public int lireResultats(long debut, LotResultats resultats) {
+        int n = (int) Math.min(resultats.taille(), taille - verifierIndice(debut));
+        for (int k = 0; k < n; k++) {
+            long i = debut + k;
+            resultats.getImpotsNets()[k] = impotNet(i);
+            resultats.getRevenusReference()[k] = revenuReference(i);
+            resultats.getNbParts()[k] = nbParts(i);
+            resultats.getDecotes()[k] = decote(i);
+            resultats.getContribExceptionnelles()[k] = contribExceptionnelle(i);
+            resultats.getAbattements()[k] = abattement(i);
+            resultats.getImpotsAvantDecote()[k] = impotAvantDecote(i);
+            resultats.getPlafonnements()[k] = isPlafonne(i);
+        }
+        return n;
+    }
+
+    // --- Accès par foyer ---
+
+    public int revenuNetDeclarant1(long i) { return entier(i, COL_REVENU_1); }
+    public int revenuNetDeclarant2(long i) { return entier(i, COL_REVENU_2); }
+    public SituationFamiliale situationFamiliale(long i) { return SITUATIONS[ordinalSituation(i)]; }
+    public int nbEnfantsACharge(long i) { return octet(i, COL_ENFANTS); }
+    public int nbEnfantsSituationHandicap(long i) { return octet(i, COL_ENFANTS_HANDICAP); }
+    public boolean parentIsole(long i) { return octet(i, COL_PARENT_ISOLE) != 0; }
+
+    public int impotNet(long i) { return entier(i, COL_IMPOT); }
+    public int revenuReference(long i) { return entier(i, COL_REVENU_REFERENCE); }
+    public int decote(long i) { return entier(i, COL_DECOTE); }
+    public int contribExceptionnelle(long i) { return entier(i, COL_CONTRIB_EXCEPTIONNELLE); }
+    public int abattement(long i) { return entier(i, COL_ABATTEMENT); }
+    public int impotAvantDecote(long i) { return entier(i, COL_IMPOT_AVANT_DECOTE); }
+    public boolean isPlafonne(long i) { return octet(i, COL_PLAFONNEMENT) != 0; }
+
+    public double nbParts(long i) {
+        return troncon(i).getDouble(position(i, COL_PARTS) + ((int) i & MASQUE_TRONCON) * Double.BYTES);
+    }
+
+    // Ordinal brut, vérifié par le calcul
+    int ordinalSituation(long i) {
+        return octet(i, COL_SITUATION);
+    }
+
+    // Écrit les résultats des n premiers foyers du bloc aux indices [debut, debut + n[
+    void ecrireResultats(long debut, BlocNoyau bloc, int n) {
+        for (int k = 0; k < n; k++) {
+            long i = debut + k;
+            int t = (int) (i >>> DECALAGE_TRONCON);
+            ByteBuffer troncon = troncons[t];
+            int[] pos = positions[t];
+            int j = (int) i & MASQUE_TRONCON;
+            troncon.putInt(pos[COL_IMPOT] + j * Integer.BYTES, (int) bloc.impotsNets[k]);
+            troncon.putInt(pos[COL_REVENU_REFERENCE] + j * Integer.BYTES, (int) bloc.revenusReference[k]);
+            troncon.putDouble(pos[COL_PARTS] + j * Double.BYTES, bloc.parts[k]);
+            troncon.putInt(pos[COL_DECOTE] + j * Integer.BYTES, (int) bloc.decotes[k]);
+            troncon.putInt(pos[COL_CONTRIB_EXCEPTIONNELLE] + j * Integer.BYTES,
+                    (int) bloc.contribExceptionnelles[k]);
+            troncon.putInt(pos[COL_ABATTEMENT] + j * Integer.BYTES, (int) bloc.abattements[k]);
+            troncon.putInt(pos[COL_IMPOT_AVANT_DECOTE] + j * Integer.BYTES, (int) bloc.impotsAvantDecote[k]);
+            troncon.put(pos[COL_PLAFONNEMENT] + j, (byte) (bloc.plafonnements[k] ? 1 : 0));
+        }
+    }
+
+    private int entier(long i, int colonne) {
+        return troncon(i).getInt(position(i, colonne) + ((int) i & MASQUE_TRONCON) * Integer.BYTES);
+    }
+
+    private int octet(long i, int colonne) {
+        return troncon(i).get(position(i, colonne) + ((int) i & MASQUE_TRONCON));
+    }
+
+    // Début de la colonne dans le tronçon du foyer i, déjà vérifié par troncon(i)
+    private int position(long i, int colonne) {
+        return positions[(int) (i >>> DECALAGE_TRONCON)][colonne];
+    }
+
+    private ByteBuffer troncon(long i) {
+        if (i < 0 || i >= taille) {
+            throw new IndexOutOfBoundsException("Foyer " + i + " hors de la population de " + taille + " foyers");
+        }
+        return troncons[(int) (i >>> DECALAGE_TRONCON)];
+    }
+
+    private long verifierIndice(long debut) {
+        if (debut < 0 || debut > taille) {
+            throw new IndexOutOfBoundsException("Indice " + debut + " hors de la population de " + taille + " foyers");
+        }
+        return debut;
+    }
+
+    // --- Persistance ---
+
+    /**
+     * Écrit la population, foyers et résultats : en-tête {@link FormatBinaire} puis, tronçon par
+     * tronçon, chaque colonne limitée aux foyers présents. Les zones directes sont écrites telles
+     * quelles, sans copie sur le tas.
+     */
+    public void sauvegarder(Path fichier) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            FormatBinaire.ecrireEnTete(canal, MAGIQUE, taille);
+            canal.position(FormatBinaire.TAILLE_EN_TETE);
+            transferer(canal, true);
+        }
+    }
+
+    public static PopulationHorsTas charger(Path fichier) throws IOException {
+        return charger(fichier, -1);
+    }
+
+    /**
+     * Relit une population sauvegardée, dans une population de capacité {@code cap}
+     * (le nombre de foyers du fichier si {@code cap} est négative).
+     *
+     * @throws IllegalArgumentException si le fichier n'est pas une population valide ou dépasse la capacité
+     */
+    public static PopulationHorsTas charger(Path fichier, long cap) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            long nombre = FormatBinaire.lireEnTete(canal, MAGIQUE, OCTETS_PAR_FOYER);
+            if (cap >= 0 && nombre > cap) {
+                throw new IllegalArgumentException(nombre + " foyers au-delà de la capacité " + cap);
+            }
+            PopulationHorsTas population = new PopulationHorsTas(cap < 0 ? nombre : cap);
+            population.taille = nombre;
+            for (int t = 0; (long) t * FOYERS_PAR_TRONCON < nombre; t++) {
+                population.allouer(t);
+            }
+            canal.position(FormatBinaire.TAILLE_EN_TETE);
+            population.transferer(canal, false);
+            return population;
+        }
+    }
+
+    // Écrit ou lit chaque colonne de chaque tronçon, limitée aux foyers présents
+    private void transferer(FileChannel canal, boolean ecriture) throws IOException {
+        for (int t = 0; (long) t * FOYERS_PAR_TRONCON < taille; t++) {
+            int nb = (int) Math.min(FOYERS_PAR_TRONCON, taille - (long) t * FOYERS_PAR_TRONCON);
+            for (int c = 0; c < LARGEURS.length; c++) {
+                ByteBuffer colonne = troncons[t].duplicate();
+                colonne.limit(positions[t][c] + nb * LARGEURS[c]).position(positions[t][c]);
+                while (colonne.hasRemaining()) {
+                    if (ecriture) {
+                        canal.write(colonne);
+                    } else if (canal.read(colonne) < 0) {
+                        throw new IllegalArgumentException("Population tronquée");
+                    }
+                }
+            }
+        }
+    }
+}
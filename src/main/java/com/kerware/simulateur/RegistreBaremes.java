@@ -0,0 +1,63 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Barème en vigueur, remplaçable à chaud.
+ *
+ * <p>Un nouveau barème est lu et compilé hors de tout verrou, puis publié par un simple échange
+ * de référence. Un calcul récupère le {@link CalculateurImpot} courant une seule fois et le garde
+ * jusqu'au bout : il n'est jamais interrompu ni ralenti par un rechargement.</p>
+ */
+public final class RegistreBaremes {
+
+    private static final RegistreBaremes GLOBAL = new RegistreBaremes(new CalculateurImpot());
+
+    private final AtomicReference<CalculateurImpot> courant;
+
+    public RegistreBaremes(CalculateurImpot initial) {
+        this.courant = new AtomicReference<>(initial);
+    }
+
+    /**
+     * Registre utilisé par défaut par les simulateurs, initialisé avec le barème
+     * de {@link CalculateurImpot#ANNEE_PAR_DEFAUT}.
+     */
+    public static RegistreBaremes global() {
+        return GLOBAL;
+    }
+
+    public CalculateurImpot calculateur() {
+        return courant.get();
+    }
+
+    public Bareme bareme() {
+        return courant.get().getBareme();
+    }
+
+    /**
+     * Compile puis publie un barème.
+     *
+     * @return le calculateur remplacé
+     * @throws IllegalArgumentException si le barème est invalide ; le barème courant est alors conservé
+     */
+    public CalculateurImpot publier(Bareme bareme) {
+        return courant.getAndSet(new CalculateurImpot(bareme));
+    }
+
+    /**
+     * Publie le barème livré pour l'année demandée.
+     */
+    public CalculateurImpot recharger(int annee) {
+        return publier(Bareme.charger(annee));
+    }
+
+    /**
+     * Publie le barème décrit par un fichier externe.
+     */
+    public CalculateurImpot recharger(Path fichier) throws IOException {
+        return publier(Bareme.charger(fichier));
+    }
+}
@@ -0,0 +1,145 @@
+package com.kerware.simulateur;
+
+import java.util.Arrays;
+
+/**
+ * Répartition des revenus nets entre les deux déclarants d'un couple marié ou pacsé.
+ *
+ * <p>Pour un total donné, seul l'abattement dépend de la répartition : l'impôt est une fonction
+ * croissante du revenu fiscal de référence, il est donc minimal quand la somme des deux abattements
+ * est maximale. Chaque abattement est constant, proportionnel puis constant ; leur somme n'a que
+ * quelques points de rupture, et entre deux ruptures les arrondis se répètent tous les 10 euros.
+ * Il suffit donc d'examiner les répartitions voisines des ruptures et des extrémités.</p>
+ */
+public final class RepartitionRevenus {
+
+    /**
+     * Répartition des revenus, abattement total et impôt net correspondants.
+     */
+    public record Repartition(int revenuNetDeclarant1, int revenuNetDeclarant2, double abattement, int impot) { }
+
+    // Demi-largeur du voisinage examiné autour d'une rupture : deux périodes d'arrondi
+    private static final int VOISINAGE = 20;
+
+    private RepartitionRevenus() {
+    }
+
+    public static Repartition optimiser(FoyerFiscal foyer) {
+        return optimiser(RegistreBaremes.global().calculateur(), foyer);
+    }
+
+    /**
+     * Répartition du total des revenus nets du foyer qui minimise l'impôt ; à impôt égal, celle
+     * dont l'abattement est le plus élevé puis le revenu du premier déclarant le plus faible.
+     *
+     * @throws IllegalArgumentException si le foyer est invalide ou n'est pas un couple
+     */
+    public static Repartition optimiser(CalculateurImpot calculateur, FoyerFiscal foyer) {
+        Couple couple = new Couple(calculateur, foyer);
+        int total = couple.total;
+        int seuilProportionnel = premierRevenuDuRegime(calculateur, 0);
+        int seuilPlafond = premierRevenuDuRegime(calculateur, 1);
+        int[] ruptures = { 0, total, seuilProportionnel, seuilPlafond,
+            total - seuilProportionnel, total - seuilPlafond };
+
+        int meilleur = -1;
+        double abattementMax = -1;
+        for (int rupture : ruptures) {
+            int de = (int) Math.max(0, (long) rupture - VOISINAGE);
+            int a = (int) Math.min(total, (long) rupture + VOISINAGE);
+            for (int r1 = de; r1 <= a; r1++) {
+                double abt = couple.abattement(r1);
+                if (abt > abattementMax || abt == abattementMax && r1 < meilleur) {
+                    abattementMax = abt;
+                    meilleur = r1;
+                }
+            }
+        }
+        return new Repartition(meilleur, total - meilleur, abattementMax, couple.impot(abattementMax));
+    }
+
+    public static int[] impotsParRepartition(FoyerFiscal foyer) {
+        return impotsParRepartition(RegistreBaremes.global().calculateur(), foyer);
+    }
+
+    /**
+     * Impôt net de chaque répartition du total des revenus nets du foyer, indexé par le revenu
+     * du premier déclarant. L'impôt n'est calculé qu'une fois par abattement total distinct.
+     *
+     * @throws IllegalArgumentException si le foyer est invalide ou n'est pas un couple
+     */
+    public static int[] impotsParRepartition(CalculateurImpot calculateur, FoyerFiscal foyer) {
+        Couple couple = new Couple(calculateur, foyer);
+        double abattementMin = calculateur.calculAbattement(0, 0, foyer.situationFamiliale());
+        double abattementMax = calculateur.calculAbattement(Integer.MAX_VALUE, Integer.MAX_VALUE,
+                foyer.situationFamiliale());
+        int[] parAbattement = new int[(int) (abattementMax - abattementMin) + 1];
+        Arrays.fill(parAbattement, -1);
+
+        int[] impots = new int[couple.total + 1];
+        for (int r1 = 0; r1 <= couple.total; r1++) {
+            double abt = couple.abattement(r1);
+            int i = (int) (abt - abattementMin);
+            if (parAbattement[i] < 0) {
+                parAbattement[i] = couple.impot(abt);
+            }
+            impots[r1] = parAbattement[i];
+        }
+        return impots;
+    }
+
+    // Premier revenu dont l'abattement atteint le régime donné (0 proportionnel, 1 plafonné)
+    private static int premierRevenuDuRegime(CalculateurImpot calculateur, int regime) {
+        int bas = 0;
+        int haut = Integer.MAX_VALUE;
+        while (bas < haut) {
+            int milieu = (int) (((long) bas + haut) / 2);
+            if (calculateur.regimeAbattement(milieu) >= regime) {
+                haut = milieu;
+            } else {
+                bas = milieu + 1;
+            }
+        }
+        return bas;
+    }
+
+    /**
+     * Données communes à toutes les répartitions d'un couple : total, situation et parts.
+     */
+    private static final class Couple {
+
+        private final CalculateurImpot calculateur;
+        private final int total;
+        private final SituationFamiliale sf;
+        private final double nbPtsDecl;
+        private final double nbPts;
+
+        Couple(CalculateurImpot calc, FoyerFiscal foyer) {
+            CalculateurImpot.verifierParametres(foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(),
+                    foyer.situationFamiliale(), foyer.nbEnfantsACharge(), foyer.nbEnfantsSituationHandicap(),
+                    foyer.parentIsole());
+            if (!foyer.situationFamiliale().isMarried()) {
+                throw new IllegalArgumentException("Répartition des revenus réservée aux couples mariés ou pacsés");
+            }
+            long somme = (long) foyer.revenuNetDeclarant1() + foyer.revenuNetDeclarant2();
+            if (somme > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Total des revenus trop élevé : " + somme);
+            }
+            this.calculateur = calc;
+            this.total = (int) somme;
+            this.sf = foyer.situationFamiliale();
+            this.nbPtsDecl = calc.calculPartsDeclarants(sf);
+            this.nbPts = calc.calculPartsFiscales(sf, foyer.nbEnfantsACharge(), foyer.nbEnfantsSituationHandicap(),
+                    false);
+        }
+
+        double abattement(int r1) {
+            return calculateur.calculAbattement(r1, total - r1, sf);
+        }
+
+        int impot(double abt) {
+            double rFRef = calculateur.calculRevenuFiscal(total, 0, abt);
+            return (int) calculateur.calculImpotNet(rFRef, sf, nbPtsDecl, nbPts);
+        }
+    }
+}
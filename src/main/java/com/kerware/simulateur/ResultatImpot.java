@@ -0,0 +1,18 @@
+package com.kerware.simulateur;
+
+/**
+ * Résultat immuable d'un calcul d'impôt : le foyer calculé et toutes les valeurs intermédiaires.
+ * Le taux marginal est celui de la tranche atteinte par le revenu d'une part du foyer.
+ */
+public record ResultatImpot(FoyerFiscal foyer, double abattement, double revenuReference,
+                            double nbPartsDeclarants, double nbParts, double impotDeclarants,
+                            double impotAvantDecote, double decote, double contribExceptionnelle,
+                            double impotNet, double tauxMarginal) {
+
+    // Résultat exposé avant tout calcul
+    static final ResultatImpot VIDE = new ResultatImpot(
+            new FoyerFiscal(0, 0, null, 0, 0, false), 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    public int revenuNetDeclarant1() { return foyer.revenuNetDeclarant1(); }
+    public int revenuNetDeclarant2() { return foyer.revenuNetDeclarant2(); }
+}
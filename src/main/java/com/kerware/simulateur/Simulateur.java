@@ -25,48 +25,45 @@ public class Simulateur {
 
 
     // Les limites des tranches de revenus imposables
-    private int l00 = 0 ;
-    private int l01 = 11294;
-    private int l02 = 28797;
-    private int l03 = 82341;
-    private int l04 = 177106;
-    private int l05 = Integer.MAX_VALUE;
-
-    private int[] limites = new int[6];
+    private static final int L00 = 0 ;
+    private static final int L01 = 11294;
+    private static final int L02 = 28797;
+    private static final int L03 = 82341;
+    private static final int L04 = 177106;
+    private static final int L05 = Integer.MAX_VALUE;
 
     // Les taux d'imposition par tranche
-    private double t00 = 0.0;
-    private double t01 = 0.11;
-    private double t02 = 0.3;
-    private double t03 = 0.41;
-    private double t04 = 0.45;
-
-    private double[] taux = new double[5];
+    private static final double T00 = 0.0;
+    private static final double T01 = 0.11;
+    private static final double T02 = 0.3;
+    private static final double T03 = 0.41;
+    private static final double T04 = 0.45;
 
     // Les limites des tranches pour la contribution exceptionnelle sur les hauts revenus
-    private int lce00 = 0;
-    private int lce01 = 250000;
-    private int lce02 = 500000;
-    private int lce03 = 1000000;
-    private int lce04 = Integer.MAX_VALUE;
-
-    private int[] limitesCEHR = new int[5];
+    private static final int LCE00 = 0;
+    private static final int LCE01 = 250000;
+    private static final int LCE02 = 500000;
+    private static final int LCE03 = 1000000;
+    private static final int LCE04 = Integer.MAX_VALUE;
 
     // Les taux de la contribution exceptionnelle sur les hauts revenus pour les celibataires
-    private double tce00 = 0.0;
-    private double tce01 = 0.03;
-    private double tce02 = 0.04;
-    private double tce03 = 0.04;
-
-    private double[] tauxCEHRCelibataire = new double[4];
+    private static final double TCE00 = 0.0;
+    private static final double TCE01 = 0.03;
+    private static final double TCE02 = 0.04;
+    private static final double TCE03 = 0.04;
 
     // Les taux de la contribution exceptionnelle sur les hauts revenus pour les couples
-    private double tce00C = 0.0;
-    private double tce01C = 0.0;
-    private double tce02C = 0.03;
-    private double tce03C = 0.04;
-
-    private double[] tauxCEHRCouple = new double[4];
+    private static final double TCE00C = 0.0;
+    private static final double TCE01C = 0.0;
+    private static final double TCE02C = 0.03;
+    private static final double TCE03C = 0.04;
+
+    // Tables construites une seule fois, jamais modifiées
+    private static final int[] LIMITES = { L00, L01, L02, L03, L04, L05 };
+    private static final double[] TAUX = { T00, T01, T02, T03, T04 };
+    private static final int[] LIMITES_CEHR = { LCE00, LCE01, LCE02, LCE03, LCE04 };
+    private static final double[] TAUX_CEHR_CELIBATAIRE = { TCE00, TCE01, TCE02, TCE03 };
+    private static final double[] TAUX_CEHR_COUPLE = { TCE00C, TCE01C, TCE02C, TCE03C };
 
     // Abattement
     private  int lAbtMax = 14171;
@@ -117,6 +114,13 @@ public class Simulateur {
     // Contribution exceptionnelle sur les hauts revenus
     private double contribExceptionnelle = 0;
 
+    // Trace du calcul, désactivée par défaut
+    private TraceCalcul trace = TraceCalcul.AUCUNE;
+
+    public void setTrace( TraceCalcul traceCalcul ) {
+        trace = traceCalcul == null ? TraceCalcul.AUCUNE : traceCalcul;
+    }
+
     // Getters pour adapter le code legacy pour les tests unitaires
 
     public double getRevenuReference() {
@@ -136,6 +140,14 @@ public class Simulateur {
         return nbPts;
     }
 
+    public double getNbPartsDeclarants() {
+        return nbPtsDecl;
+    }
+
+    public double getImpotDeclarants() {
+        return mImpDecl;
+    }
+
     public double getImpotAvantDecote() {
         return mImpAvantDecote;
     }
@@ -204,39 +216,10 @@ public class Simulateur {
         nbEnfH = nbEnfantsHandicapes;
         parIso = parentIsol;
 
-        limites[0] = l00;
-        limites[1] = l01;
-        limites[2] = l02;
-        limites[3] = l03;
-        limites[4] = l04;
-        limites[5] = l05;
-
-        taux[0] = t00;
-        taux[1] = t01;
-        taux[2] = t02;
-        taux[3] = t03;
-        taux[4] = t04;
-
-        limitesCEHR[0] = lce00;
-        limitesCEHR[1] = lce01;
-        limitesCEHR[2] = lce02;
-        limitesCEHR[3] = lce03;
-        limitesCEHR[4] = lce04;
-
-        tauxCEHRCelibataire[0] = tce00;
-        tauxCEHRCelibataire[1] = tce01;
-        tauxCEHRCelibataire[2] = tce02;
-        tauxCEHRCelibataire[3] = tce03;
-
-        tauxCEHRCouple[0] = tce00C;
-        tauxCEHRCouple[1] = tce01C;
-        tauxCEHRCouple[2] = tce02C;
-        tauxCEHRCouple[3] = tce03C;
-
-        System.out.println("--------------------------------------------------");
-        System.out.println( "Revenu net declarant1 : " + rNetDecl1 );
-        System.out.println( "Revenu net declarant2 : " + rNetDecl2 );
-        System.out.println( "Situation familiale : " + sitFam.name() );
+        trace.debut();
+        trace.etape( "Revenu net declarant1", rNetDecl1 );
+        trace.etape( "Revenu net declarant2", rNetDecl2 );
+        trace.etape( "Situation familiale", sitFam.name() );
 
         // Abattement
         // EXIGENCE : EXG_IMPOT_02
@@ -263,14 +246,14 @@ public class Simulateur {
         }
 
         abt = abt1 + abt2;
-        System.out.println( "Abattement : " + abt );
+        trace.etape( "Abattement", abt );
 
         rFRef = rNetDecl1 + revNetDecl2 - abt;
         if ( rFRef < 0 ) {
             rFRef = 0;
         }
 
-        System.out.println( "Revenu fiscal de référence : " + rFRef );
+        trace.etape( "Revenu fiscal de référence", rFRef );
 
 
         // parts déclarants
@@ -293,8 +276,8 @@ public class Simulateur {
                 break;
         }
 
-        System.out.println( "Nombre d'enfants  : " + nbEnf );
-        System.out.println( "Nombre d'enfants handicapés : " + nbEnfH );
+        trace.etape( "Nombre d'enfants", nbEnf );
+        trace.etape( "Nombre d'enfants handicapés", nbEnfH );
 
         // parts enfants à charge
         if ( nbEnf <= 2 ) {
@@ -305,7 +288,7 @@ public class Simulateur {
 
         // parent isolé
 
-        System.out.println( "Parent isolé : " + parIso );
+        trace.etape( "Parent isolé", parIso );
 
         if ( parIso ) {
             if ( nbEnf > 0 ){
@@ -321,32 +304,32 @@ public class Simulateur {
         // enfant handicapé
         nbPts = nbPts + nbEnfH * 0.5;
 
-        System.out.println( "Nombre de parts : " + nbPts );
+        trace.etape( "Nombre de parts", nbPts );
 
         // EXIGENCE : EXG_IMPOT_07:
         // Contribution exceptionnelle sur les hauts revenus
         contribExceptionnelle = 0;
         int i = 0;
         do {
-            if ( rFRef >= limitesCEHR[i] && rFRef < limitesCEHR[i+1] ) {
+            if ( rFRef >= LIMITES_CEHR[i] && rFRef < LIMITES_CEHR[i+1] ) {
                 if ( nbPtsDecl == 1 ) {
-                    contribExceptionnelle += ( rFRef - limitesCEHR[i] ) * tauxCEHRCelibataire[i];
+                    contribExceptionnelle += ( rFRef - LIMITES_CEHR[i] ) * TAUX_CEHR_CELIBATAIRE[i];
                 } else {
-                    contribExceptionnelle += ( rFRef - limitesCEHR[i] ) * tauxCEHRCouple[i];
+                    contribExceptionnelle += ( rFRef - LIMITES_CEHR[i] ) * TAUX_CEHR_COUPLE[i];
                 }
                 break;
             } else {
                 if ( nbPtsDecl == 1 ) {
-                    contribExceptionnelle += ( limitesCEHR[i+1] - limitesCEHR[i] ) * tauxCEHRCelibataire[i];
+                    contribExceptionnelle += ( LIMITES_CEHR[i+1] - LIMITES_CEHR[i] ) * TAUX_CEHR_CELIBATAIRE[i];
                 } else {
-                    contribExceptionnelle += ( limitesCEHR[i+1] - limitesCEHR[i] ) * tauxCEHRCouple[i];
+                    contribExceptionnelle += ( LIMITES_CEHR[i+1] - LIMITES_CEHR[i] ) * TAUX_CEHR_COUPLE[i];
                 }
             }
             i++;
         } while( i < 5);
 
         contribExceptionnelle = Math.round( contribExceptionnelle );
-        System.out.println( "Contribution exceptionnelle sur les hauts revenus : " + contribExceptionnelle );
+        trace.etape( "Contribution exceptionnelle sur les hauts revenus", contribExceptionnelle );
 
         // Calcul impôt des declarants
         // EXIGENCE : EXG_IMPOT_04
@@ -356,11 +339,11 @@ public class Simulateur {
 
         i = 0;
         do {
-            if ( rImposable >= limites[i] && rImposable < limites[i+1] ) {
-                mImpDecl += ( rImposable - limites[i] ) * taux[i];
+            if ( rImposable >= LIMITES[i] && rImposable < LIMITES[i+1] ) {
+                mImpDecl += ( rImposable - LIMITES[i] ) * TAUX[i];
                 break;
             } else {
-                mImpDecl += ( limites[i+1] - limites[i] ) * taux[i];
+                mImpDecl += ( LIMITES[i+1] - LIMITES[i] ) * TAUX[i];
             }
             i++;
         } while( i < 5);
@@ -368,7 +351,7 @@ public class Simulateur {
         mImpDecl = mImpDecl * nbPtsDecl;
         mImpDecl = Math.round( mImpDecl );
 
-        System.out.println( "Impôt brut des déclarants : " + mImpDecl );
+        trace.etape( "Impôt brut des déclarants", mImpDecl );
 
         // Calcul impôt foyer fiscal complet
         // EXIGENCE : EXG_IMPOT_04
@@ -377,11 +360,11 @@ public class Simulateur {
         i = 0;
 
         do {
-            if ( rImposable >= limites[i] && rImposable < limites[i+1] ) {
-                mImp += ( rImposable - limites[i] ) * taux[i];
+            if ( rImposable >= LIMITES[i] && rImposable < LIMITES[i+1] ) {
+                mImp += ( rImposable - LIMITES[i] ) * TAUX[i];
                 break;
             } else {
-                mImp += ( limites[i+1] - limites[i] ) * taux[i];
+                mImp += ( LIMITES[i+1] - LIMITES[i] ) * TAUX[i];
             }
             i++;
         } while( i < 5);
@@ -389,7 +372,7 @@ public class Simulateur {
         mImp = mImp * nbPts;
         mImp = Math.round( mImp );
 
-        System.out.println( "Impôt brut du foyer fiscal complet : " + mImp );
+        trace.etape( "Impôt brut du foyer fiscal complet", mImp );
 
         // Vérification de la baisse d'impôt autorisée
         // EXIGENCE : EXG_IMPOT_05
@@ -397,20 +380,20 @@ public class Simulateur {
 
         double baisseImpot = mImpDecl - mImp;
 
-        System.out.println( "Baisse d'impôt : " + baisseImpot );
+        trace.etape( "Baisse d'impôt", baisseImpot );
 
         // dépassement plafond
         double ecartPts = nbPts - nbPtsDecl;
 
         double plafond = (ecartPts / 0.5) * plafDemiPart;
 
-        System.out.println( "Plafond de baisse autorisée " + plafond );
+        trace.etape( "Plafond de baisse autorisée", plafond );
 
         if ( baisseImpot >= plafond ) {
             mImp = mImpDecl - plafond;
         }
 
-        System.out.println( "Impôt brut après plafonnement avant decote : " + mImp );
+        trace.etape( "Impôt brut après plafonnement avant decote", mImp );
         mImpAvantDecote = mImp;
 
         // Calcul de la decote
@@ -434,7 +417,7 @@ public class Simulateur {
             decote = mImp;
         }
 
-        System.out.println( "Decote : " + decote );
+        trace.etape( "Decote", decote );
 
         mImp = mImp - decote;
 
@@ -442,7 +425,7 @@ public class Simulateur {
 
         mImp = Math.round( mImp );
 
-        System.out.println( "Impôt sur le revenu net final : " + mImp );
+        trace.etape( "Impôt sur le revenu net final", mImp );
         return  (int)mImp;
     }
 
@@ -0,0 +1,17 @@
+package com.kerware.simulateur;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source séquentielle de foyers lue par lots, quel que soit le format du fichier.
+ */
+public interface SourceFoyers extends Closeable {
+
+    /**
+     * Remplit le lot à partir de l'indice 0 avec les foyers suivants.
+     *
+     * @return le nombre de foyers lus, 0 à la fin de la source
+     */
+    int lire(LotFoyers lot) throws IOException;
+}
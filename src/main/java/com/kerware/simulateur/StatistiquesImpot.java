@@ -0,0 +1,93 @@
+package com.kerware.simulateur;
+
+/**
+ * Statistiques d'un ensemble de foyers calculés, mises à jour foyer par foyer en mémoire
+ * constante : sommes, effectifs des foyers concernés par la décote, le plafonnement du quotient
+ * familial ou la contribution exceptionnelle, et histogramme du taux effectif d'imposition.
+ *
+ * <p>Le taux effectif d'un foyer est son impôt net rapporté à ses revenus nets déclarés, nul
+ * sans revenu. Son histogramme compte {@value #NB_CLASSES_TAUX} classes sur [0, 1[ : les
+ * quantiles sont exacts à un dixième de point près.</p>
+ */
+public final class StatistiquesImpot {
+
+    static final int NB_CLASSES_TAUX = 1_000;
+
+    private long nbFoyers;
+    private long sommeRevenus;
+    private long sommeRevenusReference;
+    private long sommeImpots;
+    private long sommeDecotes;
+    private long sommeContributions;
+    private long nbDecotes;
+    private long nbPlafonnements;
+    private long nbContributions;
+    private final Histogramme tauxEffectifs = new Histogramme(0, 1, NB_CLASSES_TAUX);
+
+    /**
+     * @param revenu revenus nets déclarés du foyer
+     */
+    public void ajouter(long revenu, int revenuReference, int impot, int decote, int contrib, boolean plafonne) {
+        nbFoyers++;
+        sommeRevenus += revenu;
+        sommeRevenusReference += revenuReference;
+        sommeImpots += impot;
+        sommeDecotes += decote;
+        sommeContributions += contrib;
+        nbDecotes += decote > 0 ? 1 : 0;
+        nbPlafonnements += plafonne ? 1 : 0;
+        nbContributions += contrib > 0 ? 1 : 0;
+        tauxEffectifs.ajouter(revenu > 0 ? (double) impot / revenu : 0);
+    }
+
+    public void fusionner(StatistiquesImpot autre) {
+        nbFoyers += autre.nbFoyers;
+        sommeRevenus += autre.sommeRevenus;
+        sommeRevenusReference += autre.sommeRevenusReference;
+        sommeImpots += autre.sommeImpots;
+        sommeDecotes += autre.sommeDecotes;
+        sommeContributions += autre.sommeContributions;
+        nbDecotes += autre.nbDecotes;
+        nbPlafonnements += autre.nbPlafonnements;
+        nbContributions += autre.nbContributions;
+        tauxEffectifs.fusionner(autre.tauxEffectifs);
+    }
+
+    // --- Sommes et effectifs ---
+
+    public long getNbFoyers() { return nbFoyers; }
+    public long getSommeRevenus() { return sommeRevenus; }
+    public long getSommeRevenusReference() { return sommeRevenusReference; }
+    public long getSommeImpots() { return sommeImpots; }
+    public long getSommeDecotes() { return sommeDecotes; }
+    public long getSommeContributions() { return sommeContributions; }
+    public long getNbDecotes() { return nbDecotes; }
+    public long getNbPlafonnements() { return nbPlafonnements; }
+    public long getNbContributions() { return nbContributions; }
+
+    // --- Moyennes et quantiles ---
+
+    public double impotMoyen() {
+        return nbFoyers == 0 ? Double.NaN : (double) sommeImpots / nbFoyers;
+    }
+
+    /**
+     * Taux effectif moyen pondéré par les revenus : impôts totaux rapportés aux revenus totaux.
+     */
+    public double tauxEffectifMoyen() {
+        return sommeRevenus == 0 ? Double.NaN : (double) sommeImpots / sommeRevenus;
+    }
+
+    /**
+     * Quantile {@code q} du taux effectif des foyers, NaN sans foyer.
+     */
+    public double quantileTauxEffectif(double q) {
+        return tauxEffectifs.quantile(q);
+    }
+
+    public Histogramme getTauxEffectifs() {
+        Histogramme copie = new Histogramme(0, 1, NB_CLASSES_TAUX);
+        copie.fusionner(tauxEffectifs);
+        return copie;
+    }
+}
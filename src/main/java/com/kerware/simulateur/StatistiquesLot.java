@@ -0,0 +1,117 @@
+package com.kerware.simulateur;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistiques de résultats de lots, regroupées par situation familiale et nombre de parts,
+ * alimentées au fil du calcul sans conserver les résultats par foyer.
+ *
+ * <p>Une instance n'est pas protégée contre les accès concurrents : chaque thread alimente la
+ * sienne, puis les instances sont réunies par {@link #fusionner(StatistiquesLot)} ; voir
+ * {@link CalculateurImpotParallele#calculerAvecStatistiques(LotFoyers, LotResultats)}. Un calcul
+ * séquentiel ou en flux les alimente lot par lot, les résultats par foyer n'étant conservés que
+ * dans un lot réutilisé : voir
+ * {@link CalculateurImpotLot#calculerAvecStatistiques(SourceFoyers, LotFoyers, LotResultats)}.</p>
+ */
+public final class StatistiquesLot {
+
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+
+    // Parts maximales : veuf parent isolé avec 7 enfants handicapés
+    static final int PARTS_MAX = 12;
+    private static final int DEMI_PARTS_PAR_PART = 2;
+
+    /**
+     * Groupe de foyers de même situation familiale et de même nombre de parts.
+     */
+    public record Groupe(SituationFamiliale situation, double nbParts) { }
+
+    // Statistiques par situation puis par nombre de demi-parts, créées au premier foyer du groupe
+    private final StatistiquesImpot[][] groupes =
+            new StatistiquesImpot[SITUATIONS.length][PARTS_MAX * DEMI_PARTS_PAR_PART + 1];
+
+    /**
+     * Ajoute les résultats des foyers d'indices {@code [debut, fin[}, calculés par {@link CalculateurImpotLot}.
+     */
+    public void ajouter(LotFoyers foyers, LotResultats resultats, int debut, int fin) {
+        int[] rn1 = foyers.getRevenusNetDeclarant1();
+        int[] rn2 = foyers.getRevenusNetDeclarant2();
+        byte[] sitFam = foyers.getSituationsFamiliales();
+        double[] parts = resultats.getNbParts();
+        int[] revenusReference = resultats.getRevenusReference();
+        int[] impots = resultats.getImpotsNets();
+        int[] decotes = resultats.getDecotes();
+        int[] contributions = resultats.getContribExceptionnelles();
+        boolean[] plafonnements = resultats.getPlafonnements();
+        for (int i = debut; i < fin; i++) {
+            groupeParParts(sitFam[i], parts[i]).ajouter((long) rn1[i] + rn2[i], revenusReference[i], impots[i],
+                    decotes[i], contributions[i], plafonnements[i]);
+        }
+    }
+
+    public void fusionner(StatistiquesLot autre) {
+        for (int s = 0; s < groupes.length; s++) {
+            for (int p = 0; p < groupes[s].length; p++) {
+                if (autre.groupes[s][p] != null) {
+                    groupe(s, p).fusionner(autre.groupes[s][p]);
+                }
+            }
+        }
+    }
+
+    private StatistiquesImpot groupeParParts(int ordinal, double nbParts) {
+        int demiParts = (int) (nbParts * DEMI_PARTS_PAR_PART);
+        if (ordinal < 0 || ordinal >= SITUATIONS.length || demiParts < 0 || demiParts >= groupes[0].length) {
+            throw new IllegalArgumentException("Groupe inconnu : situation " + ordinal + ", " + nbParts + " parts");
+        }
+        return groupe(ordinal, demiParts);
+    }
+
+    private StatistiquesImpot groupe(int ordinal, int demiParts) {
+        StatistiquesImpot stats = groupes[ordinal][demiParts];
+        if (stats == null) {
+            stats = new StatistiquesImpot();
+            groupes[ordinal][demiParts] = stats;
+        }
+        return stats;
+    }
+
+    // --- Consultation ---
+
+    /**
+     * Copie des statistiques de chaque groupe non vide, par situation puis nombre de parts croissant.
+     */
+    public Map<Groupe, StatistiquesImpot> parGroupe() {
+        Map<Groupe, StatistiquesImpot> parGroupe = new LinkedHashMap<>();
+        for (int s = 0; s < groupes.length; s++) {
+            for (int p = 0; p < groupes[s].length; p++) {
+                if (groupes[s][p] != null) {
+                    StatistiquesImpot copie = new StatistiquesImpot();
+                    copie.fusionner(groupes[s][p]);
+                    parGroupe.put(new Groupe(SITUATIONS[s], (double) p / DEMI_PARTS_PAR_PART), copie);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(parGroupe);
+    }
+
+    public StatistiquesImpot parSituation(SituationFamiliale sf) {
+        StatistiquesImpot stats = new StatistiquesImpot();
+        for (StatistiquesImpot groupe : groupes[sf.ordinal()]) {
+            if (groupe != null) {
+                stats.fusionner(groupe);
+            }
+        }
+        return stats;
+    }
+
+    public StatistiquesImpot total() {
+        StatistiquesImpot stats = new StatistiquesImpot();
+        for (SituationFamiliale sf : SITUATIONS) {
+            stats.fusionner(parSituation(sf));
+        }
+        return stats;
+    }
+}
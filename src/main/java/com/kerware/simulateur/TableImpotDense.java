@@ -0,0 +1,119 @@
+package com.kerware.simulateur;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.time.Duration;
+
+/**
+ * Impôt net précalculé sur une grille dense, pour les revenus courants.
+ *
+ * <p>Une fois l'abattement déduit, l'impôt ne dépend plus que du revenu fiscal de référence,
+ * du nombre de déclarants et du nombre de parts. La table contient une ligne par configuration
+ * (déclarant seul ou couple, demi-parts supplémentaires) donnant l'impôt de chaque revenu fiscal
+ * de référence entier de 0 à {@code revenuMax} : un calcul se réduit alors à une lecture.
+ * Les foyers hors de la grille sont calculés normalement.</p>
+ *
+ * <p>Les lignes sont construites à la création, des configurations les plus courantes aux plus
+ * rares, dans la limite d'un budget mémoire et d'un budget de temps ; une configuration sans
+ * ligne est elle aussi calculée normalement. La table est liée au barème de son calculateur.</p>
+ */
+public final class TableImpotDense {
+
+    public static final int REVENU_MAX_DEFAUT = 200_000;
+    public static final long BUDGET_MEMOIRE_DEFAUT = 64L * 1024 * 1024;
+    public static final Duration BUDGET_TEMPS_DEFAUT = Duration.ofSeconds(2);
+
+    // Demi-parts au-delà de celles des déclarants : 7 enfants handicapés, veuf et parent isolé
+    static final int NB_DEMI_PARTS_SUPPLEMENTAIRES = 23;
+    private static final int NB_DECLARANTS = 2;
+    private static final double DEMI_PART = 0.5;
+
+    private final CalculateurImpot calculateur;
+    private final int revenuMax;
+    // Ligne par configuration, null si elle n'a pas été construite
+    private final IntBuffer[] lignes;
+    private final int nbLignes;
+
+    /**
+     * Table du barème en vigueur, avec les budgets par défaut, sur le tas.
+     */
+    public TableImpotDense() {
+        this(RegistreBaremes.global().calculateur(), REVENU_MAX_DEFAUT, BUDGET_MEMOIRE_DEFAUT,
+                BUDGET_TEMPS_DEFAUT, false);
+    }
+
+    /**
+     * @param calc          calculateur dont le barème est tabulé
+     * @param max           plus grand revenu fiscal de référence tabulé
+     * @param budgetMemoire taille maximale des lignes, en octets
+     * @param budgetTemps   durée maximale de construction
+     * @param horsTas       lignes allouées hors du tas Java
+     */
+    public TableImpotDense(CalculateurImpot calc, int max, long budgetMemoire, Duration budgetTemps,
+                           boolean horsTas) {
+        if (max < 0 || max == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Revenu maximal de la table invalide : " + max);
+        }
+        this.calculateur = calc;
+        this.revenuMax = max;
+        this.lignes = new IntBuffer[NB_DECLARANTS * NB_DEMI_PARTS_SUPPLEMENTAIRES];
+
+        long tailleLigne = (long) (max + 1) * Integer.BYTES;
+        long lignesPossibles = Math.min(lignes.length, budgetMemoire / tailleLigne);
+        long echeance = System.nanoTime() + budgetTemps.toNanos();
+        int construites = 0;
+        // Des configurations les plus courantes aux plus rares : peu de demi-parts d'abord
+        for (int supp = 0; supp < NB_DEMI_PARTS_SUPPLEMENTAIRES; supp++) {
+            for (int couple = 0; couple < NB_DECLARANTS; couple++) {
+                if (construites >= lignesPossibles || System.nanoTime() > echeance) {
+                    break;
+                }
+                lignes[configuration(couple == 1, supp)] = construireLigne(couple == 1, supp, horsTas);
+                construites++;
+            }
+        }
+        this.nbLignes = construites;
+    }
+
+    public int getRevenuMax() { return revenuMax; }
+    public int getNbLignes() { return nbLignes; }
+    public boolean isComplete() { return nbLignes == lignes.length; }
+    public CalculateurImpot getCalculateur() { return calculateur; }
+
+    /**
+     * Impôt net du foyer, identique à {@link SimulateurRefactored#calculImpot}.
+     *
+     * @throws IllegalArgumentException si le foyer est invalide
+     */
+    public int calculImpot(int r1, int r2, SituationFamiliale sf, int enf, int enfH, boolean iso) {
+        CalculateurImpot.verifierParametres(r1, r2, sf, enf, enfH, iso);
+        double rFRef = calculateur.calculRevenuFiscal(r1, r2, calculateur.calculAbattement(r1, r2, sf));
+        double nbPtsDecl = calculateur.calculPartsDeclarants(sf);
+        double nbPts = calculateur.calculPartsFiscales(sf, enf, enfH, iso);
+        int supp = (int) ((nbPts - nbPtsDecl) / DEMI_PART);
+        IntBuffer ligne = lignes[configuration(sf.isMarried(), supp)];
+        if (ligne != null && rFRef <= revenuMax) {
+            return ligne.get((int) rFRef);
+        }
+        return (int) calculateur.calculImpotNet(rFRef, sf, nbPtsDecl, nbPts);
+    }
+
+    private static int configuration(boolean couple, int supp) {
+        return (couple ? NB_DEMI_PARTS_SUPPLEMENTAIRES : 0) + supp;
+    }
+
+    private IntBuffer construireLigne(boolean couple, int supp, boolean horsTas) {
+        IntBuffer ligne = horsTas
+                ? ByteBuffer.allocateDirect((revenuMax + 1) * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer()
+                : IntBuffer.allocate(revenuMax + 1);
+        // Seule la distinction seul / couple compte une fois les parts connues
+        SituationFamiliale sf = couple ? SituationFamiliale.MARIE : SituationFamiliale.CELIBATAIRE;
+        double nbPtsDecl = calculateur.calculPartsDeclarants(sf);
+        double nbPts = nbPtsDecl + supp * DEMI_PART;
+        for (int rFRef = 0; rFRef <= revenuMax; rFRef++) {
+            ligne.put(rFRef, (int) calculateur.calculImpotNet(rFRef, sf, nbPtsDecl, nbPts));
+        }
+        return ligne;
+    }
+}
@@ -0,0 +1,19 @@
+package com.kerware.simulateur;
+
+/**
+ * Suivi pas à pas d'un calcul d'impôt du simulateur legacy.
+ * Les étapes reçoivent un libellé constant et une valeur brute : aucune chaîne
+ * n'est construite tant qu'une implémentation ne la formate pas.
+ * Toutes les méthodes sont sans effet par défaut.
+ */
+public interface TraceCalcul {
+
+    // Trace désactivée, utilisée par défaut
+    TraceCalcul AUCUNE = new TraceCalcul() { };
+
+    default void debut() { }
+    default void etape(String libelle, String valeur) { }
+    default void etape(String libelle, int valeur) { }
+    default void etape(String libelle, double valeur) { }
+    default void etape(String libelle, boolean valeur) { }
+}
@@ -0,0 +1,55 @@
+package com.kerware.simulateur;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * Trace d'un calcul écrite ligne à ligne, au format historique du simulateur legacy :
+ * chaque ligne est identique, octet pour octet, à celle qu'il écrivait sur la console.
+ */
+public final class TraceConsole implements TraceCalcul {
+
+    // Lignes dont le format historique s'écarte de « libellé : valeur »
+    private static final Map<String, String> PREFIXES_HISTORIQUES = Map.of(
+            "Nombre d'enfants", "Nombre d'enfants  : ",
+            "Plafond de baisse autorisée", "Plafond de baisse autorisée ");
+
+    private final PrintStream sortie;
+
+    public TraceConsole() {
+        this(System.out);
+    }
+
+    public TraceConsole(PrintStream ps) {
+        this.sortie = ps;
+    }
+
+    @Override
+    public void debut() {
+        sortie.println("--------------------------------------------------");
+    }
+
+    @Override
+    public void etape(String libelle, String valeur) {
+        sortie.println(prefixe(libelle) + valeur);
+    }
+
+    @Override
+    public void etape(String libelle, int valeur) {
+        sortie.println(prefixe(libelle) + valeur);
+    }
+
+    @Override
+    public void etape(String libelle, double valeur) {
+        sortie.println(prefixe(libelle) + valeur);
+    }
+
+    @Override
+    public void etape(String libelle, boolean valeur) {
+        sortie.println(prefixe(libelle) + valeur);
+    }
+
+    private static String prefixe(String libelle) {
+        return PREFIXES_HISTORIQUES.getOrDefault(libelle, libelle + " : ");
+    }
+}
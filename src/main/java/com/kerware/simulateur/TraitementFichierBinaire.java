@@ -0,0 +1,77 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Traitement d'un fichier binaire de foyers vers un fichier binaire de résultats ({@link FormatBinaire}).
+ * Les deux fichiers sont projetés en mémoire et traités par lots de taille fixe.
+ *
+ * <p>Usage : {@code TraitementFichierBinaire <foyers.bin> <resultats.bin>}</p>
+ */
+public final class TraitementFichierBinaire {
+
+    public static final int TAILLE_LOT_DEFAUT = 8192;
+
+    private final CalculateurImpotLot calculateur;
+    private final int tailleLot;
+
+    public TraitementFichierBinaire() {
+        this(new CalculateurImpotLot(), TAILLE_LOT_DEFAUT);
+    }
+
+    public TraitementFichierBinaire(CalculateurImpotLot calc, int taille) {
+        if (taille <= 0) {
+            throw new IllegalArgumentException("La taille de lot doit être positive");
+        }
+        this.calculateur = calc;
+        this.tailleLot = taille;
+    }
+
+    /**
+     * @return le nombre de foyers traités
+     * @throws IllegalArgumentException si le fichier est invalide ou contient un foyer invalide
+     */
+    public long traiter(Path foyers, Path resultats) throws IOException {
+        return traiter(foyers, resultats, null);
+    }
+
+    /**
+     * Traite le fichier en agrégeant les résultats de chaque lot dans {@code statistiques}
+     * ({@code null} pour ne pas en calculer).
+     *
+     * @return le nombre de foyers traités
+     * @throws IllegalArgumentException si le fichier est invalide ou contient un foyer invalide
+     */
+    public long traiter(Path foyers, Path resultats, StatistiquesLot statistiques) throws IOException {
+        try (LecteurBinaireFoyers lecteur = new LecteurBinaireFoyers(foyers);
+             EcrivainBinaireResultats ecrivain = new EcrivainBinaireResultats(resultats, lecteur.getNombre())) {
+            LotFoyers lot = new LotFoyers(tailleLot);
+            LotResultats sortie = new LotResultats(tailleLot);
+            long total = 0;
+            int lus;
+            while ((lus = lecteur.lire(lot)) > 0) {
+                try {
+                    calculateur.calculer(lot, sortie, 0, lus);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Lot commençant à l'enregistrement " + total
+                            + ", " + e.getMessage(), e);
+                }
+                if (statistiques != null) {
+                    statistiques.ajouter(lot, sortie, 0, lus);
+                }
+                ecrivain.ecrire(sortie, lus);
+                total += lus;
+            }
+            return total;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage : TraitementFichierBinaire <foyers.bin> <resultats.bin>");
+            System.exit(1);
+        }
+        new TraitementFichierBinaire().traiter(Path.of(args[0]), Path.of(args[1]));
+    }
+}
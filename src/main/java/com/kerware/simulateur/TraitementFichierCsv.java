@@ -0,0 +1,113 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Traitement en flux d'un fichier CSV de foyers : une ligne de résultats est écrite par foyer.
+ * Les foyers sont lus, calculés et écrits par lots de taille fixe : la mémoire utilisée
+ * ne dépend pas de la taille du fichier.
+ *
+ * <p>Usage : {@code TraitementFichierCsv <foyers.csv> [<resultats.csv>]}, la sortie standard
+ * étant utilisée sans second argument.</p>
+ */
+public final class TraitementFichierCsv {
+
+    public static final int TAILLE_LOT_DEFAUT = 8192;
+
+    private final CalculateurImpotLot calculateur;
+    private final int tailleLot;
+
+    public TraitementFichierCsv() {
+        this(new CalculateurImpotLot(), TAILLE_LOT_DEFAUT);
+    }
+
+    public TraitementFichierCsv(CalculateurImpotLot calc, int taille) {
+        if (taille <= 0) {
+            throw new IllegalArgumentException("La taille de lot doit être positive");
+        }
+        this.calculateur = calc;
+        this.tailleLot = taille;
+    }
+
+    /**
+     * @return le nombre de foyers traités
+     * @throws IllegalArgumentException si une ligne est mal formée ou un foyer invalide
+     */
+    public long traiter(Path entree, Path sortie) throws IOException {
+        return traiter(entree, sortie, null);
+    }
+
+    /**
+     * Traite le fichier en agrégeant les résultats de chaque lot dans {@code statistiques}
+     * ({@code null} pour ne pas en calculer).
+     *
+     * @return le nombre de foyers traités
+     * @throws IllegalArgumentException si une ligne est mal formée ou un foyer invalide
+     */
+    public long traiter(Path entree, Path sortie, StatistiquesLot statistiques) throws IOException {
+        try (InputStream in = Files.newInputStream(entree);
+             OutputStream out = Files.newOutputStream(sortie)) {
+            return traiter(in, out, statistiques);
+        }
+    }
+
+    /**
+     * Traite le flux d'entrée jusqu'à sa fin ; les flux ne sont pas fermés.
+     *
+     * @return le nombre de foyers traités
+     */
+    public long traiter(InputStream in, OutputStream out) throws IOException {
+        return traiter(in, out, null);
+    }
+
+    /**
+     * Traite le flux d'entrée jusqu'à sa fin en agrégeant les résultats de chaque lot dans
+     * {@code statistiques} ({@code null} pour ne pas en calculer) ; les flux ne sont pas fermés.
+     *
+     * @return le nombre de foyers traités
+     */
+    public long traiter(InputStream in, OutputStream out, StatistiquesLot statistiques) throws IOException {
+        LecteurCsvFoyers lecteur = new LecteurCsvFoyers(in);
+        EcrivainCsvResultats ecrivain = new EcrivainCsvResultats(out);
+        LotFoyers foyers = new LotFoyers(tailleLot);
+        LotResultats resultats = new LotResultats(tailleLot);
+
+        ecrivain.ecrireEnTete();
+        long total = 0;
+        int lus;
+        while ((lus = lecteur.lire(foyers)) > 0) {
+            try {
+                calculateur.calculer(foyers, resultats, 0, lus);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Lot terminé ligne " + lecteur.getNumeroLigne()
+                        + ", " + e.getMessage(), e);
+            }
+            if (statistiques != null) {
+                statistiques.ajouter(foyers, resultats, 0, lus);
+            }
+            ecrivain.ecrire(resultats, lus);
+            total += lus;
+        }
+        ecrivain.flush();
+        return total;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage : TraitementFichierCsv <foyers.csv> [<resultats.csv>]");
+            System.exit(1);
+        }
+        TraitementFichierCsv traitement = new TraitementFichierCsv();
+        if (args.length == 2) {
+            traitement.traiter(Path.of(args[0]), Path.of(args[1]));
+        } else {
+            try (InputStream in = Files.newInputStream(Path.of(args[0]))) {
+                traitement.traiter(in, System.out);
+            }
+        }
+    }
+}
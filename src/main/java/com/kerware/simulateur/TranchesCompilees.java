@@ -0,0 +1,154 @@
+package com.kerware.simulateur;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Barème par tranches compilé : tranches contiguës copiées dans des tableaux primitifs, avec
+ * l'impôt cumulé à la borne inférieure de chaque tranche. L'impôt d'un revenu est alors l'impôt
+ * cumulé de sa tranche, trouvée par dichotomie, plus la part taxée dans cette tranche : aucun
+ * appel à {@link Tranche} ni aucune liste n'intervient plus pendant le calcul.
+ * Sert au barème progressif comme à la contribution exceptionnelle sur les hauts revenus.
+ *
+ * <p>Les cumuls sont additionnés dans l'ordre des tranches, exactement comme le parcours
+ * de {@link Tranche#baseTaxable(double)} tranche par tranche : le résultat est identique
+ * au bit près.</p>
+ */
+public final class TranchesCompilees {
+
+    private final int[] bornesInferieures;
+    private final int[] bornesSuperieures;
+    private final double[] taux;
+    private final double[] impotCumule;
+
+    private TranchesCompilees(int nbTranches) {
+        bornesInferieures = new int[nbTranches];
+        bornesSuperieures = new int[nbTranches];
+        taux = new double[nbTranches];
+        impotCumule = new double[nbTranches];
+    }
+
+    /**
+     * @throws IllegalArgumentException si les tranches ne sont pas contiguës
+     */
+    public static TranchesCompilees compiler(List<? extends Tranche> tranches) {
+        TranchesCompilees compilees = new TranchesCompilees(tranches.size());
+        double cumul = 0;
+        for (int i = 0; i < tranches.size(); i++) {
+            Tranche tranche = tranches.get(i);
+            if (i > 0 && tranche.borneInferieure() != compilees.bornesSuperieures[i - 1]) {
+                throw new IllegalArgumentException("Tranches non contiguës à " + tranche.borneInferieure());
+            }
+            compilees.bornesInferieures[i] = tranche.borneInferieure();
+            compilees.bornesSuperieures[i] = tranche.borneSuperieure();
+            compilees.taux[i] = tranche.taux();
+            compilees.impotCumule[i] = cumul;
+            cumul += ((double) tranche.borneSuperieure() - tranche.borneInferieure()) * tranche.taux();
+        }
+        return compilees;
+    }
+
+    public int getNbTranches() { return taux.length; }
+
+    // --- Évaluation scalaire ---
+
+    /**
+     * Somme des parts taxées du revenu dans chaque tranche.
+     */
+    public double somme(double revenu) {
+        return somme(revenu, indiceTranche(revenu));
+    }
+
+    /**
+     * Taux de la tranche dans laquelle tombe le revenu, 0 sous la première tranche.
+     */
+    public double tauxMarginal(double revenu) {
+        return taux(indiceTranche(revenu));
+    }
+
+    // --- Évaluation par lot ---
+
+    /**
+     * Somme de chaque revenu de {@code revenus}, écrite au même indice de {@code sommes}.
+     * Les revenus croissants sont suivis sans dichotomie, d'une tranche à la suivante.
+     *
+     * @throws IllegalArgumentException si {@code sommes} est plus court que {@code revenus}
+     */
+    public void somme(double[] revenus, double[] sommes) {
+        if (sommes.length < revenus.length) {
+            throw new IllegalArgumentException("Tableau de sortie trop court : " + sommes.length);
+        }
+        double precedent = Double.NEGATIVE_INFINITY;
+        int k = -1;
+        for (int i = 0; i < revenus.length; i++) {
+            double revenu = revenus[i];
+            k = revenu >= precedent ? avancer(k, revenu) : indiceTranche(revenu);
+            sommes[i] = somme(revenu, k);
+            precedent = revenu;
+        }
+    }
+
+    // --- Évaluation cumulée ---
+
+    /**
+     * Impôt cumulé à la borne inférieure de la tranche {@code k} : somme des tranches précédentes entières.
+     */
+    public double impotCumule(int k) {
+        return impotCumule[k];
+    }
+
+    public int borneInferieure(int k) { return bornesInferieures[k]; }
+    public int borneSuperieure(int k) { return bornesSuperieures[k]; }
+
+    public double[] impotsCumules() {
+        return Arrays.copyOf(impotCumule, impotCumule.length);
+    }
+
+    // --- Parcours par indice de tranche ---
+
+    // Dernière tranche dont la borne inférieure est strictement dépassée, -1 sinon
+    int indiceTranche(double revenu) {
+        int bas = 0;
+        int haut = bornesInferieures.length - 1;
+        while (bas <= haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (revenu > bornesInferieures[milieu]) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu - 1;
+            }
+        }
+        return haut;
+    }
+
+    // Même tranche que indiceTranche, pour un revenu supérieur à celui de la tranche k
+    int avancer(int k, double revenu) {
+        int i = k;
+        while (i + 1 < bornesInferieures.length && revenu > bornesInferieures[i + 1]) {
+            i++;
+        }
+        return i;
+    }
+
+    // Somme pour un revenu dont la tranche k est déjà connue
+    double somme(double revenu, int k) {
+        if (k < 0) {
+            return 0;
+        }
+        return impotCumule[k] + (Math.min(revenu, bornesSuperieures[k]) - bornesInferieures[k]) * taux[k];
+    }
+
+    double taux(int k) {
+        return k < 0 ? 0 : taux[k];
+    }
+
+    // Revenu jusqu'auquel la somme est nulle : borne inférieure de la première tranche taxée
+    int seuilImposition() {
+        for (int i = 0; i < taux.length; i++) {
+            if (taux[i] > 0) {
+                return bornesInferieures[i];
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,138 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.TrancheImpot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsBaremes {
+
+    private static final FoyerFiscal FOYER = new FoyerFiscal(45_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+    private static String bareme2024() throws IOException {
+        try (InputStream in = Bareme.class.getResourceAsStream("/baremes/2024.properties")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @DisplayName("Le barème 2024 livré reprend les paramètres de la loi de finances")
+    @Test
+    public void testBareme2024() {
+        Bareme bareme = Bareme.charger(2024);
+
+        assertEquals(2024, bareme.annee());
+        assertEquals(new TrancheImpot(177_106, Integer.MAX_VALUE, 0.45), bareme.tranchesImpot().get(4));
+        assertEquals(new Bareme.Abattement(495, 14_171, 0.1), bareme.abattement());
+        assertEquals(1759, bareme.plafondDemiPart());
+        assertEquals(new Bareme.Decote(1929, 3191, 873, 1444, 0.4525), bareme.decote());
+        assertEquals(0.03, bareme.tranchesCEHRCelibataire().get(1).taux());
+        assertEquals(0.0, bareme.tranchesCEHRCouple().get(1).taux());
+    }
+
+    @DisplayName("Une année sans barème livré est refusée")
+    @Test
+    public void testAnneeInconnue() {
+        assertThrows(IllegalArgumentException.class, () -> Bareme.charger(1990));
+    }
+
+    @DisplayName("Un fichier de barème invalide est refusé en nommant la clé fautive")
+    @Test
+    public void testBaremeInvalide(@TempDir Path dossier) throws IOException {
+        Path sansDecote = dossier.resolve("sansDecote.properties");
+        Files.writeString(sansDecote, bareme2024().replace("decote.taux=", "#"));
+        Path bornes = dossier.resolve("bornes.properties");
+        Files.writeString(bornes, bareme2024().replace("0,11294,28797", "0,28797,11294"));
+        Path taux = dossier.resolve("taux.properties");
+        Files.writeString(taux, bareme2024().replace("0.0,0.11,0.30,0.41,0.45", "0.0,0.11,0.30,0.41"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Bareme.charger(sansDecote));
+        assertTrue(e.getMessage().contains("decote.taux"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Bareme.charger(bornes));
+        assertThrows(IllegalArgumentException.class, () -> Bareme.charger(taux));
+    }
+
+    @DisplayName("Un barème externe publié remplace le barème courant sans modifier les calculs en cours")
+    @Test
+    public void testPublication(@TempDir Path dossier) throws IOException {
+        Path fichier = dossier.resolve("2024bis.properties");
+        Files.writeString(fichier, bareme2024().replace("decote.seuilSeul=1929", "decote.seuilSeul=2000")
+                .replace("0.0,0.11,0.30,0.41,0.45", "0.0,0.10,0.30,0.41,0.45"));
+        RegistreBaremes registre = new RegistreBaremes(new CalculateurImpot());
+        SimulateurRefactored simulateur = new SimulateurRefactored(registre);
+        CalculateurImpot avant = registre.calculateur();
+        int impotAvant = simulateur.calculImpot(45_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+        CalculateurImpot remplace = registre.recharger(fichier);
+
+        assertSame(avant, remplace);
+        assertEquals(2000, registre.bareme().decote().seuilSeul());
+        assertEquals(impotAvant, (int) avant.calculer(FOYER).impotNet());
+        assertNotEquals(impotAvant, simulateur.calculImpot(45_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false));
+    }
+
+    @DisplayName("Un barème invalide n'est pas publié")
+    @Test
+    public void testPublicationInvalide() {
+        RegistreBaremes registre = new RegistreBaremes(new CalculateurImpot());
+        Bareme courant = registre.bareme();
+        Bareme trou = new Bareme(2024, List.of(new TrancheImpot(0, 10_000, 0.0), new TrancheImpot(12_000, 20_000, 0.1)),
+                courant.tranchesCEHRCelibataire(), courant.tranchesCEHRCouple(), courant.abattement(),
+                courant.plafondDemiPart(), courant.decote());
+
+        assertThrows(IllegalArgumentException.class, () -> registre.publier(trou));
+        assertSame(courant, registre.bareme());
+    }
+
+    @DisplayName("Les calculs concurrents à des rechargements utilisent toujours un barème complet")
+    @Test
+    public void testRechargementConcurrent() throws Exception {
+        Bareme initial = Bareme.charger(2024);
+        Bareme modifie = new Bareme(2024, initial.tranchesImpot(), initial.tranchesCEHRCelibataire(),
+                initial.tranchesCEHRCouple(), new Bareme.Abattement(1000, 20_000, 0.2), initial.plafondDemiPart(),
+                initial.decote());
+        double impotInitial = new CalculateurImpot(initial).calculer(FOYER).impotNet();
+        double impotModifie = new CalculateurImpot(modifie).calculer(FOYER).impotNet();
+        RegistreBaremes registre = new RegistreBaremes(new CalculateurImpot(initial));
+
+        AtomicBoolean fin = new AtomicBoolean();
+        List<Double> inattendus = new ArrayList<>();
+        Thread calcul = new Thread(() -> {
+            while (!fin.get()) {
+                double impot = registre.calculateur().calculer(FOYER).impotNet();
+                if (impot != impotInitial && impot != impotModifie) {
+                    inattendus.add(impot);
+                }
+            }
+        });
+        calcul.start();
+        for (int i = 0; i < 2_000; i++) {
+            registre.publier(i % 2 == 0 ? modifie : initial);
+        }
+        fin.set(true);
+        calcul.join();
+
+        assertNotEquals(impotInitial, impotModifie);
+        assertTrue(inattendus.isEmpty(), inattendus::toString);
+    }
+}
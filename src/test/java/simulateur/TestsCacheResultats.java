@@ -0,0 +1,209 @@
+package simulateur;
+
+import com.kerware.simulateur.AdaptateurSimulateur;
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.CacheResultats;
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsCacheResultats {
+
+    private static final CalculateurImpot CALCULATEUR = new CalculateurImpot();
+
+    private static FoyerFiscal foyer(int i) {
+        SituationFamiliale sf = SituationFamiliale.values()[i % SituationFamiliale.values().length];
+        return new FoyerFiscal(10_000 + 37 * i, sf.isMarried() ? 5_000 + 11 * i : 0, sf, i % 4, i % 2, false);
+    }
+
+    private static ResultatImpot chercher(CacheResultats cache, FoyerFiscal f) {
+        return cache.chercher(CALCULATEUR, f.revenuNetDeclarant1(), f.revenuNetDeclarant2(), f.situationFamiliale(),
+                f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+    }
+
+    @DisplayName("Un foyer déjà calculé est servi par le cache et compté comme succès")
+    @Test
+    public void testSuccesEtEchec() {
+        CacheResultats cache = new CacheResultats(1_000, CacheResultats.Eviction.CLOCK);
+        FoyerFiscal f = foyer(3);
+
+        assertNull(chercher(cache, f));
+        ResultatImpot calcule = cache.calculer(CALCULATEUR, f);
+        assertSame(calcule, chercher(cache, f));
+        assertSame(calcule, cache.calculer(CALCULATEUR, new FoyerFiscal(f.revenuNetDeclarant1(),
+                f.revenuNetDeclarant2(), f.situationFamiliale(), f.nbEnfantsACharge(),
+                f.nbEnfantsSituationHandicap(), f.parentIsole())));
+
+        assertEquals(CALCULATEUR.calculer(f), calcule);
+        assertEquals(2, cache.getNbSucces());
+        assertEquals(2, cache.getNbEchecs());
+        assertEquals(0, cache.getNbEvictions());
+        assertEquals(1_024, cache.getCapacite());
+    }
+
+    @DisplayName("Un résultat calculé avec un autre barème n'est pas servi")
+    @Test
+    public void testAutreBareme() {
+        CacheResultats cache = new CacheResultats(1_000, CacheResultats.Eviction.FIFO);
+        CalculateurImpot autre = new CalculateurImpot(Bareme.charger(2024));
+        FoyerFiscal f = foyer(8);
+        cache.calculer(CALCULATEUR, f);
+
+        assertNull(cache.chercher(autre, f.revenuNetDeclarant1(), f.revenuNetDeclarant2(), f.situationFamiliale(),
+                f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole()));
+        assertNull(cache.chercher(new CalculateurImpot(Bareme.charger(2023)), f.revenuNetDeclarant1(),
+                f.revenuNetDeclarant2(), f.situationFamiliale(), f.nbEnfantsACharge(),
+                f.nbEnfantsSituationHandicap(), f.parentIsole()));
+        assertNotNull(chercher(cache, f));
+    }
+
+    @DisplayName("Un foyer invalide est refusé par le cache")
+    @Test
+    public void testFoyerInvalide() {
+        CacheResultats cache = new CacheResultats(1_000, CacheResultats.Eviction.CLOCK);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> cache.chercher(CALCULATEUR, 20_000, 0, SituationFamiliale.CELIBATAIRE, 9, 0, false));
+        assertThrows(IllegalArgumentException.class, () -> new CacheResultats(0, CacheResultats.Eviction.FIFO));
+    }
+
+    @DisplayName("Le cache reste borné et compte les évictions - ")
+    @ParameterizedTest( name = " politique {0}")
+    @EnumSource(CacheResultats.Eviction.class)
+    public void testCacheBorne(CacheResultats.Eviction eviction) {
+        CacheResultats cache = new CacheResultats(128, eviction);
+        for (int i = 0; i < 10_000; i++) {
+            cache.calculer(CALCULATEUR, foyer(i));
+        }
+        int presents = 0;
+        for (int i = 0; i < 10_000; i++) {
+            presents += chercher(cache, foyer(i)) == null ? 0 : 1;
+        }
+
+        assertEquals(128, cache.getCapacite());
+        assertTrue(presents <= 128);
+        assertEquals(10_000 - presents, cache.getNbEvictions());
+    }
+
+    @DisplayName("CLOCK épargne une entrée lue entre deux insertions, FIFO l'évince")
+    @Test
+    public void testPolitiques() {
+        CacheResultats clock = new CacheResultats(128, CacheResultats.Eviction.CLOCK);
+        CacheResultats fifo = new CacheResultats(128, CacheResultats.Eviction.FIFO);
+        FoyerFiscal chaud = foyer(0);
+        clock.calculer(CALCULATEUR, chaud);
+        fifo.calculer(CALCULATEUR, chaud);
+
+        boolean perduParClock = false;
+        boolean perduParFifo = false;
+        for (int i = 1; i < 5_000; i++) {
+            clock.calculer(CALCULATEUR, foyer(i));
+            fifo.calculer(CALCULATEUR, foyer(i));
+            perduParClock |= chercher(clock, chaud) == null;
+            perduParFifo |= chercher(fifo, chaud) == null;
+        }
+
+        assertTrue(!perduParClock && perduParFifo);
+    }
+
+    @DisplayName("Une lecture réussie n'alloue aucun objet")
+    @Test
+    public void testSuccesSansAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CacheResultats cache = new CacheResultats(1_000, CacheResultats.Eviction.CLOCK);
+        for (int i = 0; i < 100; i++) {
+            cache.calculer(CALCULATEUR, foyer(i));
+        }
+        FoyerFiscal f = foyer(42);
+        int r1 = f.revenuNetDeclarant1();
+        int r2 = f.revenuNetDeclarant2();
+        SituationFamiliale sf = f.situationFamiliale();
+        chercher(cache, f);
+
+        long avant = threads.getCurrentThreadAllocatedBytes();
+        int succes = 0;
+        for (int i = 0; i < 100_000; i++) {
+            succes += cache.chercher(CALCULATEUR, r1, r2, sf, 2, 0, false) == null ? 0 : 1;
+        }
+        long alloues = threads.getCurrentThreadAllocatedBytes() - avant;
+
+        assertEquals(100_000, succes);
+        assertEquals(0, alloues);
+    }
+
+    @DisplayName("Un adaptateur avec cache donne les mêmes résultats qu'un adaptateur sans cache")
+    @Test
+    public void testAdaptateur() {
+        CacheResultats cache = new CacheResultats(256, CacheResultats.Eviction.CLOCK);
+        AdaptateurSimulateur avecCache = new AdaptateurSimulateur();
+        AdaptateurSimulateur sansCache = new AdaptateurSimulateur();
+        avecCache.setCacheResultats(cache);
+        Random random = new Random(14);
+
+        for (int n = 0; n < 5_000; n++) {
+            FoyerFiscal f = foyer(random.nextInt(500));
+            for (AdaptateurSimulateur simulateur : List.of(avecCache, sansCache)) {
+                simulateur.setRevenusNetDeclarant1(f.revenuNetDeclarant1());
+                simulateur.setRevenusNetDeclarant2(f.revenuNetDeclarant2());
+                simulateur.setSituationFamiliale(f.situationFamiliale());
+                simulateur.setNbEnfantsACharge(f.nbEnfantsACharge());
+                simulateur.setNbEnfantsSituationHandicap(f.nbEnfantsSituationHandicap());
+                simulateur.setParentIsole(f.parentIsole());
+                simulateur.calculImpotSurRevenuNet();
+            }
+            assertEquals(sansCache.getImpotSurRevenuNet(), avecCache.getImpotSurRevenuNet());
+            assertEquals(sansCache.getDecote(), avecCache.getDecote());
+            assertEquals(sansCache.getNbPartsFoyerFiscal(), avecCache.getNbPartsFoyerFiscal());
+        }
+        assertTrue(cache.getNbSucces() > 0);
+    }
+
+    @DisplayName("Un cache partagé entre threads ne sert que des résultats exacts")
+    @Test
+    public void testAccesConcurrents() throws Exception {
+        CacheResultats cache = new CacheResultats(256, CacheResultats.Eviction.CLOCK);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futurs = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                long graine = t;
+                futurs.add(executor.submit(() -> {
+                    Random random = new Random(graine);
+                    int erreurs = 0;
+                    for (int n = 0; n < 50_000; n++) {
+                        FoyerFiscal f = foyer(random.nextInt(2_000));
+                        ResultatImpot resultat = cache.calculer(CALCULATEUR, f);
+                        erreurs += resultat.foyer().equals(f) ? 0 : 1;
+                    }
+                    return erreurs;
+                }));
+            }
+            for (Future<Integer> futur : futurs) {
+                assertEquals(0, futur.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(400_000, cache.getNbSucces() + cache.getNbEchecs());
+    }
+}
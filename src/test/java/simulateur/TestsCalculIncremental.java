@@ -0,0 +1,123 @@
+package simulateur;
+
+import com.kerware.simulateur.CalculIncremental;
+import com.kerware.simulateur.CalculIncremental.Champ;
+import com.kerware.simulateur.CalculIncremental.Etape;
+import com.kerware.simulateur.CalculIncremental.Reevaluation;
+import com.kerware.simulateur.CalculIncremental.Variation;
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsCalculIncremental {
+
+    private final CalculateurImpot calculateur = new CalculateurImpot();
+
+    private static FoyerFiscal foyerAleatoire(Random alea) {
+        SituationFamiliale sf = SituationFamiliale.values()[alea.nextInt(SituationFamiliale.values().length)];
+        int enf = alea.nextInt(8);
+        int r1 = alea.nextInt(alea.nextBoolean() ? 80_000 : 1_500_000);
+        int r2 = sf.isMarried() ? alea.nextInt(alea.nextBoolean() ? 60_000 : 800_000) : 0;
+        boolean iso = !sf.isMarried() && enf > 0 && alea.nextBoolean();
+        return new FoyerFiscal(r1, r2, sf, enf, alea.nextInt(enf + 1), iso);
+    }
+
+    @DisplayName("La réévaluation donne exactement le résultat du calcul complet")
+    @Test
+    public void testEgaliteCalculComplet() {
+        Random alea = new Random(19);
+        ResultatImpot precedent = calculateur.calculer(foyerAleatoire(alea));
+        for (int i = 0; i < 200_000; i++) {
+            FoyerFiscal nouveau = foyerAleatoire(alea);
+            if (i % 2 == 0) {
+                // Modification d'un seul champ, la plus fréquente
+                FoyerFiscal p = precedent.foyer();
+                nouveau = switch (i % 8) {
+                    case 0 -> new FoyerFiscal(nouveau.revenuNetDeclarant1(), p.revenuNetDeclarant2(),
+                            p.situationFamiliale(), p.nbEnfantsACharge(), p.nbEnfantsSituationHandicap(),
+                            p.parentIsole());
+                    case 2 -> new FoyerFiscal(p.revenuNetDeclarant1(), p.revenuNetDeclarant2(),
+                            p.situationFamiliale(), nouveau.nbEnfantsACharge(),
+                            Math.min(p.nbEnfantsSituationHandicap(), nouveau.nbEnfantsACharge()),
+                            p.parentIsole() && nouveau.nbEnfantsACharge() > 0);
+                    case 4 -> p;
+                    default -> nouveau;
+                };
+            }
+            Reevaluation reevaluation = CalculIncremental.reevaluer(calculateur, precedent, nouveau);
+            ResultatImpot attendu = calculateur.calculer(nouveau);
+            assertEquals(attendu, reevaluation.resultat());
+            assertEquals(CalculIncremental.ecarts(precedent, attendu), reevaluation.ecarts());
+            precedent = reevaluation.resultat();
+        }
+    }
+
+    @DisplayName("Seules les étapes touchées par la modification sont recalculées")
+    @Test
+    public void testEtapesRecalculees() {
+        ResultatImpot celibataire = calculateur.calculer(
+                new FoyerFiscal(40_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false));
+
+        Reevaluation augmentation = CalculIncremental.reevaluer(calculateur, celibataire, Variation.revenus(2_000, 0));
+        assertEquals(EnumSet.of(Etape.ABATTEMENT, Etape.IMPOT), augmentation.etapesRecalculees());
+
+        Reevaluation enfant = CalculIncremental.reevaluer(calculateur, celibataire, Variation.enfants(1, 0));
+        assertEquals(EnumSet.of(Etape.PARTS, Etape.IMPOT), enfant.etapesRecalculees());
+        assertEquals(0.5, enfant.ecarts().get(Champ.NB_PARTS).difference());
+
+        Reevaluation isole = CalculIncremental.reevaluer(calculateur, enfant.resultat(), Variation.parentIsole(true));
+        assertEquals(EnumSet.of(Etape.PARTS, Etape.IMPOT), isole.etapesRecalculees());
+        assertEquals(0.5, isole.ecarts().get(Champ.NB_PARTS).difference());
+
+        Reevaluation aucune = CalculIncremental.reevaluer(calculateur, celibataire, Variation.AUCUNE);
+        assertTrue(aucune.etapesRecalculees().isEmpty());
+        assertTrue(aucune.ecarts().isEmpty());
+        assertEquals(celibataire, aucune.resultat());
+    }
+
+    @DisplayName("La contribution exceptionnelle n'est recalculée qu'au-delà de son premier seuil")
+    @Test
+    public void testContributionExceptionnelle() {
+        ResultatImpot haut = calculateur.calculer(new FoyerFiscal(300_000, 0, SituationFamiliale.DIVORCE, 1, 0, false));
+
+        Set<Etape> sousLeSeuil = CalculIncremental.reevaluer(calculateur, haut, Variation.revenus(-100_000, 0))
+                .etapesRecalculees();
+        assertEquals(EnumSet.of(Etape.ABATTEMENT, Etape.IMPOT), sousLeSeuil);
+
+        Reevaluation auDessus = CalculIncremental.reevaluer(calculateur, haut, Variation.revenus(50_000, 0));
+        assertTrue(auDessus.etapesRecalculees().contains(Etape.CEHR));
+        assertTrue(auDessus.ecarts().get(Champ.CONTRIB_EXCEPTIONNELLE).difference() > 0);
+
+        Reevaluation enfant = CalculIncremental.reevaluer(calculateur, haut, Variation.enfants(1, 1));
+        assertEquals(EnumSet.of(Etape.PARTS, Etape.IMPOT), enfant.etapesRecalculees());
+
+        Variation mariage = Variation.situation(SituationFamiliale.MARIE).et(Variation.revenus(0, 1_000));
+        Reevaluation marie = CalculIncremental.reevaluer(calculateur, haut, mariage);
+        assertEquals(EnumSet.of(Etape.ABATTEMENT, Etape.PARTS, Etape.IMPOT), marie.etapesRecalculees());
+        assertEquals(0, marie.resultat().contribExceptionnelle());
+    }
+
+    @DisplayName("Une modification donnant un foyer invalide est refusée")
+    @Test
+    public void testVariationInvalide() {
+        ResultatImpot resultat = calculateur.calculer(new FoyerFiscal(20_000, 0, SituationFamiliale.VEUF, 1, 0, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculIncremental.reevaluer(calculateur, resultat, Variation.revenus(-20_001, 0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculIncremental.reevaluer(calculateur, resultat, Variation.situation(SituationFamiliale.PACSE)));
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculIncremental.reevaluer(calculateur, resultat, Variation.enfants(-1, 0)
+                        .et(Variation.enfants(0, 1))));
+    }
+}
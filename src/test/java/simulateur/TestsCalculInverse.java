@@ -0,0 +1,92 @@
+package simulateur;
+
+import com.kerware.simulateur.CalculInverse;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsCalculInverse {
+
+    private static final int REVENU_MAX = 400_000;
+
+    private static int[] impots(FoyerFiscal modele) {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        int[] impots = new int[REVENU_MAX + 1];
+        for (int r1 = 0; r1 <= REVENU_MAX; r1++) {
+            impots[r1] = simulateur.calculImpot(r1, modele.revenuNetDeclarant2(), modele.situationFamiliale(),
+                    modele.nbEnfantsACharge(), modele.nbEnfantsSituationHandicap(), modele.parentIsole());
+        }
+        return impots;
+    }
+
+    @DisplayName("Le revenu trouvé pour chaque impôt cible est le plus petit revenu l'atteignant - ")
+    @ParameterizedTest( name = " {1} avec {2} enfants, revenu du conjoint {0}")
+    @CsvSource({ "0, CELIBATAIRE, 0, 0, false", "0, DIVORCE, 2, 1, true", "15000, MARIE, 3, 0, false",
+                 "0, VEUF, 1, 0, false" })
+    public void testImpotCible(int r2, SituationFamiliale sf, int enf, int enfH, boolean iso) {
+        FoyerFiscal modele = new FoyerFiscal(0, r2, sf, enf, enfH, iso);
+        int[] impots = impots(modele);
+
+        int r1 = 0;
+        for (int cible = 0; cible <= impots[REVENU_MAX - 1]; cible += 1 + cible / 500) {
+            while (impots[r1] < cible) {
+                r1++;
+            }
+            int dernier = r1;
+            while (impots[dernier + 1] == impots[r1]) {
+                dernier++;
+            }
+            assertEquals(new CalculInverse.Solution(r1, impots[r1], dernier),
+                    CalculInverse.revenuPourImpot(modele, cible), "cible " + cible);
+        }
+    }
+
+    @DisplayName("Le revenu trouvé pour chaque revenu disponible cible est le plus petit l'atteignant - ")
+    @ParameterizedTest( name = " {1} avec {2} enfants, revenu du conjoint {0}")
+    @CsvSource({ "0, CELIBATAIRE, 0, 0, false", "0, DIVORCE, 2, 1, true", "15000, MARIE, 3, 0, false" })
+    public void testRevenuDisponibleCible(int r2, SituationFamiliale sf, int enf, int enfH, boolean iso) {
+        FoyerFiscal modele = new FoyerFiscal(0, r2, sf, enf, enfH, iso);
+        int[] impots = impots(modele);
+
+        for (long cible = r2; cible < REVENU_MAX / 2; cible += 37) {
+            int r1 = 0;
+            while ((long) r1 + r2 - impots[r1] < cible) {
+                r1++;
+            }
+            assertEquals(r1, CalculInverse.revenuPourRevenuDisponible(modele, cible).revenuNet(), "cible " + cible);
+        }
+    }
+
+    @DisplayName("Un impôt nul est atteint dès le premier euro, jusqu'au seuil d'imposition")
+    @Test
+    public void testSeuilImposition() {
+        FoyerFiscal modele = new FoyerFiscal(0, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        CalculInverse.Solution solution = CalculInverse.revenuPourImpot(modele, 0);
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+
+        assertEquals(0, solution.revenuNet());
+        assertEquals(0, simulateur.calculImpot(solution.revenuNetMax(), 0, SituationFamiliale.CELIBATAIRE, 0, 0, false));
+        assertEquals(1, Integer.signum(simulateur.calculImpot(solution.revenuNetMax() + 1, 0,
+                SituationFamiliale.CELIBATAIRE, 0, 0, false)));
+    }
+
+    @DisplayName("Une cible inatteignable ou un foyer invalide est refusé")
+    @Test
+    public void testCibleInvalide() {
+        FoyerFiscal modele = new FoyerFiscal(0, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+        assertThrows(IllegalArgumentException.class, () -> CalculInverse.revenuPourImpot(modele, -1));
+        assertThrows(IllegalArgumentException.class, () -> CalculInverse.revenuPourImpot(modele, Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculInverse.revenuPourRevenuDisponible(modele, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> CalculInverse.revenuPourImpot(
+                new FoyerFiscal(0, 0, SituationFamiliale.MARIE, 0, 0, true), 100));
+    }
+}
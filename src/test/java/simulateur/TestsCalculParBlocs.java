@@ -0,0 +1,132 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.CalculateurImpotLot;
+import com.kerware.simulateur.LotFoyers;
+import com.kerware.simulateur.LotResultats;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsCalculParBlocs {
+
+    private static final int[] BORNES = { 11_294, 28_797, 82_341, 177_106, 250_000, 500_000, 1_000_000 };
+
+    private static LotFoyers lot(List<int[]> foyers) {
+        LotFoyers lot = new LotFoyers(foyers.size());
+        for (int i = 0; i < foyers.size(); i++) {
+            int[] f = foyers.get(i);
+            lot.definir(i, f[0], f[1], SituationFamiliale.values()[f[2]], f[3], f[4], f[5] == 1);
+        }
+        return lot;
+    }
+
+    // Foyers autour des bornes d'abattement, des tranches (par part) et des seuils de décote
+    private static LotFoyers lotCasLimites() {
+        List<int[]> foyers = new ArrayList<>();
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        SituationFamiliale[] situations = { SituationFamiliale.CELIBATAIRE, SituationFamiliale.MARIE,
+            SituationFamiliale.VEUF, SituationFamiliale.DIVORCE };
+        for (SituationFamiliale sf : situations) {
+            int iso = sf == SituationFamiliale.DIVORCE ? 1 : 0;
+            for (int enf = iso; enf <= 4; enf++) {
+                int enfH = enf / 3;
+                simulateur.calculImpot(0, 0, sf, enf, enfH, iso == 1);
+                double nbPts = simulateur.getNbParts();
+                for (int r = 4_900; r <= 5_010; r++) {
+                    foyers.add(new int[] { r, sf.isMarried() ? r + 1 : 0, sf.ordinal(), enf, enfH, iso });
+                }
+                for (int r = 141_650; r <= 141_760; r++) {
+                    foyers.add(new int[] { r, sf.isMarried() ? 283_420 - r : 0, sf.ordinal(), enf, enfH, iso });
+                }
+                for (int borne : BORNES) {
+                    long cible = Math.round(borne * nbPts);
+                    for (long base : new long[] { Math.round(cible / 0.9), cible + 14_171, cible + 495 }) {
+                        for (long r = base - 4; r <= base + 4; r++) {
+                            foyers.add(new int[] { (int) r, 0, sf.ordinal(), enf, enfH, iso });
+                        }
+                    }
+                }
+            }
+            for (int r = 15_000; r <= 45_000; r++) {
+                foyers.add(new int[] { r, 0, sf.ordinal(), 0, 0, 0 });
+            }
+        }
+        foyers.add(new int[] { Integer.MAX_VALUE, Integer.MAX_VALUE, SituationFamiliale.PACSE.ordinal(), 7, 7, 0 });
+        foyers.add(new int[] { Integer.MAX_VALUE, 0, SituationFamiliale.CELIBATAIRE.ordinal(), 0, 0, 0 });
+        foyers.add(new int[] { 0, 0, SituationFamiliale.MARIE.ordinal(), 0, 0, 0 });
+        return lot(foyers);
+    }
+
+    @DisplayName("Le calcul par blocs donne les résultats de SimulateurRefactored sur des foyers aléatoires")
+    @Test
+    public void testFoyersAleatoires() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(100_003, 21);
+        LotResultats resultats = new LotResultats(lot.taille());
+
+        CalculateurImpotLot.parBlocs().calculer(lot, resultats);
+
+        TestsCalculateurImpotLot.verifierContreSimulateur(lot, resultats);
+    }
+
+    @DisplayName("Le calcul par blocs donne les résultats de SimulateurRefactored aux bornes du barème")
+    @Test
+    public void testCasLimites() {
+        LotFoyers lot = lotCasLimites();
+        LotResultats resultats = new LotResultats(lot.taille());
+
+        CalculateurImpotLot.parBlocs().calculer(lot, resultats);
+
+        TestsCalculateurImpotLot.verifierContreSimulateur(lot, resultats);
+    }
+
+    @DisplayName("Le calcul par blocs d'une plage suit chaque barème annuel comme le calcul foyer par foyer")
+    @Test
+    public void testPlageEtBaremes() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(20_000, 2022);
+        for (int annee = 2022; annee <= 2025; annee++) {
+            CalculateurImpot calculateur = new CalculateurImpot(Bareme.charger(annee));
+            LotResultats parBlocs = new LotResultats(lot.taille());
+            LotResultats parFoyer = new LotResultats(lot.taille());
+
+            CalculateurImpotLot.parBlocs(calculateur).calculer(lot, parBlocs, 3, 17_001);
+            new CalculateurImpotLot(calculateur).calculer(lot, parFoyer, 3, 17_001);
+
+            assertArrayEquals(parFoyer.getImpotsNets(), parBlocs.getImpotsNets());
+            assertArrayEquals(parFoyer.getRevenusReference(), parBlocs.getRevenusReference());
+            assertArrayEquals(parFoyer.getNbParts(), parBlocs.getNbParts());
+            assertArrayEquals(parFoyer.getDecotes(), parBlocs.getDecotes());
+            assertArrayEquals(parFoyer.getContribExceptionnelles(), parBlocs.getContribExceptionnelles());
+            assertArrayEquals(parFoyer.getAbattements(), parBlocs.getAbattements());
+            assertArrayEquals(parFoyer.getImpotsAvantDecote(), parBlocs.getImpotsAvantDecote());
+        }
+    }
+
+    @DisplayName("Le noyau vectoriel n'est utilisé que si sa classe et le module incubateur sont présents")
+    @Test
+    public void testChargementNoyau() {
+        boolean classe = getClass().getResource("/com/kerware/simulateur/NoyauLotVectoriel.class") != null;
+        boolean module = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+        assertEquals(classe && module, CalculateurImpotLot.parBlocs().isVectoriel());
+    }
+
+    @DisplayName("Un foyer invalide est rejeté par le calcul par blocs")
+    @Test
+    public void testFoyerInvalide() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(3_000, 5);
+        lot.definir(2_500, 10_000, 0, SituationFamiliale.MARIE, 2, 3, false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculateurImpotLot.parBlocs().calculer(lot, new LotResultats(lot.taille())));
+    }
+}
@@ -0,0 +1,103 @@
+package simulateur;
+
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestsCalculateurImpot {
+
+    private static final CalculateurImpot CALCULATEUR = new CalculateurImpot();
+
+    @DisplayName("Le calculateur sans état donne l'impôt attendu - ")
+    @ParameterizedTest( name = " avec revenuNetDeclarant1={0}, revenuNetDeclarant2={1}, situationFamiliale={2} - IMPOT NET ATTENDU = {6}")
+    @CsvFileSource( resources={"/datasImposition.csv"} , numLinesToSkip = 1 )
+    public void testCasImposition( int revenuNetDeclarant1, int revenuNetDeclarant2, String situationFamiliale,
+                                   int nbEnfantsACharge, int nbEnfantsSituationHandicap, boolean parentIsole,
+                                   int impotAttendu) {
+        FoyerFiscal foyer = new FoyerFiscal(revenuNetDeclarant1, revenuNetDeclarant2,
+                SituationFamiliale.valueOf(situationFamiliale), nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole);
+
+        ResultatImpot resultat = CALCULATEUR.calculer(foyer);
+
+        assertEquals(impotAttendu, (int) resultat.impotNet());
+        assertEquals(foyer, resultat.foyer());
+    }
+
+    @DisplayName("Une instance partagée entre threads donne les mêmes résultats que le simulateur")
+    @Test
+    public void testInstancePartagee() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ResultatImpot>> futurs = new ArrayList<>();
+            List<FoyerFiscal> foyers = new ArrayList<>();
+            for (int revenu = 0; revenu < 400_000; revenu += 997) {
+                for (SituationFamiliale sf : SituationFamiliale.values()) {
+                    FoyerFiscal foyer = new FoyerFiscal(revenu, sf.isMarried() ? revenu / 3 : 0, sf,
+                            revenu % 4, revenu % 2, false);
+                    foyers.add(foyer);
+                    futurs.add(executor.submit(() -> CALCULATEUR.calculer(foyer)));
+                }
+            }
+
+            SimulateurRefactored simulateur = new SimulateurRefactored();
+            for (int i = 0; i < foyers.size(); i++) {
+                FoyerFiscal foyer = foyers.get(i);
+                simulateur.calculImpot(foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(),
+                        foyer.situationFamiliale(), foyer.nbEnfantsACharge(),
+                        foyer.nbEnfantsSituationHandicap(), foyer.parentIsole());
+                assertEquals(simulateur.getResultat(), futurs.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @DisplayName("La contribution exceptionnelle est identique au simulateur legacy pour les deux barèmes")
+    @Test
+    public void testContributionExceptionnelleIdentiqueAuLegacy() {
+        Simulateur legacy = new Simulateur();
+        for (int revenu = 200_000; revenu < 2_500_000; revenu += 1_237) {
+            for (SituationFamiliale sf : SituationFamiliale.values()) {
+                int r2 = sf.isMarried() ? revenu / 5 : 0;
+                legacy.calculImpot(revenu, r2, sf, 0, 0, false);
+                ResultatImpot resultat = CALCULATEUR.calculer(new FoyerFiscal(revenu, r2, sf, 0, 0, false));
+                assertEquals(legacy.getContribExceptionnelle(), resultat.contribExceptionnelle());
+            }
+        }
+    }
+
+    @DisplayName("Le taux marginal est celui de la tranche atteinte par le revenu d'une part - ")
+    @ParameterizedTest( name = " revenu par part={0} - TAUX ATTENDU = {1}")
+    @CsvSource({ "0, 0.0", "11294, 0.0", "11294.5, 0.11", "28797, 0.11", "28798, 0.30",
+                 "82341, 0.30", "82342, 0.41", "177106, 0.41", "177107, 0.45", "5000000, 0.45" })
+    public void testTauxMarginal(double revenuParPart, double tauxAttendu) {
+        assertEquals(tauxAttendu, CALCULATEUR.tauxMarginal(revenuParPart));
+    }
+
+    @DisplayName("Le résultat porte le taux marginal du quotient familial du foyer")
+    @Test
+    public void testTauxMarginalDuFoyer() {
+        // 2 parts, revenu fiscal de référence 90 000 : 45 000 par part
+        ResultatImpot couple = CALCULATEUR.calculer(new FoyerFiscal(50_000, 50_000, SituationFamiliale.MARIE, 0, 0, false));
+        ResultatImpot celibataire = CALCULATEUR.calculer(new FoyerFiscal(20_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false));
+
+        assertEquals(0.30, couple.tauxMarginal());
+        assertEquals(0.11, celibataire.tauxMarginal());
+    }
+}
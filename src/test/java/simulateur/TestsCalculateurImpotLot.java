@@ -0,0 +1,111 @@
+package simulateur;
+
+import com.kerware.simulateur.CalculateurImpotLot;
+import com.kerware.simulateur.LotFoyers;
+import com.kerware.simulateur.LotResultats;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsCalculateurImpotLot {
+
+    static LotFoyers lotAleatoire(int taille, long graine) {
+        Random random = new Random(graine);
+        LotFoyers lot = new LotFoyers(taille);
+        for (int i = 0; i < taille; i++) {
+            SituationFamiliale sf = SituationFamiliale.values()[random.nextInt(SituationFamiliale.values().length)];
+            int r1 = random.nextInt(10) == 0 ? random.nextInt(2_000_000) : random.nextInt(150_000);
+            int r2 = sf.isMarried() ? random.nextInt(150_000) : 0;
+            int enf = random.nextInt(8);
+            lot.definir(i, r1, r2, sf, enf, random.nextInt(enf + 1), !sf.isMarried() && random.nextBoolean());
+        }
+        return lot;
+    }
+
+    static void verifierContreSimulateur(LotFoyers lot, LotResultats resultats) {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        for (int i = 0; i < lot.taille(); i++) {
+            int impot = simulateur.calculImpot(lot.getRevenusNetDeclarant1()[i], lot.getRevenusNetDeclarant2()[i],
+                    SituationFamiliale.values()[lot.getSituationsFamiliales()[i]], lot.getNbEnfantsACharge()[i],
+                    lot.getNbEnfantsSituationHandicap()[i], lot.getParentsIsoles()[i]);
+            assertEquals(impot, resultats.getImpotsNets()[i]);
+            assertEquals((int) simulateur.getRevenuReference(), resultats.getRevenusReference()[i]);
+            assertEquals(simulateur.getNbParts(), resultats.getNbParts()[i]);
+            assertEquals((int) simulateur.getDecote(), resultats.getDecotes()[i]);
+            assertEquals((int) simulateur.getContribExceptionnelle(), resultats.getContribExceptionnelles()[i]);
+            assertEquals((int) simulateur.getAbattement(), resultats.getAbattements()[i]);
+            assertEquals((int) simulateur.getImpotAvantDecote(), resultats.getImpotsAvantDecote()[i]);
+        }
+    }
+
+    @DisplayName("Le calcul par lot donne les mêmes résultats que SimulateurRefactored")
+    @Test
+    public void testLotIdentiqueAuSimulateur() {
+        LotFoyers lot = lotAleatoire(50_000, 2024);
+        LotResultats resultats = new LotResultats(lot.taille());
+
+        new CalculateurImpotLot().calculer(lot, resultats);
+
+        verifierContreSimulateur(lot, resultats);
+    }
+
+    @DisplayName("Un foyer invalide dans le lot est rejeté")
+    @Test
+    public void testLotFoyerInvalide() {
+        LotFoyers lot = lotAleatoire(10, 1);
+        lot.definir(5, 20_000, 10_000, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new CalculateurImpotLot().calculer(lot, new LotResultats(lot.taille())));
+    }
+
+    @DisplayName("Un lot de résultats trop court ou une plage hors du lot est refusé avant tout calcul")
+    @Test
+    public void testLotResultatsTropCourt() {
+        LotFoyers lot = lotAleatoire(10, 3);
+        LotResultats resultats = new LotResultats(6);
+        CalculateurImpotLot calcul = new CalculateurImpotLot();
+
+        assertThrows(IllegalArgumentException.class, () -> calcul.calculer(lot, resultats));
+        assertThrows(IllegalArgumentException.class, () -> calcul.calculer(lot, resultats, 4, 7));
+        assertEquals(0, resultats.getNbParts()[4]);
+        assertThrows(IndexOutOfBoundsException.class, () -> calcul.calculer(lot, resultats, 8, 11));
+        assertThrows(IndexOutOfBoundsException.class, () -> calcul.calculer(lot, resultats, 3, 2));
+
+        calcul.calculer(lot, resultats, 0, 6);
+        assertTrue(resultats.getNbParts()[5] > 0);
+    }
+
+    @DisplayName("Le calcul d'un lot de hauts revenus, soumis à la CEHR, n'alloue aucun objet")
+    @Test
+    public void testLotSansAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        LotFoyers lot = new LotFoyers(10_000);
+        for (int i = 0; i < lot.taille(); i++) {
+            SituationFamiliale sf = SituationFamiliale.values()[i % SituationFamiliale.values().length];
+            lot.definir(i, 240_000 + 97 * i, sf.isMarried() ? 300_000 + 53 * i : 0, sf, i % 4, 0, false);
+        }
+        LotResultats resultats = new LotResultats(lot.taille());
+        CalculateurImpotLot calculateur = new CalculateurImpotLot();
+        // Échauffement : le code interprété peut allouer ce que le code compilé élimine
+        for (int k = 0; k < 20; k++) {
+            calculateur.calculer(lot, resultats);
+        }
+
+        long avant = threads.getCurrentThreadAllocatedBytes();
+        calculateur.calculer(lot, resultats);
+        long alloues = threads.getCurrentThreadAllocatedBytes() - avant;
+
+        assertEquals(0, alloues);
+        verifierContreSimulateur(lot, resultats);
+    }
+}
@@ -0,0 +1,48 @@
+package simulateur;
+
+import com.kerware.simulateur.CalculateurImpotLot;
+import com.kerware.simulateur.CalculateurImpotParallele;
+import com.kerware.simulateur.LotFoyers;
+import com.kerware.simulateur.LotResultats;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsCalculateurImpotParallele {
+
+    @DisplayName("Le calcul parallèle est identique au calcul séquentiel")
+    @ParameterizedTest( name = "avec parallelisme={0}, tailleBloc={1}")
+    @CsvSource({ "1, 1000", "2, 1", "4, 777", "8, 4096" })
+    public void testIdentiqueAuSequentiel(int parallelisme, int tailleBloc) {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(20_000, parallelisme);
+        LotResultats attendus = new LotResultats(lot.taille());
+        new CalculateurImpotLot().calculer(lot, attendus);
+
+        LotResultats resultats = new LotResultats(lot.taille());
+        try (CalculateurImpotParallele calculateur = new CalculateurImpotParallele(parallelisme, tailleBloc)) {
+            calculateur.calculer(lot, resultats);
+        }
+
+        assertArrayEquals(attendus.getImpotsNets(), resultats.getImpotsNets());
+        assertArrayEquals(attendus.getRevenusReference(), resultats.getRevenusReference());
+        assertArrayEquals(attendus.getNbParts(), resultats.getNbParts());
+        assertArrayEquals(attendus.getDecotes(), resultats.getDecotes());
+        assertArrayEquals(attendus.getContribExceptionnelles(), resultats.getContribExceptionnelles());
+        TestsCalculateurImpotLot.verifierContreSimulateur(lot, resultats);
+    }
+
+    @DisplayName("Un foyer invalide est signalé par le calcul parallèle")
+    @Test
+    public void testFoyerInvalide() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(10_000, 3);
+        lot.definir(9_999, -1, 0, SituationFamiliale.VEUF, 0, 0, false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new CalculateurImpotParallele().calculer(lot, new LotResultats(lot.taille())));
+    }
+}
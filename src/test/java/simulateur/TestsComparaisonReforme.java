@@ -0,0 +1,219 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.ComparaisonReforme;
+import com.kerware.simulateur.ComparaisonReforme.Agregat;
+import com.kerware.simulateur.ComparaisonReforme.Bilan;
+import com.kerware.simulateur.ComparaisonReforme.Decile;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.LotFoyers;
+import com.kerware.simulateur.PopulationHorsTas;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.SourceFoyers;
+import com.kerware.simulateur.TrancheImpot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsComparaisonReforme {
+
+    private static final CalculateurImpot REFERENCE = new CalculateurImpot(Bareme.charger(2024));
+    // Largeur des classes de revenu de l'histogramme des déciles
+    private static final int LARGEUR_CLASSE = 1_000;
+
+    // Taux de la deuxième tranche relevé d'un point, plafond de la demi-part et décote augmentés
+    private static Bareme reforme() {
+        Bareme b = REFERENCE.getBareme();
+        List<TrancheImpot> tranches = new ArrayList<>(b.tranchesImpot());
+        TrancheImpot t = tranches.get(1);
+        tranches.set(1, new TrancheImpot(t.borneInferieure(), t.borneSuperieure(), t.taux() + 0.01));
+        Bareme.Decote d = b.decote();
+        return new Bareme(b.annee(), tranches, b.tranchesCEHRCelibataire(), b.tranchesCEHRCouple(),
+                b.abattement(), b.plafondDemiPart() + 200,
+                new Bareme.Decote(d.seuilSeul(), d.seuilCouple(), d.maxSeul() + 100, d.maxCouple() + 150, d.taux()));
+    }
+
+    private static FoyerFiscal foyer(LotFoyers lot, int i) {
+        return new FoyerFiscal(lot.getRevenusNetDeclarant1()[i], lot.getRevenusNetDeclarant2()[i],
+                SituationFamiliale.values()[lot.getSituationsFamiliales()[i]], lot.getNbEnfantsACharge()[i],
+                lot.getNbEnfantsSituationHandicap()[i], lot.getParentsIsoles()[i]);
+    }
+
+    // Agrégats attendus, calculés foyer par foyer
+    private static long[] attendu(CalculateurImpot reformeCalc, LotFoyers lot, SituationFamiliale sf) {
+        long[] a = new long[5];
+        for (int i = 0; i < lot.taille(); i++) {
+            FoyerFiscal foyer = foyer(lot, i);
+            if (sf != null && foyer.situationFamiliale() != sf) {
+                continue;
+            }
+            long avant = (long) REFERENCE.calculer(foyer).impotNet();
+            long apres = (long) reformeCalc.calculer(foyer).impotNet();
+            a[0]++;
+            a[1] += avant;
+            a[2] += apres;
+            a[3] += apres < avant ? 1 : 0;
+            a[4] += apres > avant ? 1 : 0;
+        }
+        return a;
+    }
+
+    private static void verifier(long[] attendu, Agregat agregat) {
+        assertEquals(attendu[0], agregat.nbFoyers());
+        assertEquals(attendu[1], agregat.impotReference());
+        assertEquals(attendu[2], agregat.impotReforme());
+        assertEquals(attendu[3], agregat.nbGagnants());
+        assertEquals(attendu[4], agregat.nbPerdants());
+    }
+
+    @DisplayName("Les agrégats d'une réforme sont ceux du calcul foyer par foyer avec chaque barème")
+    @Test
+    public void testAgregatsExacts() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(30_000, 23);
+        CalculateurImpot reformeCalc = new CalculateurImpot(reforme());
+        Bilan bilan = new ComparaisonReforme(REFERENCE, reformeCalc).comparer(lot);
+
+        verifier(attendu(reformeCalc, lot, null), bilan.total());
+        for (SituationFamiliale sf : SituationFamiliale.values()) {
+            verifier(attendu(reformeCalc, lot, sf), bilan.parSituation().get(sf));
+        }
+        assertTrue(bilan.total().nbGagnants() > 0 && bilan.total().nbPerdants() > 0);
+    }
+
+    @DisplayName("Les déciles partagent la population et les recettes en dix parts")
+    @Test
+    public void testDecilesCouvrentLaPopulation() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(25_003, 7);
+        Bilan bilan = new ComparaisonReforme(REFERENCE, new CalculateurImpot(reforme())).comparer(lot);
+
+        assertEquals(10, bilan.deciles().size());
+        double foyers = 0;
+        double impotReference = 0;
+        double impotReforme = 0;
+        int revenuPrecedent = 0;
+        for (Decile decile : bilan.deciles()) {
+            assertEquals(25_003 / 10.0, decile.nbFoyers(), 1e-6);
+            assertTrue(decile.revenuMin() >= revenuPrecedent - LARGEUR_CLASSE);
+            assertTrue(decile.revenuMin() <= decile.revenuMax());
+            revenuPrecedent = decile.revenuMax();
+            foyers += decile.nbFoyers();
+            impotReference += decile.impotReference();
+            impotReforme += decile.impotReforme();
+        }
+        assertEquals(bilan.total().nbFoyers(), foyers, 1e-6);
+        assertEquals(bilan.total().impotReference(), impotReference, 1e-3);
+        assertEquals(bilan.total().impotReforme(), impotReforme, 1e-3);
+    }
+
+    @DisplayName("Des déciles séparés par l'histogramme sont exacts")
+    @Test
+    public void testDecilesExacts() {
+        // Dix groupes de 1000 foyers, chacun dans ses propres classes de revenu
+        LotFoyers lot = new LotFoyers(10_000);
+        for (int i = 0; i < lot.taille(); i++) {
+            int groupe = i / 1_000;
+            SituationFamiliale sf = i % 2 == 0 ? SituationFamiliale.CELIBATAIRE : SituationFamiliale.MARIE;
+            lot.definir(i, 12_000 + 9_000 * groupe + i % 1_000, sf.isMarried() ? 6_000 : 0, sf, i % 3, 0, false);
+        }
+        CalculateurImpot reformeCalc = new CalculateurImpot(reforme());
+        Bilan bilan = new ComparaisonReforme(REFERENCE, reformeCalc).comparer(lot);
+
+        for (int d = 0; d < 10; d++) {
+            LotFoyers groupe = new LotFoyers(1_000);
+            for (int j = 0; j < 1_000; j++) {
+                FoyerFiscal f = foyer(lot, d * 1_000 + j);
+                groupe.definir(j, f.revenuNetDeclarant1(), f.revenuNetDeclarant2(), f.situationFamiliale(),
+                        f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+            }
+            long[] a = attendu(reformeCalc, groupe, null);
+            Decile decile = bilan.deciles().get(d);
+            assertEquals(d + 1, decile.rang());
+            assertEquals(a[0], decile.nbFoyers(), 1e-9);
+            assertEquals(a[1], decile.impotReference(), 1e-6);
+            assertEquals(a[2], decile.impotReforme(), 1e-6);
+            assertEquals(a[3], decile.nbGagnants(), 1e-9);
+            assertEquals(a[4], decile.nbPerdants(), 1e-9);
+        }
+    }
+
+    @DisplayName("Un lot, une source et une population hors tas donnent le même bilan")
+    @Test
+    public void testSourcesEquivalentes() throws IOException {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(12_345, 99);
+        ComparaisonReforme comparaison = new ComparaisonReforme(REFERENCE, new CalculateurImpot(reforme()));
+        PopulationHorsTas population = new PopulationHorsTas(lot.taille());
+        population.ajouter(lot, lot.taille());
+
+        Bilan parLot = comparaison.comparer(lot);
+        Bilan parPopulation = comparaison.comparer(population);
+        Bilan parSource;
+        try (SourceFoyers source = new SourceLot(lot)) {
+            parSource = comparaison.comparer(source, new LotFoyers(3_000));
+        }
+
+        assertEquals(parLot, parPopulation);
+        assertEquals(parLot, parSource);
+    }
+
+    @DisplayName("Un barème inchangé ne fait ni gagnant ni perdant")
+    @Test
+    public void testBaremeInchange() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(10_000, 5);
+        Bilan bilan = new ComparaisonReforme(REFERENCE.getBareme()).comparer(lot);
+
+        assertEquals(0, bilan.total().ecart());
+        assertEquals(0, bilan.total().nbGagnants());
+        assertEquals(0, bilan.total().nbPerdants());
+        assertEquals(10_000, bilan.total().nbFoyers());
+    }
+
+    @DisplayName("Une population vide n'a pas de déciles et un foyer invalide est rejeté")
+    @Test
+    public void testCasLimites() {
+        ComparaisonReforme comparaison = new ComparaisonReforme(REFERENCE, REFERENCE);
+        Bilan vide = comparaison.comparer(new LotFoyers(0));
+        assertEquals(0, vide.total().nbFoyers());
+        assertTrue(vide.deciles().isEmpty());
+
+        LotFoyers lot = new LotFoyers(1);
+        lot.definir(0, -1, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        assertThrows(IllegalArgumentException.class, () -> comparaison.comparer(lot));
+    }
+
+    /**
+     * Source lisant un lot en mémoire par morceaux.
+     */
+    private static final class SourceLot implements SourceFoyers {
+
+        private final LotFoyers lot;
+        private int position;
+
+        SourceLot(LotFoyers foyers) {
+            this.lot = foyers;
+        }
+
+        @Override
+        public int lire(LotFoyers tampon) {
+            int n = Math.min(tampon.taille(), lot.taille() - position);
+            for (int j = 0; j < n; j++) {
+                FoyerFiscal f = foyer(lot, position + j);
+                tampon.definir(j, f.revenuNetDeclarant1(), f.revenuNetDeclarant2(), f.situationFamiliale(),
+                        f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+            }
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package simulateur;
+
+import com.kerware.simulateur.CourbeImpot;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsCourbeImpot {
+
+    private static final FoyerFiscal CELIBATAIRE = new FoyerFiscal(0, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+    @DisplayName("Chaque point de la courbe est identique à SimulateurRefactored - ")
+    @ParameterizedTest( name = " {1} avec {2} enfants, revenu du conjoint {0}, pas {5}")
+    @CsvSource({ "0, CELIBATAIRE, 0, 0, false, 1", "0, DIVORCE, 2, 1, true, 3", "0, VEUF, 3, 0, false, 7",
+                 "20000, MARIE, 2, 0, false, 1", "0, PACSE, 4, 1, false, 11", "600000, MARIE, 7, 7, false, 13" })
+    public void testPointsIdentiques(int r2, SituationFamiliale sf, int enf, int enfH, boolean iso, int pas) {
+        FoyerFiscal modele = new FoyerFiscal(0, r2, sf, enf, enfH, iso);
+        CourbeImpot courbe = CourbeImpot.calculer(modele, 0, 1_500_000, pas);
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+
+        assertEquals(1_500_000 / pas + 1, courbe.getNbPoints());
+        for (int i = 0; i < courbe.getNbPoints(); i++) {
+            int impot = simulateur.calculImpot(courbe.revenu(i), r2, sf, enf, enfH, iso);
+            if (impot != courbe.impot(i)) {
+                assertEquals(impot, courbe.impot(i), "revenu " + courbe.revenu(i));
+            }
+        }
+    }
+
+    private static double taux(List<CourbeImpot.Rupture> ruptures, int revenu, CourbeImpot.Cause cause) {
+        return ruptures.stream().filter(r -> r.revenu() == revenu && r.cause() == cause)
+                .mapToDouble(CourbeImpot.Rupture::tauxMarginal).findFirst()
+                .orElseThrow(() -> new AssertionError(cause + " absente à " + revenu + " : " + ruptures));
+    }
+
+    @DisplayName("Les ruptures d'un célibataire tombent aux revenus exacts attendus")
+    @Test
+    public void testRupturesCelibataire() {
+        List<CourbeImpot.Rupture> ruptures = CourbeImpot.calculer(CELIBATAIRE, 0, 1_200_000, 1_000).getRuptures();
+
+        // Décote partielle, puis tranche à 30 % : revenu fiscal 28 798 = 31 998 - 3 200
+        assertEquals(0.9 * 0.11 * 1.4525, taux(ruptures, 18_626, CourbeImpot.Cause.DECOTE), 1e-9);
+        assertEquals(0.9 * 0.30 * 1.4525, taux(ruptures, 31_998, CourbeImpot.Cause.TRANCHE), 1e-9);
+        assertEquals(0.9 * 0.30, taux(ruptures, 32_009, CourbeImpot.Cause.DECOTE), 1e-9);
+        // Abattement plafonné à 14 171 €
+        assertEquals(0.41, taux(ruptures, 141_705, CourbeImpot.Cause.ABATTEMENT), 1e-9);
+        // Tranche à 45 % puis CEHR au-delà de 250 000 et 500 000 € de revenu fiscal
+        assertEquals(0.45, taux(ruptures, 191_278, CourbeImpot.Cause.TRANCHE), 1e-9);
+        assertEquals(0.48, taux(ruptures, 264_172, CourbeImpot.Cause.CEHR), 1e-9);
+        assertEquals(0.49, taux(ruptures, 514_172, CourbeImpot.Cause.CEHR), 1e-9);
+        assertEquals(CourbeImpot.Cause.DEBUT, ruptures.get(0).cause());
+        assertEquals(0, ruptures.get(0).tauxMarginal());
+    }
+
+    @DisplayName("Le taux marginal de chaque segment est la pente de la courbe entre deux ruptures - ")
+    @ParameterizedTest( name = " {0} avec {1} enfants")
+    @CsvSource({ "CELIBATAIRE, 0, false", "DIVORCE, 2, true", "MARIE, 3, false", "VEUF, 1, false" })
+    public void testPenteEntreRuptures(SituationFamiliale sf, int enf, boolean iso) {
+        FoyerFiscal modele = new FoyerFiscal(0, 0, sf, enf, 0, iso);
+        CourbeImpot courbe = CourbeImpot.calculer(modele, 0, 2_000_000, 1);
+        List<CourbeImpot.Rupture> ruptures = courbe.getRuptures();
+
+        for (int n = 0; n < ruptures.size(); n++) {
+            int a = ruptures.get(n).revenu();
+            int b = n + 1 < ruptures.size() ? ruptures.get(n + 1).revenu() : 2_000_001;
+            if (b - a > 2_000) {
+                double pente = (double) (courbe.impot(b - 1) - courbe.impot(a)) / (b - 1 - a);
+                assertEquals(ruptures.get(n).tauxMarginal(), pente, 0.005, () -> "segment " + a + "-" + b);
+                assertEquals(ruptures.get(n).tauxMarginal(), courbe.tauxMarginal(a));
+            }
+            if (n > 0) {
+                assertTrue(ruptures.get(n).tauxMarginal() != ruptures.get(n - 1).tauxMarginal());
+            }
+        }
+    }
+
+    @DisplayName("Les ruptures ne dépendent pas du pas, même entre deux points éloignés - ")
+    @ParameterizedTest( name = " {0} avec {1} enfants, pas {3}")
+    @CsvSource({ "CELIBATAIRE, 0, false, 700000", "DIVORCE, 2, true, 1000000",
+                 "MARIE, 3, false, 333333", "VEUF, 1, false, 2000000" })
+    public void testRupturesIndependantesDuPas(SituationFamiliale sf, int enf, boolean iso, int pas) {
+        FoyerFiscal modele = new FoyerFiscal(0, 0, sf, enf, 0, iso);
+
+        assertEquals(CourbeImpot.calculer(modele, 0, 2_000_000, 1).getRuptures(),
+                CourbeImpot.calculer(modele, 0, 2_000_000, pas).getRuptures());
+    }
+
+    @DisplayName("Un intervalle ou un foyer invalide est refusé")
+    @Test
+    public void testParametresInvalides() {
+        assertThrows(IllegalArgumentException.class, () -> CourbeImpot.calculer(CELIBATAIRE, 10, 5, 1));
+        assertThrows(IllegalArgumentException.class, () -> CourbeImpot.calculer(CELIBATAIRE, 0, 5, 0));
+        assertThrows(IllegalArgumentException.class, () -> CourbeImpot.calculer(
+                new FoyerFiscal(0, 10, SituationFamiliale.CELIBATAIRE, 0, 0, false), 0, 100, 1));
+    }
+}
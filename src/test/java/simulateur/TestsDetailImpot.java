@@ -0,0 +1,187 @@
+package simulateur;
+
+import com.kerware.simulateur.AdaptateurSimulateur;
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.DetailImpot;
+import com.kerware.simulateur.DetailImpot.MontantTranche;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.LotFoyers;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsDetailImpot {
+
+    private static final CalculateurImpot CALCULATEUR = new CalculateurImpot();
+
+    private static FoyerFiscal[] foyersAleatoires(int taille, long graine) {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(taille, graine);
+        FoyerFiscal[] foyers = new FoyerFiscal[taille];
+        for (int i = 0; i < taille; i++) {
+            foyers[i] = new FoyerFiscal(lot.getRevenusNetDeclarant1()[i], lot.getRevenusNetDeclarant2()[i],
+                    SituationFamiliale.values()[lot.getSituationsFamiliales()[i]], lot.getNbEnfantsACharge()[i],
+                    lot.getNbEnfantsSituationHandicap()[i], lot.getParentsIsoles()[i]);
+        }
+        return foyers;
+    }
+
+    private static double somme(Iterable<MontantTranche> tranches) {
+        double somme = 0;
+        for (MontantTranche tranche : tranches) {
+            somme += tranche.montant();
+        }
+        return somme;
+    }
+
+    @DisplayName("L'impôt seul est celui du calcul complet - ")
+    @ParameterizedTest( name = " avec revenuNetDeclarant1={0}, revenuNetDeclarant2={1}, situationFamiliale={2} - IMPOT NET ATTENDU = {6}")
+    @CsvFileSource( resources={"/datasImposition.csv"} , numLinesToSkip = 1 )
+    public void testImpotSeul(int r1, int r2, String sf, int enf, int enfH, boolean iso, int impotAttendu) {
+        FoyerFiscal foyer = new FoyerFiscal(r1, r2, SituationFamiliale.valueOf(sf), enf, enfH, iso);
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+
+        assertEquals(impotAttendu, CALCULATEUR.calculerImpotNet(foyer));
+        assertEquals(impotAttendu, simulateur.calculImpot(r1, r2, SituationFamiliale.valueOf(sf), enf, enfH, iso));
+        assertEquals(CALCULATEUR.calculer(foyer), simulateur.getResultat());
+    }
+
+    @DisplayName("L'impôt seul est celui du calcul complet pour chaque barème livré")
+    @Test
+    public void testImpotSeulMultiAnnees() {
+        FoyerFiscal[] foyers = foyersAleatoires(20_000, 25);
+        for (int annee = 2022; annee <= 2025; annee++) {
+            CalculateurImpot calculateur = new CalculateurImpot(Bareme.charger(annee));
+            for (FoyerFiscal foyer : foyers) {
+                assertEquals(calculateur.calculer(foyer).impotNet(), calculateur.calculerImpotNet(foyer));
+            }
+        }
+    }
+
+    @DisplayName("L'impôt seul n'alloue rien")
+    @Test
+    public void testImpotSeulSansAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        FoyerFiscal[] foyers = foyersAleatoires(100_000, 4);
+        double total = 0;
+        long avant = threads.getCurrentThreadAllocatedBytes();
+        for (FoyerFiscal foyer : foyers) {
+            total += CALCULATEUR.calculerImpotNet(foyer);
+        }
+        long alloues = threads.getCurrentThreadAllocatedBytes() - avant;
+
+        assertTrue(total > 0);
+        assertTrue(alloues < 100_000, alloues + " octets alloués");
+    }
+
+    @DisplayName("Le détail, calculé à la demande, explique l'impôt net")
+    @Test
+    public void testDetailCoherent() {
+        for (FoyerFiscal foyer : foyersAleatoires(5_000, 11)) {
+            DetailImpot detail = CALCULATEUR.detailler(foyer);
+            ResultatImpot resultat = detail.resultat();
+
+            assertSame(resultat, detail.resultat());
+            assertSame(detail.tranchesImpot(), detail.tranchesImpot());
+            assertEquals(CALCULATEUR.calculer(foyer), resultat);
+            assertEquals(resultat.impotNet(), detail.impotNet());
+            assertEquals(detail.impotAvantPlafonnement(), Math.round(somme(detail.tranchesImpot())), 1);
+            assertEquals(resultat.contribExceptionnelle(), Math.round(somme(detail.tranchesCEHR())), 1);
+            assertEquals(resultat.impotDeclarants() - detail.impotAvantPlafonnement(),
+                    detail.gainQuotientFamilial() + detail.reprisePlafonnement());
+            assertEquals(detail.isPlafonne(), detail.reprisePlafonnement() > 0);
+            assertEquals(resultat.impotAvantDecote() - detail.decote() + detail.contribExceptionnelle(),
+                    detail.impotNet());
+        }
+    }
+
+    @DisplayName("Le détail d'un couple aisé avec enfants montre le plafonnement et la contribution")
+    @Test
+    public void testDetailPlafonne() {
+        DetailImpot detail = CALCULATEUR.detailler(
+                new FoyerFiscal(600_000, 400_000, SituationFamiliale.MARIE, 3, 0, false));
+
+        assertTrue(detail.isPlafonne());
+        assertTrue(detail.reprisePlafonnement() > 0);
+        assertTrue(detail.gainQuotientFamilial() > 0);
+        assertEquals(0, detail.decote());
+        assertTrue(detail.contribExceptionnelle() > 0);
+        assertEquals(CALCULATEUR.baremeProgressif().getNbTranches(), detail.tranchesImpot().size());
+        MontantTranche premiere = detail.tranchesImpot().get(0);
+        assertEquals(premiere.borneSuperieure() - premiere.borneInferieure(), premiere.base());
+        assertEquals(0, detail.tranchesCEHR().get(0).montant());
+        assertEquals(detail.contribExceptionnelle(), Math.round(somme(detail.tranchesCEHR())), 1);
+
+        DetailImpot modeste = CALCULATEUR.detailler(
+                new FoyerFiscal(20_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false));
+        assertFalse(modeste.isPlafonne());
+        assertEquals(0, modeste.gainQuotientFamilial());
+        assertTrue(modeste.decote() > 0);
+        assertEquals(0, somme(modeste.tranchesCEHR()));
+    }
+
+    @DisplayName("L'adaptateur ne calcule le détail qu'à la consultation et garde le dernier résultat valide")
+    @Test
+    public void testAdaptateurParesseux() {
+        AdaptateurSimulateur simulateur = new AdaptateurSimulateur();
+        simulateur.setRevenusNetDeclarant1(65_000);
+        simulateur.setRevenusNetDeclarant2(40_000);
+        simulateur.setSituationFamiliale(SituationFamiliale.PACSE);
+        simulateur.setNbEnfantsACharge(2);
+        simulateur.setNbEnfantsSituationHandicap(1);
+        simulateur.setParentIsole(false);
+        simulateur.calculImpotSurRevenuNet();
+        ResultatImpot attendu = CALCULATEUR.calculer(
+                new FoyerFiscal(65_000, 40_000, SituationFamiliale.PACSE, 2, 1, false));
+
+        assertEquals((int) attendu.impotNet(), simulateur.getImpotSurRevenuNet());
+        simulateur.setRevenusNetDeclarant1(-1);
+        assertThrows(IllegalArgumentException.class, simulateur::calculImpotSurRevenuNet);
+        assertEquals((int) attendu.impotNet(), simulateur.getImpotSurRevenuNet());
+        assertEquals((int) attendu.revenuReference(), simulateur.getRevenuFiscalReference());
+        assertEquals(attendu.nbParts(), simulateur.getNbPartsFoyerFiscal());
+        assertEquals((int) attendu.decote(), simulateur.getDecote());
+        assertEquals((int) attendu.impotAvantDecote(), simulateur.getImpotAvantDecote());
+        assertEquals((int) attendu.impotNet(), simulateur.getImpotSurRevenuNet());
+    }
+
+    @DisplayName("Le simulateur n'a pas de détail avant le premier calcul")
+    @Test
+    public void testSimulateurSansCalcul() {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        assertNull(simulateur.getDetail());
+        assertEquals(0, simulateur.getImpotNet());
+        simulateur.calculImpot(30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        assertEquals(simulateur.getImpotNet(), simulateur.getDetail().impotNet());
+    }
+
+    @DisplayName("Le détail est construit à la première consultation, pour le dernier calcul seulement")
+    @Test
+    public void testDetailALaDemande() {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        simulateur.calculImpot(30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        int impot = simulateur.calculImpot(65_000, 0, SituationFamiliale.VEUF, 3, 0, false);
+
+        DetailImpot detail = simulateur.getDetail();
+        assertEquals(65_000, detail.foyer().revenuNetDeclarant1());
+        assertEquals(impot, (int) detail.impotNet());
+        assertSame(detail, simulateur.getDetail());
+        assertEquals(detail.resultat().abattement(), simulateur.getAbattement());
+
+        simulateur.calculImpot(30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        assertEquals(30_000, simulateur.getDetail().foyer().revenuNetDeclarant1());
+    }
+}
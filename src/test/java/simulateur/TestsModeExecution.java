@@ -0,0 +1,160 @@
+package simulateur;
+
+import com.kerware.simulateur.AdaptateurSimulateur;
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.ComparaisonLegacy;
+import com.kerware.simulateur.ICalculateurImpot;
+import com.kerware.simulateur.ModeExecution;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsModeExecution {
+
+    private static void definir(ICalculateurImpot simulateur, int r1, int r2, SituationFamiliale sf,
+                                int enf, int enfH, boolean iso) {
+        simulateur.setRevenusNetDeclarant1(r1);
+        simulateur.setRevenusNetDeclarant2(r2);
+        simulateur.setSituationFamiliale(sf);
+        simulateur.setNbEnfantsACharge(enf);
+        simulateur.setNbEnfantsSituationHandicap(enfH);
+        simulateur.setParentIsole(iso);
+    }
+
+    @DisplayName("Le mode legacy donne les mêmes résultats que le mode refactorisé - ")
+    @ParameterizedTest( name = " avec revenuNetDeclarant1={0}, revenuNetDeclarant2={1}, situationFamiliale={2} - IMPOT NET ATTENDU = {6}")
+    @CsvFileSource( resources={"/datasImposition.csv"} , numLinesToSkip = 1 )
+    public void testModeLegacy(int r1, int r2, String sf, int enf, int enfH, boolean iso, int impotAttendu) {
+        AdaptateurSimulateur legacy = new AdaptateurSimulateur(ModeExecution.LEGACY);
+        AdaptateurSimulateur refactorise = new AdaptateurSimulateur();
+        definir(legacy, r1, r2, SituationFamiliale.valueOf(sf), enf, enfH, iso);
+        definir(refactorise, r1, r2, SituationFamiliale.valueOf(sf), enf, enfH, iso);
+
+        legacy.calculImpotSurRevenuNet();
+        refactorise.calculImpotSurRevenuNet();
+
+        assertEquals(ModeExecution.REFACTORISE, refactorise.getMode());
+        assertEquals(impotAttendu, legacy.getImpotSurRevenuNet());
+        assertEquals(refactorise.getImpotSurRevenuNet(), legacy.getImpotSurRevenuNet());
+        assertEquals(refactorise.getDecote(), legacy.getDecote());
+        assertEquals(refactorise.getNbPartsFoyerFiscal(), legacy.getNbPartsFoyerFiscal());
+        assertEquals(refactorise.getContribExceptionnelle(), legacy.getContribExceptionnelle());
+        assertEquals(refactorise.getRevenuFiscalReference(), legacy.getRevenuFiscalReference());
+    }
+
+    @DisplayName("Le mode comparaison compte les appels comparés et ne trouve aucune divergence")
+    @Test
+    public void testModeComparaison() {
+        List<String> divergences = new ArrayList<>();
+        ComparaisonLegacy comparaison = new ComparaisonLegacy(1.0, Runnable::run,
+                (foyer, champ, legacy, refactorise) -> divergences.add(foyer + " " + champ));
+        AdaptateurSimulateur simulateur = new AdaptateurSimulateur(comparaison);
+
+        int appels = 0;
+        for (int revenu = 0; revenu < 1_200_000; revenu += 3_571) {
+            for (SituationFamiliale sf : SituationFamiliale.values()) {
+                definir(simulateur, revenu, sf.isMarried() ? revenu / 2 : 0, sf, 1 + revenu % 5, revenu % 2, false);
+                simulateur.calculImpotSurRevenuNet();
+                appels++;
+            }
+        }
+
+        assertEquals(appels, comparaison.getNbComparaisons());
+        assertEquals(0, comparaison.getNbDivergences());
+        assertTrue(divergences.isEmpty(), divergences::toString);
+    }
+
+    @DisplayName("Le mode comparaison n'exécute le legacy que sur l'échantillon demandé")
+    @Test
+    public void testEchantillonnage() {
+        ComparaisonLegacy aucune = new ComparaisonLegacy(0.0, Runnable::run, (foyer, champ, legacy, refactorise) -> { });
+        ComparaisonLegacy moitie = new ComparaisonLegacy(0.5, Runnable::run, (foyer, champ, legacy, refactorise) -> { });
+        AdaptateurSimulateur sansComparaison = new AdaptateurSimulateur(aucune);
+        AdaptateurSimulateur avecComparaison = new AdaptateurSimulateur(moitie);
+
+        for (int i = 0; i < 2_000; i++) {
+            definir(sansComparaison, 30_000 + i, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+            definir(avecComparaison, 30_000 + i, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+            sansComparaison.calculImpotSurRevenuNet();
+            avecComparaison.calculImpotSurRevenuNet();
+        }
+
+        assertEquals(0, aucune.getNbComparaisons());
+        assertTrue(moitie.getNbComparaisons() > 800 && moitie.getNbComparaisons() < 1_200);
+    }
+
+    @DisplayName("Les comparaisons refusées par un exécuteur saturé sont comptées comme ignorées")
+    @Test
+    public void testExecuteurSature() {
+        ComparaisonLegacy comparaison = new ComparaisonLegacy(1.0, tache -> {
+            throw new RejectedExecutionException();
+        }, (foyer, champ, legacy, refactorise) -> { });
+        AdaptateurSimulateur simulateur = new AdaptateurSimulateur(comparaison);
+
+        for (int i = 0; i < 10; i++) {
+            definir(simulateur, 30_000 + i, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+            simulateur.calculImpotSurRevenuNet();
+        }
+
+        assertEquals(10, comparaison.getNbIgnorees());
+        assertEquals(0, comparaison.getNbComparaisons());
+    }
+
+    @DisplayName("Les résultats d'un autre barème que celui du legacy ne sont pas comparés")
+    @Test
+    public void testAutreBareme() {
+        List<String> divergences = new ArrayList<>();
+        ComparaisonLegacy comparaison = new ComparaisonLegacy(1.0, Runnable::run,
+                (foyer, champ, legacy, refactorise) -> divergences.add(foyer + " " + champ));
+        AdaptateurSimulateur simulateur = new AdaptateurSimulateur(comparaison);
+        CalculateurImpot ancien = RegistreBaremes.global().recharger(2025);
+        try {
+            definir(simulateur, 45_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+            simulateur.calculImpotSurRevenuNet();
+        } finally {
+            RegistreBaremes.global().publier(ancien.getBareme());
+        }
+        simulateur.calculImpotSurRevenuNet();
+
+        assertEquals(1, comparaison.getNbHorsBareme());
+        assertEquals(1, comparaison.getNbComparaisons());
+        assertEquals(0, comparaison.getNbDivergences());
+        assertTrue(divergences.isEmpty(), divergences::toString);
+    }
+
+    @DisplayName("Les adaptateurs en mode comparaison partagent un seul thread de comparaison")
+    @Test
+    public void testComparaisonParDefautPartagee() {
+        for (int a = 0; a < 500; a++) {
+            AdaptateurSimulateur simulateur = new AdaptateurSimulateur(ModeExecution.COMPARAISON);
+            for (int i = 0; i < 200; i++) {
+                definir(simulateur, 20_000 + 100 * i, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+                simulateur.calculImpotSurRevenuNet();
+            }
+        }
+
+        long threads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("comparaison-legacy")).count();
+        assertTrue(threads <= 1, threads + " threads de comparaison");
+        assertSame(ComparaisonLegacy.parDefaut(), ComparaisonLegacy.parDefaut());
+    }
+
+    @DisplayName("Un taux d'échantillonnage hors de [0, 1] est refusé")
+    @Test
+    public void testTauxInvalide() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ComparaisonLegacy(1.5, Runnable::run, (foyer, champ, legacy, refactorise) -> { }));
+    }
+}
@@ -0,0 +1,185 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.CacheCalculateurs;
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsMultiAnnees {
+
+    private static final FoyerFiscal CELIBATAIRE_30K = new FoyerFiscal(30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+    @DisplayName("L'impôt d'un célibataire à 30 000 € suit le barème de chaque année - ")
+    @ParameterizedTest( name = " année {0} - IMPOT NET ATTENDU = {1}")
+    @CsvSource({ "2022, 2022", "2023, 1760", "2024, 1637", "2025, 1588" })
+    public void testImpotParAnnee(int annee, int impotAttendu) {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+
+        assertEquals(impotAttendu, simulateur.calculImpot(annee, 30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false));
+    }
+
+    @DisplayName("L'année par défaut donne les mêmes résultats que le barème 2024 du cache")
+    @Test
+    public void testAnneeParDefaut() {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        for (int revenu = 0; revenu < 600_000; revenu += 4_999) {
+            for (SituationFamiliale sf : SituationFamiliale.values()) {
+                int r2 = sf.isMarried() ? revenu / 2 : 0;
+                int impot = simulateur.calculImpot(revenu, r2, sf, 2, 1, false);
+                assertEquals(impot, simulateur.calculImpot(2024, revenu, r2, sf, 2, 1, false));
+            }
+        }
+    }
+
+    @DisplayName("L'année du registre suit le barème qui y est publié")
+    @Test
+    public void testAnneeDuRegistre() {
+        CalculateurImpot c2024 = new CalculateurImpot();
+        Bareme bareme = c2024.getBareme();
+        RegistreBaremes registre = new RegistreBaremes(c2024);
+        registre.publier(new Bareme(2024, bareme.tranchesImpot(), bareme.tranchesCEHRCelibataire(),
+                bareme.tranchesCEHRCouple(), bareme.abattement(), bareme.plafondDemiPart(),
+                new Bareme.Decote(0, 0, 0, 0, 0)));
+        SimulateurRefactored simulateur = new SimulateurRefactored(registre);
+
+        int impot = simulateur.calculImpot(20_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+        assertEquals(impot, simulateur.calculImpot(2024, 20_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false));
+        assertEquals(0, simulateur.getDecote());
+    }
+
+    @DisplayName("Une année demandée par plusieurs threads à la fois n'est compilée qu'une fois")
+    @Test
+    public void testCompilationConcurrente() throws Exception {
+        AtomicInteger lectures = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+        CacheCalculateurs cache = new CacheCalculateurs(2, annee -> {
+            lectures.incrementAndGet();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Bareme.charger(annee);
+        });
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CalculateurImpot>> calculateurs = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                calculateurs.add(threads.submit(() -> {
+                    depart.await();
+                    return cache.calculateur(2023);
+                }));
+            }
+            depart.countDown();
+            for (Future<CalculateurImpot> calculateur : calculateurs) {
+                assertSame(calculateurs.get(0).get(), calculateur.get());
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        assertEquals(1, lectures.get());
+        assertEquals(1, cache.getNbCompilations());
+    }
+
+    @DisplayName("Une compilation devancée par une publication de la même année n'est pas comptée")
+    @Test
+    public void testCompilationDevancee() {
+        AtomicReference<CacheCalculateurs> reference = new AtomicReference<>();
+        CacheCalculateurs cache = new CacheCalculateurs(2, annee -> {
+            Bareme bareme = Bareme.charger(annee);
+            reference.get().publier(bareme);
+            return bareme;
+        });
+        reference.set(cache);
+
+        CalculateurImpot publie = cache.calculateur(2024);
+
+        assertSame(publie, cache.calculateur(2024));
+        assertEquals(1, cache.taille());
+        assertEquals(1, cache.getNbCompilations());
+    }
+
+    @DisplayName("La comparaison sur plusieurs années compile chaque barème une seule fois")
+    @Test
+    public void testComparaisonSansRecompilation() {
+        CacheCalculateurs cache = new CacheCalculateurs(4);
+
+        Map<Integer, ResultatImpot> premiers = cache.calculer(CELIBATAIRE_30K, 2025, 2022, 2024, 2023);
+        Map<Integer, ResultatImpot> seconds = cache.calculer(CELIBATAIRE_30K, 2025, 2022, 2024, 2023);
+
+        assertEquals(List.of(2025, 2022, 2024, 2023), List.copyOf(premiers.keySet()));
+        assertEquals(2022, (int) premiers.get(2022).impotNet());
+        assertEquals(1588, (int) premiers.get(2025).impotNet());
+        assertEquals(premiers, seconds);
+        assertEquals(4, cache.getNbCompilations());
+    }
+
+    @DisplayName("Au-delà de sa capacité, le cache retire une année qui n'a pas été consultée de nouveau")
+    @Test
+    public void testEviction() {
+        CacheCalculateurs cache = new CacheCalculateurs(2);
+        CalculateurImpot c2022 = cache.calculateur(2022);
+        cache.calculateur(2023);
+        assertSame(c2022, cache.calculateur(2022));
+
+        cache.calculateur(2024);
+
+        assertEquals(2, cache.taille());
+        assertSame(c2022, cache.calculateur(2022));
+        assertEquals(3, cache.getNbCompilations());
+        cache.calculateur(2023);
+        assertEquals(4, cache.getNbCompilations());
+    }
+
+    @DisplayName("Un barème publié remplace celui de son année dans le cache")
+    @Test
+    public void testPublication() {
+        CacheCalculateurs cache = new CacheCalculateurs(2);
+        CalculateurImpot ancien = cache.calculateur(2025);
+        Bareme bareme = ancien.getBareme();
+        Bareme corrige = new Bareme(2025, bareme.tranchesImpot(), bareme.tranchesCEHRCelibataire(),
+                bareme.tranchesCEHRCouple(), bareme.abattement(), bareme.plafondDemiPart(),
+                new Bareme.Decote(0, 0, 0, 0, 0));
+
+        CalculateurImpot nouveau = cache.publier(corrige);
+
+        assertSame(nouveau, cache.calculateur(2025));
+        assertEquals(1, cache.taille());
+        assertEquals(1705, (int) cache.calculateur(2025).calculer(CELIBATAIRE_30K).impotNet());
+    }
+
+    @DisplayName("Une année sans barème ou un barème d'une autre année est refusé")
+    @Test
+    public void testAnneeInvalide() {
+        CacheCalculateurs cache = new CacheCalculateurs(2);
+        CacheCalculateurs decale = new CacheCalculateurs(2, annee -> Bareme.charger(2024));
+
+        assertThrows(IllegalArgumentException.class, () -> cache.calculateur(2019));
+        assertThrows(IllegalArgumentException.class, () -> decale.calculateur(2025));
+        assertThrows(IllegalArgumentException.class, () -> new CacheCalculateurs(0));
+    }
+}
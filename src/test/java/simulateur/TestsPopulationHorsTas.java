@@ -0,0 +1,217 @@
+package simulateur;
+
+import com.kerware.simulateur.CalculateurImpotLot;
+import com.kerware.simulateur.ConvertisseurCsvBinaire;
+import com.kerware.simulateur.LecteurBinaireFoyers;
+import com.kerware.simulateur.LotFoyers;
+import com.kerware.simulateur.LotResultats;
+import com.kerware.simulateur.PopulationHorsTas;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.StatistiquesImpot;
+import com.kerware.simulateur.StatistiquesLot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsPopulationHorsTas {
+
+    @TempDir
+    Path dossier;
+
+    private static PopulationHorsTas population(LotFoyers lot) {
+        PopulationHorsTas population = new PopulationHorsTas(lot.taille());
+        population.ajouter(lot, lot.taille());
+        return population;
+    }
+
+    @DisplayName("Le calcul sur place donne les résultats de SimulateurRefactored, relus par morceaux")
+    @Test
+    public void testCalculSurPlace() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(1_100_000, 22);
+        PopulationHorsTas population = population(lot);
+        new CalculateurImpotLot().calculer(population);
+
+        LotResultats resultats = new LotResultats(lot.taille());
+        LotResultats morceau = new LotResultats(77_777);
+        long debut = 0;
+        int n;
+        while ((n = population.lireResultats(debut, morceau)) > 0) {
+            System.arraycopy(morceau.getImpotsNets(), 0, resultats.getImpotsNets(), (int) debut, n);
+            System.arraycopy(morceau.getRevenusReference(), 0, resultats.getRevenusReference(), (int) debut, n);
+            System.arraycopy(morceau.getNbParts(), 0, resultats.getNbParts(), (int) debut, n);
+            System.arraycopy(morceau.getDecotes(), 0, resultats.getDecotes(), (int) debut, n);
+            System.arraycopy(morceau.getContribExceptionnelles(), 0, resultats.getContribExceptionnelles(),
+                    (int) debut, n);
+            System.arraycopy(morceau.getAbattements(), 0, resultats.getAbattements(), (int) debut, n);
+            System.arraycopy(morceau.getImpotsAvantDecote(), 0, resultats.getImpotsAvantDecote(), (int) debut, n);
+            System.arraycopy(morceau.getPlafonnements(), 0, resultats.getPlafonnements(), (int) debut, n);
+            debut += n;
+        }
+        assertEquals(population.taille(), debut);
+        TestsCalculateurImpotLot.verifierContreSimulateur(lot, resultats);
+        LotResultats parLot = new LotResultats(lot.taille());
+        new CalculateurImpotLot().calculer(lot, parLot);
+        assertArrayEquals(parLot.getPlafonnements(), resultats.getPlafonnements());
+        // Un tronçon de 2^20 foyers puis un dernier réduit au reste de la capacité, 45 octets par foyer
+        assertEquals(45L * 1_100_000, population.getOctetsHorsTas());
+    }
+
+    @DisplayName("Les statistiques d'une population relue par morceaux sont celles du lot calculé")
+    @Test
+    public void testStatistiquesDepuisPopulation() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(30_000, 26);
+        PopulationHorsTas population = population(lot);
+        new CalculateurImpotLot().calculer(population);
+        LotResultats resultats = new LotResultats(lot.taille());
+        new CalculateurImpotLot().calculer(lot, resultats);
+        StatistiquesLot attendues = new StatistiquesLot();
+        attendues.ajouter(lot, resultats, 0, lot.taille());
+
+        StatistiquesLot statistiques = new StatistiquesLot();
+        LotFoyers foyers = new LotFoyers(7_000);
+        LotResultats morceau = new LotResultats(7_000);
+        long debut = 0;
+        int n;
+        while ((n = population.lireFoyers(debut, foyers)) > 0) {
+            population.lireResultats(debut, morceau);
+            statistiques.ajouter(foyers, morceau, 0, n);
+            debut += n;
+        }
+
+        StatistiquesImpot total = statistiques.total();
+        assertEquals(attendues.total().getNbPlafonnements(), total.getNbPlafonnements());
+        assertTrue(total.getNbPlafonnements() > 0);
+        assertEquals(attendues.total().getSommeImpots(), total.getSommeImpots());
+        assertEquals(attendues.parGroupe().keySet(), statistiques.parGroupe().keySet());
+    }
+
+    @DisplayName("L'ajout et le calcul d'une population n'allouent presque rien sur le tas")
+    @Test
+    public void testTasIndependantDeLaPopulation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        PopulationHorsTas population = new PopulationHorsTas(2_000_000);
+        CalculateurImpotLot calculateur = new CalculateurImpotLot();
+
+        long avant = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < population.getCapacite(); i++) {
+            SituationFamiliale sf = i % 3 == 0 ? SituationFamiliale.MARIE : SituationFamiliale.CELIBATAIRE;
+            population.ajouter(15_000 + i % 90_000, sf.isMarried() ? i % 40_000 : 0, sf, i % 4, 0, false);
+        }
+        calculateur.calculer(population);
+        long alloues = threads.getCurrentThreadAllocatedBytes() - avant;
+
+        assertTrue(alloues < 1_000_000, alloues + " octets alloués sur le tas");
+        assertTrue(population.getOctetsHorsTas() >= 2_000_000L * 45);
+    }
+
+    @DisplayName("Une population sauvegardée puis rechargée est identique, foyers et résultats")
+    @Test
+    public void testSauvegarde() throws IOException {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(50_001, 23);
+        PopulationHorsTas population = population(lot);
+        new CalculateurImpotLot().calculer(population, 10, 40_000);
+        Path fichier = dossier.resolve("population.bin");
+
+        population.sauvegarder(fichier);
+        PopulationHorsTas relue = PopulationHorsTas.charger(fichier, 60_000);
+
+        assertEquals(population.taille(), relue.taille());
+        assertEquals(60_000, relue.getCapacite());
+        assertEquals(45L * 60_000, relue.getOctetsHorsTas());
+        for (long i = 0; i < population.taille(); i++) {
+            assertEquals(population.revenuNetDeclarant1(i), relue.revenuNetDeclarant1(i));
+            assertEquals(population.revenuNetDeclarant2(i), relue.revenuNetDeclarant2(i));
+            assertEquals(population.situationFamiliale(i), relue.situationFamiliale(i));
+            assertEquals(population.nbEnfantsACharge(i), relue.nbEnfantsACharge(i));
+            assertEquals(population.nbEnfantsSituationHandicap(i), relue.nbEnfantsSituationHandicap(i));
+            assertEquals(population.parentIsole(i), relue.parentIsole(i));
+            assertEquals(population.impotNet(i), relue.impotNet(i));
+            assertEquals(population.revenuReference(i), relue.revenuReference(i));
+            assertEquals(population.nbParts(i), relue.nbParts(i));
+            assertEquals(population.decote(i), relue.decote(i));
+            assertEquals(population.contribExceptionnelle(i), relue.contribExceptionnelle(i));
+            assertEquals(population.abattement(i), relue.abattement(i));
+            assertEquals(population.impotAvantDecote(i), relue.impotAvantDecote(i));
+            assertEquals(population.isPlafonne(i), relue.isPlafonne(i));
+        }
+        assertEquals(0, relue.impotNet(9));
+        relue.ajouter(30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        assertEquals(50_002, relue.taille());
+
+        assertThrows(IllegalArgumentException.class, () -> PopulationHorsTas.charger(fichier, 50_000));
+        Files.write(fichier, Arrays.copyOf(Files.readAllBytes(fichier), 1_000));
+        assertThrows(IllegalArgumentException.class, () -> PopulationHorsTas.charger(fichier));
+    }
+
+    @DisplayName("Une population se remplit depuis un fichier binaire de foyers")
+    @Test
+    public void testAjoutDepuisSource() throws IOException {
+        String[] lignes;
+        try (InputStream in = getClass().getResourceAsStream("/datasImposition.csv")) {
+            lignes = new String(in.readAllBytes(), StandardCharsets.US_ASCII).split("\r?\n");
+        }
+        StringBuilder csv = new StringBuilder();
+        for (String ligne : lignes) {
+            csv.append(ligne, 0, ligne.lastIndexOf(',')).append('\n');
+        }
+        Path fichierCsv = dossier.resolve("foyers.csv");
+        Path foyers = dossier.resolve("foyers.bin");
+        Files.writeString(fichierCsv, csv);
+        ConvertisseurCsvBinaire.convertir(fichierCsv, foyers);
+
+        PopulationHorsTas population = new PopulationHorsTas(lignes.length - 1);
+        try (LecteurBinaireFoyers source = new LecteurBinaireFoyers(foyers)) {
+            assertEquals(lignes.length - 1, population.ajouter(source, new LotFoyers(7)));
+        }
+        new CalculateurImpotLot().calculer(population);
+
+        int[] attendus = new int[lignes.length - 1];
+        int[] obtenus = new int[attendus.length];
+        for (int i = 0; i < attendus.length; i++) {
+            attendus[i] = Integer.parseInt(lignes[i + 1].substring(lignes[i + 1].lastIndexOf(',') + 1));
+            obtenus[i] = population.impotNet(i);
+        }
+        assertArrayEquals(attendus, obtenus);
+
+        LotFoyers relus = new LotFoyers(attendus.length + 5);
+        assertEquals(attendus.length, population.lireFoyers(0, relus));
+        assertEquals(0, population.lireFoyers(attendus.length, relus));
+    }
+
+    @DisplayName("Un foyer impossible à conserver ou une population pleine refusent l'ajout, un foyer invalide est refusé au calcul")
+    @Test
+    public void testErreurs() {
+        PopulationHorsTas population = new PopulationHorsTas(2);
+        assertThrows(IllegalArgumentException.class, () -> population.ajouter(10_000, 0, null, 0, 0, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> population.ajouter(10_000, 0, SituationFamiliale.MARIE, 256, 0, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> population.ajouter(10_000, 0, SituationFamiliale.MARIE, 1, -1, false));
+        assertEquals(0, population.taille());
+        population.ajouter(10_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        population.ajouter(10_000, 5_000, SituationFamiliale.DIVORCE, 0, 0, false);
+
+        assertThrows(IllegalStateException.class,
+                () -> population.ajouter(1, 0, SituationFamiliale.VEUF, 0, 0, false));
+        assertThrows(IllegalArgumentException.class, () -> new CalculateurImpotLot().calculer(population));
+        assertThrows(IndexOutOfBoundsException.class, () -> new CalculateurImpotLot().calculer(population, 0, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> population.impotNet(2));
+        assertThrows(IllegalArgumentException.class, () -> new PopulationHorsTas(-1));
+        // Plus de Integer.MAX_VALUE tronçons de 2^20 foyers
+        assertThrows(IllegalArgumentException.class, () -> new PopulationHorsTas(((long) Integer.MAX_VALUE + 1) << 20));
+        assertThrows(IllegalArgumentException.class, () -> new PopulationHorsTas(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,82 @@
+package simulateur;
+
+import com.kerware.simulateur.FoyerFiscal;
+import com.kerware.simulateur.RepartitionRevenus;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsRepartitionRevenus {
+
+    @DisplayName("L'impôt de chaque répartition est celui du calcul complet - ")
+    @ParameterizedTest( name = " total {0}, {1} avec {2} enfants")
+    @CsvSource({ "0, MARIE, 0, 0", "9000, PACSE, 1, 0", "48000, MARIE, 2, 1", "150000, PACSE, 0, 0",
+                 "310000, MARIE, 3, 0", "1200001, PACSE, 1, 1" })
+    public void testImpotsParRepartition(int total, SituationFamiliale sf, int enf, int enfH) {
+        int[] impots = RepartitionRevenus.impotsParRepartition(new FoyerFiscal(total, 0, sf, enf, enfH, false));
+
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        int[] attendus = new int[total + 1];
+        for (int r1 = 0; r1 <= total; r1++) {
+            attendus[r1] = simulateur.calculImpot(r1, total - r1, sf, enf, enfH, false);
+        }
+        assertArrayEquals(attendus, impots);
+    }
+
+    @DisplayName("La répartition optimale atteint l'impôt minimal parmi toutes les répartitions")
+    @Test
+    public void testOptimiser() {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        for (int total = 0; total <= 400_000; total += 2_003) {
+            for (int enf = 0; enf <= 2; enf++) {
+                FoyerFiscal foyer = new FoyerFiscal(0, total, SituationFamiliale.MARIE, enf, 0, false);
+                int[] impots = RepartitionRevenus.impotsParRepartition(foyer);
+                int minimum = Integer.MAX_VALUE;
+                for (int impot : impots) {
+                    minimum = Math.min(minimum, impot);
+                }
+
+                RepartitionRevenus.Repartition optimale = RepartitionRevenus.optimiser(foyer);
+                assertEquals(total, optimale.revenuNetDeclarant1() + optimale.revenuNetDeclarant2());
+                assertEquals(minimum, optimale.impot(), "total " + total);
+                assertEquals(simulateur.calculImpot(optimale.revenuNetDeclarant1(), optimale.revenuNetDeclarant2(),
+                        SituationFamiliale.MARIE, enf, 0, false), optimale.impot());
+                assertEquals(simulateur.getAbattement(), optimale.abattement());
+            }
+        }
+    }
+
+    @DisplayName("La répartition optimale maximise l'abattement, arrondis compris")
+    @Test
+    public void testAbattementMaximal() {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        for (int total : new int[] { 5, 4_960, 60_015, 283_415, 290_000 }) {
+            double maximum = 0;
+            for (int r1 = 0; r1 <= total; r1++) {
+                simulateur.calculImpot(r1, total - r1, SituationFamiliale.PACSE, 0, 0, false);
+                maximum = Math.max(maximum, simulateur.getAbattement());
+            }
+            RepartitionRevenus.Repartition optimale = RepartitionRevenus.optimiser(
+                    new FoyerFiscal(total, 0, SituationFamiliale.PACSE, 0, 0, false));
+            assertEquals(maximum, optimale.abattement(), "total " + total);
+            assertTrue(optimale.revenuNetDeclarant1() <= optimale.revenuNetDeclarant2());
+        }
+    }
+
+    @DisplayName("La répartition est refusée hors couple ou au-delà d'un total représentable")
+    @Test
+    public void testFoyerInvalide() {
+        assertThrows(IllegalArgumentException.class, () -> RepartitionRevenus.optimiser(
+                new FoyerFiscal(50_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false)));
+        assertThrows(IllegalArgumentException.class, () -> RepartitionRevenus.optimiser(
+                new FoyerFiscal(Integer.MAX_VALUE, 1, SituationFamiliale.MARIE, 0, 0, false)));
+    }
+}
@@ -0,0 +1,113 @@
+package simulateur;
+
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.TraceCalcul;
+import com.kerware.simulateur.TraceConsole;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsSimulateurLegacy {
+
+    // Une seule instance : les tables du barème ne doivent pas dépendre des appels précédents
+    private static final Simulateur SIMULATEUR = new Simulateur();
+
+    @DisplayName("Le simulateur legacy donne l'impôt attendu - ")
+    @ParameterizedTest( name = " avec revenuNetDeclarant1={0}, revenuNetDeclarant2={1}, situationFamiliale={2} - IMPOT NET ATTENDU = {6}")
+    @CsvFileSource( resources={"/datasImposition.csv"} , numLinesToSkip = 1 )
+    public void testCasImposition( int revenuNetDeclarant1, int revenuNetDeclarant2, String situationFamiliale,
+                                   int nbEnfantsACharge, int nbEnfantsSituationHandicap, boolean parentIsole,
+                                   int impotAttendu) {
+        int impot = SIMULATEUR.calculImpot(revenuNetDeclarant1, revenuNetDeclarant2,
+                SituationFamiliale.valueOf(situationFamiliale), nbEnfantsACharge, nbEnfantsSituationHandicap,
+                parentIsole);
+
+        assertEquals(impotAttendu, impot);
+        assertEquals(impotAttendu, (int) SIMULATEUR.getImpotNet());
+    }
+
+    @DisplayName("Le simulateur legacy n'écrit rien sur la console par défaut")
+    @Test
+    public void testAucuneSortieParDefaut() {
+        PrintStream console = System.out;
+        ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(capture, true, StandardCharsets.UTF_8));
+        try {
+            new Simulateur().calculImpot(65000, 0, SituationFamiliale.VEUF, 3, 0, false);
+        } finally {
+            System.setOut(console);
+        }
+        assertEquals(0, capture.size());
+    }
+
+    @DisplayName("La trace activée donne le détail du calcul étape par étape")
+    @Test
+    public void testTraceActivee() {
+        List<String> etapes = new ArrayList<>();
+        Simulateur simulateur = new Simulateur();
+        simulateur.setTrace(new TraceCalcul() {
+            @Override
+            public void etape(String libelle, double valeur) {
+                etapes.add(libelle + "=" + valeur);
+            }
+        });
+
+        simulateur.calculImpot(65000, 0, SituationFamiliale.VEUF, 3, 0, false);
+
+        assertTrue(etapes.contains("Abattement=6500.0"));
+        assertTrue(etapes.contains("Nombre de parts=4.0"));
+        assertEquals("Impôt sur le revenu net final=1256.0", etapes.get(etapes.size() - 1));
+    }
+
+    @DisplayName("La trace console reprend le format historique")
+    @Test
+    public void testTraceConsole() {
+        ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        Simulateur simulateur = new Simulateur();
+        simulateur.setTrace(new TraceConsole(new PrintStream(capture, true, StandardCharsets.UTF_8)));
+
+        simulateur.calculImpot(35000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+        String[] lignes = capture.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertEquals("--------------------------------------------------", lignes[0]);
+        assertEquals("Revenu net declarant1 : 35000", lignes[1]);
+        assertEquals("Situation familiale : CELIBATAIRE", lignes[3]);
+        assertEquals("Impôt sur le revenu net final : 2736.0", lignes[lignes.length - 1]);
+    }
+
+    @DisplayName("La trace console est identique, octet pour octet, à la sortie du simulateur d'origine")
+    @Test
+    public void testTraceConsoleHistorique() throws IOException {
+        ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        Simulateur simulateur = new Simulateur();
+        simulateur.setTrace(new TraceConsole(new PrintStream(capture, true, StandardCharsets.UTF_8)));
+
+        simulateur.calculImpot(35000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        simulateur.calculImpot(65000, 0, SituationFamiliale.VEUF, 3, 0, false);
+        simulateur.calculImpot(80000, 60000, SituationFamiliale.MARIE, 2, 1, false);
+        simulateur.calculImpot(600000, 0, SituationFamiliale.DIVORCE, 1, 0, true);
+
+        // Sortie console du simulateur d'origine pour les mêmes foyers, une ligne par println
+        byte[] historique;
+        try (InputStream entree = getClass().getResourceAsStream("/traceHistorique.txt")) {
+            historique = String.join(System.lineSeparator(),
+                    new String(entree.readAllBytes(), StandardCharsets.UTF_8).split("\n"))
+                    .concat(System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        }
+        assertArrayEquals(historique, capture.toByteArray());
+    }
+}
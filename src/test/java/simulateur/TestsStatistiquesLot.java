@@ -0,0 +1,219 @@
+package simulateur;
+
+import com.kerware.simulateur.CalculateurImpotLot;
+import com.kerware.simulateur.CalculateurImpotParallele;
+import com.kerware.simulateur.ConvertisseurCsvBinaire;
+import com.kerware.simulateur.Histogramme;
+import com.kerware.simulateur.LecteurCsvFoyers;
+import com.kerware.simulateur.LotFoyers;
+import com.kerware.simulateur.LotResultats;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.StatistiquesImpot;
+import com.kerware.simulateur.StatistiquesLot;
+import com.kerware.simulateur.StatistiquesLot.Groupe;
+import com.kerware.simulateur.TraitementFichierBinaire;
+import com.kerware.simulateur.TraitementFichierCsv;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsStatistiquesLot {
+
+    @TempDir
+    Path dossier;
+
+    private static void verifierEgales(StatistiquesImpot attendu, StatistiquesImpot obtenu) {
+        assertEquals(attendu.getNbFoyers(), obtenu.getNbFoyers());
+        assertEquals(attendu.getSommeRevenus(), obtenu.getSommeRevenus());
+        assertEquals(attendu.getSommeRevenusReference(), obtenu.getSommeRevenusReference());
+        assertEquals(attendu.getSommeImpots(), obtenu.getSommeImpots());
+        assertEquals(attendu.getSommeDecotes(), obtenu.getSommeDecotes());
+        assertEquals(attendu.getSommeContributions(), obtenu.getSommeContributions());
+        assertEquals(attendu.getNbDecotes(), obtenu.getNbDecotes());
+        assertEquals(attendu.getNbPlafonnements(), obtenu.getNbPlafonnements());
+        assertEquals(attendu.getNbContributions(), obtenu.getNbContributions());
+        for (double q = 0; q <= 1; q += 0.05) {
+            assertEquals(attendu.quantileTauxEffectif(q), obtenu.quantileTauxEffectif(q));
+        }
+    }
+
+    @DisplayName("Les statistiques agrégées au fil du calcul parallèle sont celles des résultats complets")
+    @Test
+    public void testStatistiquesParalleles() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(60_000, 24);
+        LotResultats resultats = new LotResultats(lot.taille());
+        StatistiquesLot statistiques;
+        try (CalculateurImpotParallele parallele = new CalculateurImpotParallele(4, 1_000)) {
+            statistiques = parallele.calculerAvecStatistiques(lot, resultats);
+        }
+        TestsCalculateurImpotLot.verifierContreSimulateur(lot, resultats);
+
+        StatistiquesLot sequentielles = new StatistiquesLot();
+        sequentielles.ajouter(lot, resultats, 0, lot.taille());
+        verifierEgales(sequentielles.total(), statistiques.total());
+        assertEquals(sequentielles.parGroupe().keySet(), statistiques.parGroupe().keySet());
+        for (Map.Entry<Groupe, StatistiquesImpot> groupe : sequentielles.parGroupe().entrySet()) {
+            verifierEgales(groupe.getValue(), statistiques.parGroupe().get(groupe.getKey()));
+        }
+
+        StatistiquesImpot total = statistiques.total();
+        assertEquals(lot.taille(), total.getNbFoyers());
+        assertEquals(Arrays.stream(resultats.getImpotsNets()).asLongStream().sum(), total.getSommeImpots());
+        assertEquals(Arrays.stream(resultats.getContribExceptionnelles()).filter(c -> c > 0).count(),
+                total.getNbContributions());
+        assertEquals(Arrays.stream(resultats.getDecotes()).filter(d -> d > 0).count(), total.getNbDecotes());
+        assertTrue(total.getNbPlafonnements() > 0);
+    }
+
+    @DisplayName("Les quantiles du taux effectif sont exacts à une classe près")
+    @Test
+    public void testQuantilesTauxEffectif() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(20_000, 3);
+        LotResultats resultats = new LotResultats(lot.taille());
+        new CalculateurImpotLot().calculer(lot, resultats);
+        StatistiquesLot statistiques = new StatistiquesLot();
+        statistiques.ajouter(lot, resultats, 0, lot.taille());
+
+        double[] taux = new double[lot.taille()];
+        long revenus = 0;
+        for (int i = 0; i < taux.length; i++) {
+            long revenu = (long) lot.getRevenusNetDeclarant1()[i] + lot.getRevenusNetDeclarant2()[i];
+            taux[i] = revenu > 0 ? (double) resultats.getImpotsNets()[i] / revenu : 0;
+            revenus += revenu;
+        }
+        Arrays.sort(taux);
+        StatistiquesImpot total = statistiques.total();
+        for (double q : new double[] {0.1, 0.25, 0.5, 0.75, 0.9, 0.99}) {
+            assertEquals(taux[(int) (q * taux.length)], total.quantileTauxEffectif(q), 0.001 + 1e-9);
+        }
+        assertEquals((double) total.getSommeImpots() / revenus, total.tauxEffectifMoyen(), 1e-12);
+        assertEquals((double) total.getSommeImpots() / lot.taille(), total.impotMoyen(), 1e-9);
+    }
+
+    @DisplayName("Les foyers sont regroupés par situation familiale et nombre de parts")
+    @Test
+    public void testGroupes() {
+        LotFoyers lot = new LotFoyers(4);
+        lot.definir(0, 30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        lot.definir(1, 45_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        lot.definir(2, 200_000, 150_000, SituationFamiliale.MARIE, 3, 0, false);
+        lot.definir(3, 20_000, 0, SituationFamiliale.VEUF, 7, 7, true);
+        LotResultats resultats = new LotResultats(lot.taille());
+        new CalculateurImpotLot().calculer(lot, resultats);
+        StatistiquesLot statistiques = new StatistiquesLot();
+        statistiques.ajouter(lot, resultats, 0, lot.taille());
+
+        Map<Groupe, StatistiquesImpot> groupes = statistiques.parGroupe();
+        assertArrayEquals(new Groupe[] {new Groupe(SituationFamiliale.CELIBATAIRE, 1),
+                new Groupe(SituationFamiliale.MARIE, 4), new Groupe(SituationFamiliale.VEUF, 12)},
+                groupes.keySet().toArray());
+        assertEquals(2, groupes.get(new Groupe(SituationFamiliale.CELIBATAIRE, 1)).getNbFoyers());
+        assertEquals(1, groupes.get(new Groupe(SituationFamiliale.MARIE, 4)).getNbPlafonnements());
+        assertEquals(0, statistiques.parSituation(SituationFamiliale.CELIBATAIRE).getNbPlafonnements());
+        assertEquals(0, statistiques.parSituation(SituationFamiliale.PACSE).getNbFoyers());
+        assertTrue(Double.isNaN(statistiques.parSituation(SituationFamiliale.PACSE).impotMoyen()));
+    }
+
+    @DisplayName("Le calcul par blocs renseigne le plafonnement comme le calcul foyer par foyer")
+    @Test
+    public void testPlafonnementParBlocs() {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(10_000, 8);
+        LotResultats foyerParFoyer = new LotResultats(lot.taille());
+        LotResultats parBlocs = new LotResultats(lot.taille());
+        new CalculateurImpotLot().calculer(lot, foyerParFoyer);
+        CalculateurImpotLot.parBlocs().calculer(lot, parBlocs);
+
+        assertArrayEquals(foyerParFoyer.getPlafonnements(), parBlocs.getPlafonnements());
+    }
+
+    @DisplayName("Un histogramme se fusionne avec un histogramme de mêmes classes")
+    @Test
+    public void testHistogramme() {
+        Histogramme pairs = new Histogramme(0, 100, 100);
+        Histogramme impairs = new Histogramme(0, 100, 100);
+        for (int v = 0; v < 100; v++) {
+            (v % 2 == 0 ? pairs : impairs).ajouter(v + 0.5);
+        }
+        pairs.ajouter(-5);
+        impairs.ajouter(500);
+        pairs.fusionner(impairs);
+
+        assertEquals(102, pairs.getNbValeurs());
+        assertEquals(2, pairs.effectif(0));
+        assertEquals(2, pairs.effectif(99));
+        assertEquals(51, pairs.quantile(0.5), 1);
+        assertEquals(0, pairs.quantile(0));
+        assertEquals(100, pairs.quantile(1));
+        assertTrue(Double.isNaN(new Histogramme(0, 1, 10).quantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> pairs.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> pairs.fusionner(new Histogramme(0, 50, 100)));
+        assertThrows(IllegalArgumentException.class, () -> new Histogramme(1, 1, 10));
+        assertEquals(100, pairs.getNbClasses());
+    }
+
+    private static String csv(LotFoyers lot) {
+        StringBuilder csv = new StringBuilder("revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole\n");
+        for (int i = 0; i < lot.taille(); i++) {
+            csv.append(lot.getRevenusNetDeclarant1()[i]).append(',')
+                    .append(lot.getRevenusNetDeclarant2()[i]).append(',')
+                    .append(SituationFamiliale.values()[lot.getSituationsFamiliales()[i]]).append(',')
+                    .append(lot.getNbEnfantsACharge()[i]).append(',')
+                    .append(lot.getNbEnfantsSituationHandicap()[i]).append(',')
+                    .append(lot.getParentsIsoles()[i]).append('\n');
+        }
+        return csv.toString();
+    }
+
+    @DisplayName("Les statistiques agrégées lot par lot, en séquentiel ou en flux, sont celles des résultats complets")
+    @Test
+    public void testStatistiquesEnFlux() throws IOException {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(30_000, 25);
+        LotResultats resultats = new LotResultats(lot.taille());
+        new CalculateurImpotLot().calculer(lot, resultats);
+        StatistiquesLot attendues = new StatistiquesLot();
+        attendues.ajouter(lot, resultats, 0, lot.taille());
+        byte[] csv = csv(lot).getBytes(StandardCharsets.US_ASCII);
+
+        StatistiquesLot sequentielles;
+        try (LecteurCsvFoyers source = new LecteurCsvFoyers(new ByteArrayInputStream(csv))) {
+            sequentielles = new CalculateurImpotLot().calculerAvecStatistiques(source, new LotFoyers(777),
+                    new LotResultats(777));
+        }
+        StatistiquesLot parCsv = new StatistiquesLot();
+        new TraitementFichierCsv(new CalculateurImpotLot(), 1_000)
+                .traiter(new ByteArrayInputStream(csv), OutputStream.nullOutputStream(), parCsv);
+        Path fichierCsv = dossier.resolve("foyers.csv");
+        Path foyers = dossier.resolve("foyers.bin");
+        Files.write(fichierCsv, csv);
+        ConvertisseurCsvBinaire.convertir(fichierCsv, foyers);
+        StatistiquesLot parBinaire = new StatistiquesLot();
+        new TraitementFichierBinaire().traiter(foyers, dossier.resolve("resultats.bin"), parBinaire);
+
+        for (StatistiquesLot obtenues : List.of(sequentielles, parCsv, parBinaire)) {
+            verifierEgales(attendues.total(), obtenues.total());
+            assertEquals(attendues.parGroupe().keySet(), obtenues.parGroupe().keySet());
+            for (Map.Entry<Groupe, StatistiquesImpot> groupe : attendues.parGroupe().entrySet()) {
+                verifierEgales(groupe.getValue(), obtenues.parGroupe().get(groupe.getKey()));
+            }
+        }
+        try (LecteurCsvFoyers source = new LecteurCsvFoyers(new ByteArrayInputStream(csv))) {
+            assertThrows(IllegalArgumentException.class, () -> new CalculateurImpotLot()
+                    .calculerAvecStatistiques(source, new LotFoyers(10), new LotResultats(9)));
+        }
+    }
+}
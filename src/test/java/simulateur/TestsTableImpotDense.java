@@ -0,0 +1,119 @@
+package simulateur;
+
+import com.kerware.simulateur.CalculateurImpot;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.TableImpotDense;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class TestsTableImpotDense {
+
+    private static final CalculateurImpot CALCULATEUR = new CalculateurImpot();
+
+    private record Composition(SituationFamiliale sf, int enf, int enfH, boolean iso) { }
+
+    // Un foyer représentatif par configuration (déclarants, parts) atteignable
+    private static Map<Double, Composition> compositions(boolean couple) {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        Map<Double, Composition> parConfiguration = new LinkedHashMap<>();
+        for (SituationFamiliale sf : SituationFamiliale.values()) {
+            if (sf.isMarried() != couple) {
+                continue;
+            }
+            for (int enf = 0; enf <= 7; enf++) {
+                for (int enfH = 0; enfH <= enf; enfH++) {
+                    for (boolean iso : sf.isMarried() ? new boolean[] { false } : new boolean[] { false, true }) {
+                        simulateur.calculImpot(0, 0, sf, enf, enfH, iso);
+                        parConfiguration.putIfAbsent(simulateur.getNbParts(), new Composition(sf, enf, enfH, iso));
+                    }
+                }
+            }
+        }
+        return parConfiguration;
+    }
+
+    private static void verifier(TableImpotDense table, int revenuNetMax, int pas) {
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        for (Composition c : compositions(false).values()) {
+            for (int r1 = 0; r1 <= revenuNetMax; r1 += pas) {
+                assertEquals(simulateur.calculImpot(r1, 0, c.sf(), c.enf(), c.enfH(), c.iso()),
+                        table.calculImpot(r1, 0, c.sf(), c.enf(), c.enfH(), c.iso()));
+            }
+        }
+        for (Composition c : compositions(true).values()) {
+            for (int r1 = 0; r1 <= revenuNetMax; r1 += pas) {
+                int r2 = r1 / 3;
+                assertEquals(simulateur.calculImpot(r1, r2, c.sf(), c.enf(), c.enfH(), c.iso()),
+                        table.calculImpot(r1, r2, c.sf(), c.enf(), c.enfH(), c.iso()));
+            }
+        }
+    }
+
+    @DisplayName("La table est identique à SimulateurRefactored en chaque point de la grille")
+    @Test
+    public void testVerificationExhaustive() {
+        TableImpotDense table = new TableImpotDense(CALCULATEUR, TableImpotDense.REVENU_MAX_DEFAUT,
+                TableImpotDense.BUDGET_MEMOIRE_DEFAUT, Duration.ofMinutes(1), false);
+        assertTrue(table.isComplete());
+
+        for (boolean couple : new boolean[] { false, true }) {
+            for (Composition c : compositions(couple).values()) {
+                BitSet grille = new BitSet();
+                SimulateurRefactored simulateur = new SimulateurRefactored();
+                // Le revenu fiscal de référence croît de 0 ou 1 quand le revenu net croît de 1
+                for (int r1 = 0; simulateur.getRevenuReference() <= table.getRevenuMax(); r1++) {
+                    int impot = simulateur.calculImpot(r1, 0, c.sf(), c.enf(), c.enfH(), c.iso());
+                    if (impot != table.calculImpot(r1, 0, c.sf(), c.enf(), c.enfH(), c.iso())) {
+                        fail(c + " avec revenu net " + r1);
+                    }
+                    grille.set((int) simulateur.getRevenuReference());
+                }
+                assertTrue(grille.nextClearBit(0) > table.getRevenuMax(), c::toString);
+            }
+        }
+    }
+
+    @DisplayName("Les foyers hors de la grille sont calculés normalement")
+    @Test
+    public void testHorsGrille() {
+        TableImpotDense table = new TableImpotDense(CALCULATEUR, 50_000, TableImpotDense.BUDGET_MEMOIRE_DEFAUT,
+                TableImpotDense.BUDGET_TEMPS_DEFAUT, false);
+
+        verifier(table, 2_000_000, 997);
+    }
+
+    @DisplayName("Le budget mémoire limite le nombre de configurations tabulées, hors du tas")
+    @Test
+    public void testBudgetMemoire() {
+        TableImpotDense table = new TableImpotDense(CALCULATEUR, 100_000, 3L * 100_001 * Integer.BYTES,
+                TableImpotDense.BUDGET_TEMPS_DEFAUT, true);
+
+        assertEquals(3, table.getNbLignes());
+        assertFalse(table.isComplete());
+        verifier(table, 150_000, 13);
+    }
+
+    @DisplayName("Sans budget de temps, aucune ligne n'est construite et tout est calculé")
+    @Test
+    public void testBudgetTemps() {
+        TableImpotDense table = new TableImpotDense(CALCULATEUR, 100_000, TableImpotDense.BUDGET_MEMOIRE_DEFAUT,
+                Duration.ofNanos(-1), false);
+
+        assertEquals(0, table.getNbLignes());
+        verifier(table, 150_000, 101);
+        assertThrows(IllegalArgumentException.class,
+                () -> table.calculImpot(10_000, 0, SituationFamiliale.MARIE, 2, 0, true));
+    }
+}
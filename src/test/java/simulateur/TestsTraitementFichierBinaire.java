@@ -0,0 +1,89 @@
+package simulateur;
+
+import com.kerware.simulateur.ConvertisseurCsvBinaire;
+import com.kerware.simulateur.FormatBinaire;
+import com.kerware.simulateur.LotFoyers;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.TraitementFichierBinaire;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsTraitementFichierBinaire {
+
+    @TempDir
+    Path dossier;
+
+    @DisplayName("Conversion CSV puis traitement binaire identiques à SimulateurRefactored")
+    @Test
+    public void testConversionEtTraitement() throws IOException {
+        LotFoyers lot = TestsCalculateurImpotLot.lotAleatoire(30_000, 5);
+        StringBuilder csv = new StringBuilder("revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole\n");
+        for (int i = 0; i < lot.taille(); i++) {
+            csv.append(lot.getRevenusNetDeclarant1()[i]).append(',')
+                    .append(lot.getRevenusNetDeclarant2()[i]).append(',')
+                    .append(SituationFamiliale.values()[lot.getSituationsFamiliales()[i]]).append(',')
+                    .append(lot.getNbEnfantsACharge()[i]).append(',')
+                    .append(lot.getNbEnfantsSituationHandicap()[i]).append(',')
+                    .append(lot.getParentsIsoles()[i]).append('\n');
+        }
+        Path fichierCsv = dossier.resolve("foyers.csv");
+        Path foyers = dossier.resolve("foyers.bin");
+        Path resultats = dossier.resolve("resultats.bin");
+        Files.writeString(fichierCsv, csv);
+
+        assertEquals(lot.taille(), ConvertisseurCsvBinaire.convertir(fichierCsv, foyers));
+        assertEquals(FormatBinaire.TAILLE_EN_TETE + (long) lot.taille() * FormatBinaire.TAILLE_FOYER,
+                Files.size(foyers));
+        assertEquals(lot.taille(), new TraitementFichierBinaire().traiter(foyers, resultats));
+
+        ByteBuffer sortie = ByteBuffer.wrap(Files.readAllBytes(resultats)).order(FormatBinaire.ORDRE);
+        assertEquals(FormatBinaire.MAGIQUE_RESULTATS, sortie.getInt(0));
+        assertEquals(lot.taille(), sortie.getLong(8));
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        for (int i = 0; i < lot.taille(); i++) {
+            int impot = simulateur.calculImpot(lot.getRevenusNetDeclarant1()[i], lot.getRevenusNetDeclarant2()[i],
+                    SituationFamiliale.values()[lot.getSituationsFamiliales()[i]], lot.getNbEnfantsACharge()[i],
+                    lot.getNbEnfantsSituationHandicap()[i], lot.getParentsIsoles()[i]);
+            int pos = FormatBinaire.TAILLE_EN_TETE + i * FormatBinaire.TAILLE_RESULTAT;
+            assertEquals(impot, sortie.getInt(pos + FormatBinaire.POS_IMPOT));
+            assertEquals((int) simulateur.getRevenuReference(), sortie.getInt(pos + FormatBinaire.POS_REVENU_REFERENCE));
+            assertEquals(simulateur.getNbParts() * 2, sortie.getInt(pos + FormatBinaire.POS_DEMI_PARTS));
+            assertEquals((int) simulateur.getDecote(), sortie.getInt(pos + FormatBinaire.POS_DECOTE));
+            assertEquals((int) simulateur.getContribExceptionnelle(),
+                    sortie.getInt(pos + FormatBinaire.POS_CONTRIB_EXCEPTIONNELLE));
+        }
+    }
+
+    @DisplayName("Un fichier qui n'est pas un fichier de foyers est rejeté")
+    @Test
+    public void testFichierNonReconnu() throws IOException {
+        Path foyers = dossier.resolve("foyers.bin");
+        Files.write(foyers, new byte[FormatBinaire.TAILLE_EN_TETE]);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new TraitementFichierBinaire().traiter(foyers, dossier.resolve("resultats.bin")));
+    }
+
+    @DisplayName("Un nombre d'enregistrements corrompu dans l'en-tête est rejeté")
+    @Test
+    public void testNombreCorrompu() throws IOException {
+        Path foyers = dossier.resolve("foyers.bin");
+        // 2^62 enregistrements de 12 octets : le produit déborde et retombe à 0
+        ByteBuffer enTete = ByteBuffer.allocate(FormatBinaire.TAILLE_EN_TETE).order(FormatBinaire.ORDRE);
+        enTete.putInt(FormatBinaire.MAGIQUE_FOYERS).putInt(FormatBinaire.VERSION).putLong(1L << 62);
+        Files.write(foyers, enTete.array());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new TraitementFichierBinaire().traiter(foyers, dossier.resolve("resultats.bin")));
+    }
+}
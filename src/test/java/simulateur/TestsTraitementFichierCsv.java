@@ -0,0 +1,99 @@
+package simulateur;
+
+import com.kerware.simulateur.CalculateurImpotLot;
+import com.kerware.simulateur.SimulateurRefactored;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.TraitementFichierCsv;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsTraitementFichierCsv {
+
+    private static String[] traiter(String csv, int tailleLot) throws IOException {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        new TraitementFichierCsv(new CalculateurImpotLot(), tailleLot)
+                .traiter(new ByteArrayInputStream(csv.getBytes(StandardCharsets.US_ASCII)), sortie);
+        return sortie.toString(StandardCharsets.US_ASCII).split("\n");
+    }
+
+    @DisplayName("Le traitement du fichier de test donne l'impôt attendu pour chaque foyer")
+    @Test
+    public void testFichierDeTest() throws IOException {
+        String csv;
+        try (InputStream in = getClass().getResourceAsStream("/datasImposition.csv")) {
+            csv = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+        String[] foyers = csv.split("\r?\n");
+
+        String[] lignes = traiter(csv, 3);
+
+        assertEquals(foyers.length, lignes.length);
+        for (int i = 1; i < foyers.length; i++) {
+            String[] attendu = foyers[i].split(",");
+            String[] obtenu = lignes[i].split(",");
+            assertEquals(attendu[attendu.length - 1], obtenu[0], "ligne " + (i + 1));
+        }
+    }
+
+    @DisplayName("Un gros fichier sans en-tête, en CRLF et sans fin de ligne finale est traité à l'identique")
+    @Test
+    public void testGrosFichier() throws IOException {
+        Random random = new Random(4);
+        StringBuilder csv = new StringBuilder();
+        int[][] foyers = new int[200_000][];
+        for (int i = 0; i < foyers.length; i++) {
+            SituationFamiliale sf = SituationFamiliale.values()[random.nextInt(SituationFamiliale.values().length)];
+            int enf = random.nextInt(8);
+            foyers[i] = new int[] { random.nextInt(300_000), sf.isMarried() ? random.nextInt(90_000) : 0,
+                    sf.ordinal(), enf, random.nextInt(enf + 1), !sf.isMarried() && random.nextBoolean() ? 1 : 0 };
+            csv.append(foyers[i][0]).append(',').append(foyers[i][1]).append(',').append(sf.name()).append(',')
+                    .append(enf).append(',').append(foyers[i][4]).append(',').append(foyers[i][5] == 1)
+                    .append(i == foyers.length - 1 ? "" : "\r\n");
+        }
+
+        String[] lignes = traiter(csv.toString(), TraitementFichierCsv.TAILLE_LOT_DEFAUT);
+
+        assertEquals(foyers.length + 1, lignes.length);
+        SimulateurRefactored simulateur = new SimulateurRefactored();
+        for (int i = 0; i < foyers.length; i++) {
+            int[] f = foyers[i];
+            int impot = simulateur.calculImpot(f[0], f[1], SituationFamiliale.values()[f[2]], f[3], f[4], f[5] == 1);
+            String attendu = impot + "," + (int) simulateur.getRevenuReference() + "," + simulateur.getNbParts()
+                    + "," + (int) simulateur.getDecote() + "," + (int) simulateur.getContribExceptionnelle();
+            assertEquals(attendu, lignes[i + 1]);
+        }
+    }
+
+    @DisplayName("Une ligne mal formée est rejetée avec son numéro")
+    @Test
+    public void testLigneMalFormee() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> traiter("1000,0,CELIBATAIRE,0,0,false\n1000,0,INCONNU,0,0,false\n", 10));
+        assertEquals("Ligne 2 : situation familiale inconnue en colonne 3", e.getMessage());
+    }
+
+    @DisplayName("Seule une première ligne aux noms de colonnes attendus est sautée comme en-tête")
+    @Test
+    public void testEnTeteParNomsDeColonnes() throws IOException {
+        String foyer = "30000,35000,MARIE,3,0,false\n";
+        assertEquals(2, traiter("revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole,impotAttendu\n"
+                + foyer, 10).length);
+
+        IllegalArgumentException vide = assertThrows(IllegalArgumentException.class,
+                () -> traiter(",0,CELIBATAIRE,0,0,false\n" + foyer, 10));
+        assertEquals("Ligne 1 : entier attendu en colonne 1", vide.getMessage());
+        IllegalArgumentException inconnu = assertThrows(IllegalArgumentException.class,
+                () -> traiter("revenu1,revenu2,situation,enfants,handicap,isole\n" + foyer, 10));
+        assertEquals("Ligne 1 : entier attendu en colonne 1", inconnu.getMessage());
+    }
+}
@@ -0,0 +1,118 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.Tranche;
+import com.kerware.simulateur.TrancheCEHR;
+import com.kerware.simulateur.TrancheImpot;
+import com.kerware.simulateur.TranchesCompilees;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsTranchesCompilees {
+
+    private static double parcours(List<? extends Tranche> tranches, double revenu) {
+        double somme = 0;
+        for (Tranche tranche : tranches) {
+            somme += tranche.baseTaxable(revenu);
+        }
+        return somme;
+    }
+
+    @DisplayName("L'évaluation scalaire est identique au bit près au parcours des tranches")
+    @Test
+    public void testScalaire() {
+        Random alea = new Random(20);
+        for (int annee = 2022; annee <= 2025; annee++) {
+            Bareme bareme = Bareme.charger(annee);
+            for (List<? extends Tranche> tranches : List.of(bareme.tranchesImpot(),
+                    bareme.tranchesCEHRCelibataire(), bareme.tranchesCEHRCouple())) {
+                TranchesCompilees compilees = TranchesCompilees.compiler(tranches);
+                for (int i = 0; i < 200_000; i++) {
+                    double revenu = i % 2 == 0 ? alea.nextInt(2_000_000) : alea.nextDouble() * 300_000;
+                    assertEquals(parcours(tranches, revenu), compilees.somme(revenu), "revenu " + revenu);
+                }
+                for (int k = 0; k < compilees.getNbTranches(); k++) {
+                    assertEquals(parcours(tranches, compilees.borneInferieure(k)), compilees.impotCumule(k));
+                }
+            }
+        }
+    }
+
+    // Somme compensée du simulateur d'origine pour la CEHR
+    private static double sommeCompensee(List<TrancheCEHR> tranches, double rFRef) {
+        return tranches.stream().takeWhile(tranche -> rFRef > tranche.borneInferieure())
+                .mapToDouble(tranche -> tranche.baseTaxable(rFRef))
+                .sum();
+    }
+
+    @DisplayName("La CEHR compilée est identique au bit près à la somme compensée d'origine")
+    @Test
+    public void testCEHRCommeSommeCompensee() {
+        Random alea = new Random(22);
+        for (int annee = 2022; annee <= 2025; annee++) {
+            Bareme bareme = Bareme.charger(annee);
+            for (List<TrancheCEHR> tranches : List.of(bareme.tranchesCEHRCelibataire(), bareme.tranchesCEHRCouple())) {
+                TranchesCompilees compilees = TranchesCompilees.compiler(tranches);
+                for (TrancheCEHR tranche : tranches) {
+                    for (int r = Math.max(0, tranche.borneInferieure() - 1_000); r <= tranche.borneInferieure() + 1_000; r++) {
+                        assertEquals(sommeCompensee(tranches, r), compilees.somme(r), "revenu " + r);
+                    }
+                }
+                for (int i = 0; i < 200_000; i++) {
+                    int r = i % 2 == 0 ? 250_000 + alea.nextInt(2_000_000) : alea.nextInt(Integer.MAX_VALUE);
+                    assertEquals(sommeCompensee(tranches, r), compilees.somme(r), "revenu " + r);
+                }
+            }
+        }
+    }
+
+    @DisplayName("L'évaluation par lot donne les sommes scalaires, revenus triés ou non")
+    @Test
+    public void testLot() {
+        TranchesCompilees compilees = TranchesCompilees.compiler(Bareme.charger(2024).tranchesImpot());
+        Random alea = new Random(21);
+        double[] revenus = new double[10_000];
+        for (int i = 0; i < revenus.length; i++) {
+            revenus[i] = alea.nextInt(400_000) / (1 + alea.nextInt(4) * 0.5);
+        }
+        double[][] cas = { revenus, revenus.clone() };
+        Arrays.sort(cas[1]);
+        for (double[] entree : cas) {
+            double[] sommes = new double[entree.length];
+            double[] attendues = new double[entree.length];
+            compilees.somme(entree, sommes);
+            for (int i = 0; i < entree.length; i++) {
+                attendues[i] = compilees.somme(entree[i]);
+            }
+            assertArrayEquals(attendues, sommes);
+        }
+        assertThrows(IllegalArgumentException.class, () -> compilees.somme(revenus, new double[1]));
+    }
+
+    @DisplayName("Le taux marginal et les cumuls suivent les tranches")
+    @Test
+    public void testTauxEtCumuls() {
+        TranchesCompilees compilees = TranchesCompilees.compiler(List.of(new TrancheImpot(0, 10_000, 0.0),
+                new TrancheImpot(10_000, 20_000, 0.1), new TrancheImpot(20_000, Integer.MAX_VALUE, 0.5)));
+        assertEquals(0.0, compilees.tauxMarginal(10_000));
+        assertEquals(0.1, compilees.tauxMarginal(10_001));
+        assertEquals(0.5, compilees.tauxMarginal(1e9));
+        assertArrayEquals(new double[] { 0, 0, 1_000 }, compilees.impotsCumules());
+        assertEquals(1_000 + 0.5 * 5_000, compilees.somme(25_000));
+    }
+
+    @DisplayName("Des tranches non contiguës sont refusées")
+    @Test
+    public void testTranchesNonContigues() {
+        assertThrows(IllegalArgumentException.class, () -> TranchesCompilees.compiler(
+                List.of(new TrancheCEHR(0, 250_000, 0.0), new TrancheCEHR(260_000, Integer.MAX_VALUE, 0.03))));
+    }
+}
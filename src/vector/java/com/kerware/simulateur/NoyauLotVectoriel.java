@@ -0,0 +1,170 @@
+package com.kerware.simulateur;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Noyau vectoriel : chaque étape est évaluée pour autant de foyers qu'un vecteur de doubles
+ * compte de voies. Compilé uniquement avec le profil Maven {@code vector}
+ * ({@code --add-modules jdk.incubator.vector}), chargé par réflexion par {@link NoyauLot#charger()}.
+ *
+ * <p>Les opérations sont celles du calcul scalaire, voie par voie et dans le même ordre
+ * (multiplications et additions séparées, jamais fusionnées) : seuls les arrondis changent de
+ * forme. {@code Math.round} n'a pas d'équivalent vectoriel ; il est reconstruit à partir du
+ * plancher de {@code x + 0.5}, puis corrigé exactement là où cette addition a été arrondie vers
+ * l'entier supérieur.</p>
+ *
+ * <p>Le barème progressif et la contribution exceptionnelle sont sommés tranche par tranche sur
+ * toutes les voies : les tranches entières donnent exactement les cumuls de
+ * {@link TranchesCompilees}, les tranches non atteintes ajoutent zéro.</p>
+ */
+final class NoyauLotVectoriel implements NoyauLot {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> ENTIERS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.length() * Integer.SIZE));
+
+    private static final double DEMI = 0.5;
+    private static final double DEUX_PUISSANCE_52 = 0x1p52;
+    private static final double PARTS_COUPLE = 2;
+
+    NoyauLotVectoriel() {
+        // Échoue au chargement si la forme d'entiers associée n'existe pas sur cette plateforme
+        if (ENTIERS.length() != DOUBLES.length()) {
+            throw new IllegalStateException("Formes vectorielles incompatibles");
+        }
+    }
+
+    @Override
+    public boolean isVectoriel() {
+        return true;
+    }
+
+    @Override
+    public void calculer(CalculateurImpot calculateur, BlocNoyau bloc, int n) {
+        Bareme bareme = calculateur.getBareme();
+        Parametres p = new Parametres(calculateur, bareme);
+        int fin = DOUBLES.loopBound(n);
+        for (int i = 0; i < fin; i += DOUBLES.length()) {
+            calculer(p, bloc, i);
+        }
+        NoyauLotScalaire.calculer(calculateur, bloc, fin, n);
+    }
+
+    private static void calculer(Parametres p, BlocNoyau bloc, int i) {
+        IntVector entiers1 = IntVector.fromArray(ENTIERS, bloc.revenus1, i);
+        IntVector entiers2 = IntVector.fromArray(ENTIERS, bloc.revenus2, i);
+        DoubleVector r1 = enDoubles(entiers1);
+        DoubleVector r2 = enDoubles(entiers2);
+        // Somme entière, avec le même dépassement éventuel que le calcul scalaire
+        DoubleVector somme = enDoubles(entiers1.add(entiers2));
+        DoubleVector nbPtsDecl = DoubleVector.fromArray(DOUBLES, bloc.partsDeclarants, i);
+        DoubleVector nbPts = DoubleVector.fromArray(DOUBLES, bloc.parts, i);
+        VectorMask<Double> couple = nbPtsDecl.compare(VectorOperators.EQ, PARTS_COUPLE);
+
+        // EXG_IMPOT_02 : abattement de 10 % borné, par déclarant
+        DoubleVector abt1 = arrondi(r1.mul(p.tauxAbattement)).min(p.abattementMax).max(p.abattementMin);
+        DoubleVector abt2 = arrondi(r2.mul(p.tauxAbattement)).min(p.abattementMax).max(p.abattementMin);
+        DoubleVector abt = abt1.add(DoubleVector.zero(DOUBLES).blend(abt2, couple));
+        DoubleVector rFRef = somme.sub(abt);
+        rFRef = rFRef.blend(0, rFRef.compare(VectorOperators.LT, 0));
+
+        // EXG_IMPOT_07 : contribution exceptionnelle selon le statut
+        DoubleVector contrib = arrondi(somme(p.cehrSeul, rFRef).blend(somme(p.cehrCouple, rFRef), couple));
+
+        // EXG_IMPOT_04 : barème progressif
+        DoubleVector mImpDecl = arrondi(somme(p.progressif, rFRef.div(nbPtsDecl)).mul(nbPtsDecl));
+        DoubleVector mImp = arrondi(somme(p.progressif, rFRef.div(nbPts)).mul(nbPts));
+
+        // EXG_IMPOT_05 : plafonnement des effets du quotient familial
+        DoubleVector plafond = nbPts.sub(nbPtsDecl).div(DEMI).mul(p.plafondDemiPart);
+        VectorMask<Double> plafonne = mImpDecl.sub(mImp).compare(VectorOperators.GT, plafond);
+        DoubleVector mImpAvantDecote = mImp.blend(mImpDecl.sub(plafond), plafonne);
+
+        // EXG_IMPOT_06 : décote
+        DoubleVector seuil = DoubleVector.broadcast(DOUBLES, p.seuilDecoteSeul).blend(p.seuilDecoteCouple, couple);
+        DoubleVector maximum = DoubleVector.broadcast(DOUBLES, p.decoteMaxSeul).blend(p.decoteMaxCouple, couple);
+        DoubleVector decote = maximum.sub(mImpAvantDecote.mul(p.tauxDecote));
+        decote = DoubleVector.zero(DOUBLES).blend(decote, mImpAvantDecote.compare(VectorOperators.LT, seuil));
+        decote = arrondi(decote.min(mImpAvantDecote));
+
+        rFRef.intoArray(bloc.revenusReference, i);
+        decote.intoArray(bloc.decotes, i);
+        contrib.intoArray(bloc.contribExceptionnelles, i);
+        arrondi(mImpAvantDecote.sub(decote).add(contrib)).intoArray(bloc.impotsNets, i);
+        abt.intoArray(bloc.abattements, i);
+        mImpAvantDecote.intoArray(bloc.impotsAvantDecote, i);
+        plafonne.intoArray(bloc.plafonnements, i);
+    }
+
+    private static DoubleVector enDoubles(IntVector entiers) {
+        return (DoubleVector) entiers.convertShape(VectorOperators.I2D, DOUBLES, 0);
+    }
+
+    // Somme des parts taxées de chaque voie, tranche par tranche dans l'ordre du barème
+    private static DoubleVector somme(TranchesCompilees tranches, DoubleVector revenu) {
+        DoubleVector somme = DoubleVector.zero(DOUBLES);
+        for (int k = 0; k < tranches.getNbTranches(); k++) {
+            DoubleVector base = revenu.min(tranches.borneSuperieure(k)).sub(tranches.borneInferieure(k));
+            somme = somme.add(base.max(0).mul(tranches.taux(k)));
+        }
+        return somme;
+    }
+
+    /**
+     * {@code Math.round} voie par voie, sans conversion vers les entiers longs (non compilée en
+     * instructions vectorielles sur toutes les plateformes). {@code t = x + 0.5} est d'abord
+     * arrondi à l'entier le plus proche en lui ajoutant puis retranchant 2^52, ce qui est exact
+     * pour les montants de l'impôt, bien inférieurs à 2^52. Le résultat est ramené au plancher de
+     * {@code t}, puis corrigé d'une unité quand l'addition de 0.5 a été arrondie jusqu'à l'entier
+     * suivant ({@code c - 0.5 > x}, comparaison exacte puisque {@code c - 0.5} est représentable).
+     * Les corrections soustraient un vecteur de 0 et de 1 plutôt que d'utiliser une opération
+     * masquée, elle aussi non compilée en instructions vectorielles par le JDK 17.
+     */
+    private static DoubleVector arrondi(DoubleVector x) {
+        DoubleVector t = x.add(DEMI);
+        DoubleVector decalage = DoubleVector.broadcast(DOUBLES, DEUX_PUISSANCE_52)
+                .blend(-DEUX_PUISSANCE_52, t.compare(VectorOperators.LT, 0));
+        DoubleVector c = t.add(decalage).sub(decalage);
+        c = c.sub(DoubleVector.zero(DOUBLES).blend(1, c.compare(VectorOperators.GT, t)));
+        return c.sub(DoubleVector.zero(DOUBLES).blend(1, c.sub(DEMI).compare(VectorOperators.GT, x)));
+    }
+
+    /**
+     * Constantes du barème lues une fois par bloc.
+     */
+    private static final class Parametres {
+
+        private final TranchesCompilees progressif;
+        private final TranchesCompilees cehrSeul;
+        private final TranchesCompilees cehrCouple;
+        private final double abattementMin;
+        private final double abattementMax;
+        private final double tauxAbattement;
+        private final double plafondDemiPart;
+        private final double seuilDecoteSeul;
+        private final double seuilDecoteCouple;
+        private final double decoteMaxSeul;
+        private final double decoteMaxCouple;
+        private final double tauxDecote;
+
+        Parametres(CalculateurImpot calculateur, Bareme bareme) {
+            progressif = calculateur.baremeProgressif();
+            cehrSeul = calculateur.baremeCEHR(SituationFamiliale.CELIBATAIRE);
+            cehrCouple = calculateur.baremeCEHR(SituationFamiliale.MARIE);
+            abattementMin = bareme.abattement().minimum();
+            abattementMax = bareme.abattement().maximum();
+            tauxAbattement = bareme.abattement().taux();
+            plafondDemiPart = bareme.plafondDemiPart();
+            seuilDecoteSeul = bareme.decote().seuilSeul();
+            seuilDecoteCouple = bareme.decote().seuilCouple();
+            decoteMaxSeul = bareme.decote().maxSeul();
+            decoteMaxCouple = bareme.decote().maxCouple();
+            tauxDecote = bareme.decote().taux();
+        }
+    }
+}